@@ -0,0 +1,100 @@
+package study.querydsl.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * 응답 시간 기록 (나노초)
+ * 측정 구간의 요청 수는 rate * duration 정도이므로 모든 값을 저장하고 끝날 때 정렬해서 백분위수를 구한다.
+ */
+class LatencyRecorder {
+
+    private long[] samples = new long[1024];
+    private int size;
+    private long errors;
+    private long shed;
+    private long dropped;
+
+    synchronized void recordSuccess(long nanos) {
+        if (size == samples.length) {
+            samples = Arrays.copyOf(samples, size * 2);
+        }
+        samples[size++] = nanos;
+    }
+
+    synchronized void recordError() {
+        errors++;
+    }
+
+    //PoolSaturationGuard 가 503 으로 거절한 요청
+    synchronized void recordShed() {
+        shed++;
+    }
+
+    //max-in-flight 를 넘어 보내지 못한 요청
+    synchronized void recordDropped() {
+        dropped++;
+    }
+
+    synchronized Snapshot snapshot() {
+        long[] sorted = Arrays.copyOf(samples, size);
+        Arrays.sort(sorted);
+        return new Snapshot(sorted, errors, shed, dropped);
+    }
+
+    void mergeInto(LatencyRecorder target) {
+        Snapshot snapshot = snapshot();
+        synchronized (target) {
+            for (long sample : snapshot.sorted) {
+                target.recordSuccess(sample);
+            }
+            target.errors += snapshot.errors;
+            target.shed += snapshot.shed;
+            target.dropped += snapshot.dropped;
+        }
+    }
+
+    static class Snapshot {
+        private final long[] sorted;
+        final long errors;
+        final long shed;
+        final long dropped;
+
+        Snapshot(long[] sorted, long errors, long shed, long dropped) {
+            this.sorted = sorted;
+            this.errors = errors;
+            this.shed = shed;
+            this.dropped = dropped;
+        }
+
+        long successes() {
+            return sorted.length;
+        }
+
+        long total() {
+            return sorted.length + errors + shed + dropped;
+        }
+
+        double failureRate() {
+            long total = total();
+            return total == 0 ? 0 : (double) (errors + dropped) / total;
+        }
+
+        //503 (PoolSaturationGuard 거절, 쿼리 시간 예산 초과) 비율 - 응답 시간 백분위수에는 포함되지 않는다.
+        double shedRate() {
+            long total = total();
+            return total == 0 ? 0 : (double) shed / total;
+        }
+
+        long percentileMillis(double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1_000_000;
+        }
+
+        long maxMillis() {
+            return sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1_000_000;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package study.querydsl.loadtest;
+
+import java.time.Duration;
+
+/**
+ * 부하 테스트 설정 (-Dloadtest.* 시스템 프로퍼티)
+ */
+final class LoadTestSettings {
+
+    //시드 데이터
+    final int members = intProperty("loadtest.members", 1_000_000);
+    final int teams = intProperty("loadtest.teams", 1_000);
+
+    //open model - 응답 시간과 무관하게 초당 rate 건의 요청을 보낸다.
+    final double rate = doubleProperty("loadtest.rate", 200);
+    final Duration warmup = Duration.ofSeconds(intProperty("loadtest.warmup-seconds", 10));
+    final Duration duration = Duration.ofSeconds(intProperty("loadtest.duration-seconds", 60));
+    final int maxInFlight = intProperty("loadtest.max-in-flight", 1_000);
+    final Duration requestTimeout = Duration.ofSeconds(intProperty("loadtest.request-timeout-seconds", 30));
+    final long seed = Long.getLong("loadtest.seed", 42L);
+
+    //요청 구성 - 엔드포인트 비율, 깊은 페이지 비율
+    final String mix = System.getProperty("loadtest.mix", "v1=0.2,v2=0.3,v3=0.5");
+    final double deepPageRatio = doubleProperty("loadtest.deep-page-ratio", 0.05);
+    //조건 없는 /v1 요청 비율 - QueryPolicy 의 maxRows/timeout 이 꼬리 지연을 막는지 확인한다.
+    final double unboundedRatio = doubleProperty("loadtest.unbounded-ratio", 0.02);
+
+    //회귀 기준
+    final long gateP99Millis = intProperty("loadtest.gate.p99-ms", 500);
+    final long gateP999Millis = intProperty("loadtest.gate.p999-ms", 2_000);
+    final double gateErrorRate = doubleProperty("loadtest.gate.error-rate", 0.01);
+    //503 으로 빨리 거절한 요청은 백분위수에서 빠지므로 따로 제한한다.
+    final double gateShedRate = doubleProperty("loadtest.gate.shed-rate", 0.01);
+
+    private static int intProperty(String key, int defaultValue) {
+        return Integer.getInteger(key, defaultValue);
+    }
+
+    private static double doubleProperty(String key, double defaultValue) {
+        String value = System.getProperty(key);
+        return value != null ? Double.parseDouble(value) : defaultValue;
+    }
+
+    @Override
+    public String toString() {
+        return "members=" + members + ", teams=" + teams + ", rate=" + rate + "/s, duration=" + duration
+                + ", mix=" + mix + ", deepPageRatio=" + deepPageRatio + ", unboundedRatio=" + unboundedRatio + ", maxInFlight=" + maxInFlight;
+    }
+}
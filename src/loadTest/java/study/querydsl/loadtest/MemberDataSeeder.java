@@ -0,0 +1,45 @@
+package study.querydsl.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * 부하 테스트용 회원/팀 데이터 적재
+ * JPA 를 거치지 않고 H2 의 system_range 로 insert ... select 해서 수백만 건도 몇 초 안에 만든다.
+ * member{n} 의 나이는 0~99, 팀은 team1 ~ team{teams} 에 고르게 나뉜다.
+ */
+@Slf4j
+class MemberDataSeeder {
+
+    private static final int CHUNK_SIZE = 100_000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    MemberDataSeeder(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    void seed(int members, int teams) {
+        long start = System.nanoTime();
+        jdbcTemplate.update("delete from member");
+        jdbcTemplate.update("delete from team_closure");
+        jdbcTemplate.update("delete from team");
+
+        //팀은 모두 최상위 팀이다. closure 에는 자기 자신(depth 0) 행만 넣는다.
+        jdbcTemplate.update("insert into team (team_id, name) select x, 'team' || x from system_range(1, ?)", teams);
+        jdbcTemplate.update("insert into team_closure (ancestor_id, descendant_id, depth) select x, x, 0 from system_range(1, ?)", teams);
+        for (int from = 1; from <= members; from += CHUNK_SIZE) {
+            int to = Math.min(from + CHUNK_SIZE - 1, members);
+            jdbcTemplate.update("insert into member (member_id, username, age, team_id, version)"
+                    + " select x, 'member' || x, mod(x * 7, 100), mod(x, ?) + 1, 0 from system_range(?, ?)",
+                    teams, from, to);
+        }
+
+        //이후 JPA 로 저장하는 엔티티와 id 가 겹치지 않도록 시퀀스를 옮긴다.
+        jdbcTemplate.execute("alter sequence member_seq restart with " + (members + 1));
+        jdbcTemplate.execute("alter sequence hibernate_sequence restart with " + (teams + 1));
+        jdbcTemplate.execute("analyze");
+
+        log.info("Seeded {} members / {} teams in {}ms", members, teams, (System.nanoTime() - start) / 1_000_000);
+    }
+}
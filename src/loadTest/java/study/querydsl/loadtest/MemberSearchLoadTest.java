@@ -0,0 +1,60 @@
+package study.querydsl.loadtest;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import study.querydsl.repository.MemberUsernameFilter;
+
+import java.net.URI;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 회원 검색 부하 테스트 (./gradlew loadTest)
+ * 로컬 H2 서버(~/querydsl-loadtest)에 회원을 적재하고, 앱을 띄워 /v1, /v2, /v3 요청을 open model 로 재생한다.
+ * 처리량과 p50/p99/p999 를 출력하고, p99/p999/실패율/503 비율이 기준을 넘으면 실패한다.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("loadtest")
+class MemberSearchLoadTest {
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    MemberUsernameFilter memberUsernameFilter;
+
+    @Test
+    void replaySearchWorkload() throws Exception {
+        LoadTestSettings settings = new LoadTestSettings();
+        System.out.println("load test settings: " + settings);
+
+        new MemberDataSeeder(jdbcTemplate).seed(settings.members, settings.teams);
+        //JdbcTemplate 로 넣은 회원은 Hibernate 를 거치지 않으므로 username 필터를 다시 만든다.
+        memberUsernameFilter.rebuild();
+
+        SearchWorkload workload = new SearchWorkload(settings);
+        OpenModelLoadGenerator generator = new OpenModelLoadGenerator(
+                URI.create("http://localhost:" + port), workload, settings);
+        Random random = new Random(settings.seed);
+
+        OpenModelLoadGenerator.Result warmup = generator.run(settings.warmup, random);
+        System.out.println("warmup\n" + warmup.report());
+
+        OpenModelLoadGenerator.Result result = generator.run(settings.duration, random);
+        System.out.println("measured\n" + result.report());
+
+        LatencyRecorder.Snapshot total = result.total();
+        assertThat(total.failureRate()).as("error + dropped rate").isLessThanOrEqualTo(settings.gateErrorRate);
+        assertThat(total.shedRate()).as("shed (503) rate").isLessThanOrEqualTo(settings.gateShedRate);
+        assertThat(total.percentileMillis(99)).as("p99 ms").isLessThanOrEqualTo(settings.gateP99Millis);
+        assertThat(total.percentileMillis(99.9)).as("p999 ms").isLessThanOrEqualTo(settings.gateP999Millis);
+    }
+}
@@ -0,0 +1,124 @@
+package study.querydsl.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * open model 부하 생성기
+ * 요청 i 의 예정 시각은 start + i / rate 이고, 앞선 요청의 응답을 기다리지 않는다.
+ * 응답 시간은 실제 전송 시각이 아니라 예정 시각부터 재므로, 생성기가 밀려도 대기 시간이 결과에 포함된다. (coordinated omission 방지)
+ */
+class OpenModelLoadGenerator {
+
+    private final HttpClient client;
+    private final URI baseUri;
+    private final SearchWorkload workload;
+    private final LoadTestSettings settings;
+
+    OpenModelLoadGenerator(URI baseUri, SearchWorkload workload, LoadTestSettings settings) {
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.baseUri = baseUri;
+        this.workload = workload;
+        this.settings = settings;
+    }
+
+    Result run(Duration duration, Random random) throws InterruptedException {
+        Map<SearchWorkload.Endpoint, LatencyRecorder> recorders = new EnumMap<>(SearchWorkload.Endpoint.class);
+        for (SearchWorkload.Endpoint endpoint : SearchWorkload.Endpoint.values()) {
+            recorders.put(endpoint, new LatencyRecorder());
+        }
+        Semaphore inFlight = new Semaphore(settings.maxInFlight);
+
+        double intervalNanos = 1_000_000_000d / settings.rate;
+        long durationNanos = duration.toNanos();
+        long start = System.nanoTime();
+        for (long i = 0; ; i++) {
+            long intended = start + (long) (i * intervalNanos);
+            if (intended - start >= durationNanos) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            SearchWorkload.Request request = workload.next(random);
+            LatencyRecorder recorder = recorders.get(request.endpoint);
+            if (!inFlight.tryAcquire()) {
+                recorder.recordDropped();
+                continue;
+            }
+            HttpRequest httpRequest = HttpRequest.newBuilder(baseUri.resolve(request.uri))
+                    .timeout(settings.requestTimeout)
+                    .GET()
+                    .build();
+            client.sendAsync(httpRequest, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, e) -> {
+                        long latency = System.nanoTime() - intended;
+                        inFlight.release();
+                        if (e != null) {
+                            recorder.recordError();
+                        } else if (response.statusCode() == 503) {
+                            recorder.recordShed();
+                        } else if (response.statusCode() >= 400) {
+                            recorder.recordError();
+                        } else {
+                            recorder.recordSuccess(latency);
+                        }
+                    });
+        }
+        long elapsed = System.nanoTime() - start;
+
+        //남은 요청이 끝나기를 기다린다.
+        if (inFlight.tryAcquire(settings.maxInFlight, settings.requestTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            inFlight.release(settings.maxInFlight);
+        }
+        return new Result(recorders, elapsed);
+    }
+
+    static class Result {
+        private final Map<SearchWorkload.Endpoint, LatencyRecorder.Snapshot> snapshots = new EnumMap<>(SearchWorkload.Endpoint.class);
+        private final LatencyRecorder.Snapshot total;
+        private final double seconds;
+
+        Result(Map<SearchWorkload.Endpoint, LatencyRecorder> recorders, long elapsedNanos) {
+            LatencyRecorder all = new LatencyRecorder();
+            recorders.forEach((endpoint, recorder) -> snapshots.put(endpoint, recorder.snapshot()));
+            recorders.values().forEach(recorder -> recorder.mergeInto(all));
+            this.total = all.snapshot();
+            this.seconds = elapsedNanos / 1_000_000_000d;
+        }
+
+        LatencyRecorder.Snapshot total() {
+            return total;
+        }
+
+        String report() {
+            StringBuilder report = new StringBuilder(String.format("%-6s %9s %8s %7s %8s %10s %7s %7s %7s %7s%n",
+                    "", "requests", "errors", "shed", "dropped", "ok/s", "p50", "p99", "p999", "max"));
+            snapshots.forEach((endpoint, snapshot) -> line(report, endpoint.name(), snapshot));
+            line(report, "total", total);
+            return report.toString();
+        }
+
+        private void line(StringBuilder report, String name, LatencyRecorder.Snapshot snapshot) {
+            report.append(String.format("%-6s %9d %8d %7d %8d %10.1f %5dms %5dms %5dms %5dms%n",
+                    name, snapshot.total(), snapshot.errors, snapshot.shed, snapshot.dropped,
+                    snapshot.successes() / seconds,
+                    snapshot.percentileMillis(50), snapshot.percentileMillis(99),
+                    snapshot.percentileMillis(99.9), snapshot.maxMillis()));
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package study.querydsl.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * /v1, /v2, /v3 회원 검색 요청 생성기
+ * - 엔드포인트는 mix 비율(v1=0.2,v2=0.3,v3=0.5)로 고른다.
+ * - 검색 조건은 조건 없음, teamName, ageGoe, teamId + ageGoe, username 을 섞는다.
+ * - 페이지는 대부분 앞쪽(기하 분포)이고, deepPageRatio 만큼은 전체 범위에서 고른 깊은 페이지다.
+ * /v1 은 페이징이 없으므로 결과가 작은 조건을 사용하고, unboundedRatio 만큼만 조건 없이 보낸다. (QueryPolicy.maxRows 로 잘린다.)
+ */
+class SearchWorkload {
+
+    enum Endpoint {
+        V1("/v1/members"), V2("/v2/members"), V3("/v3/members");
+
+        private final String path;
+
+        Endpoint(String path) {
+            this.path = path;
+        }
+    }
+
+    static class Request {
+        final Endpoint endpoint;
+        final String uri;
+
+        Request(Endpoint endpoint, String uri) {
+            this.endpoint = endpoint;
+            this.uri = uri;
+        }
+    }
+
+    private static final int[] PAGE_SIZES = {10, 20, 20, 20, 50, 100};
+
+    private final int members;
+    private final int teams;
+    private final double deepPageRatio;
+    private final double unboundedRatio;
+    private final List<Endpoint> endpoints = new ArrayList<>();
+    private final List<Double> cumulativeWeights = new ArrayList<>();
+
+    SearchWorkload(LoadTestSettings settings) {
+        this.members = settings.members;
+        this.teams = settings.teams;
+        this.deepPageRatio = settings.deepPageRatio;
+        this.unboundedRatio = settings.unboundedRatio;
+
+        double total = 0;
+        for (String entry : settings.mix.split(",")) {
+            String[] pair = entry.trim().split("=");
+            total += Double.parseDouble(pair[1]);
+            endpoints.add(Endpoint.valueOf(pair[0].trim().toUpperCase()));
+            cumulativeWeights.add(total);
+        }
+        for (int i = 0; i < cumulativeWeights.size(); i++) {
+            cumulativeWeights.set(i, cumulativeWeights.get(i) / total);
+        }
+    }
+
+    Request next(Random random) {
+        Endpoint endpoint = endpoint(random);
+        if (endpoint == Endpoint.V1) {
+            if (random.nextDouble() < unboundedRatio) {
+                return new Request(endpoint, endpoint.path);
+            }
+            return new Request(endpoint, endpoint.path + "?" + narrowCondition(random));
+        }
+
+        int size = PAGE_SIZES[random.nextInt(PAGE_SIZES.length)];
+        StringBuilder uri = new StringBuilder(endpoint.path)
+                .append("?page=").append(page(random, size))
+                .append("&size=").append(size);
+        String condition = pagedCondition(random);
+        if (!condition.isEmpty()) {
+            uri.append('&').append(condition);
+        }
+        return new Request(endpoint, uri.toString());
+    }
+
+    private Endpoint endpoint(Random random) {
+        double value = random.nextDouble();
+        for (int i = 0; i < endpoints.size(); i++) {
+            if (value < cumulativeWeights.get(i)) {
+                return endpoints.get(i);
+            }
+        }
+        return endpoints.get(endpoints.size() - 1);
+    }
+
+    private String narrowCondition(Random random) {
+        if (random.nextBoolean()) {
+            return "username=member" + (1 + random.nextInt(members));
+        }
+        return "teamName=team" + (1 + random.nextInt(teams)) + "&ageGoe=" + (80 + random.nextInt(20));
+    }
+
+    private String pagedCondition(Random random) {
+        int kind = random.nextInt(10);
+        if (kind < 4) {
+            return "";
+        }
+        if (kind < 7) {
+            return "teamName=team" + (1 + random.nextInt(teams));
+        }
+        if (kind < 9) {
+            return "ageGoe=" + random.nextInt(100);
+        }
+        return "teamId=" + (1 + random.nextInt(teams)) + "&ageGoe=" + random.nextInt(100);
+    }
+
+    private int page(Random random, int size) {
+        if (random.nextDouble() < deepPageRatio) {
+            return random.nextInt(Math.max(1, members / size));
+        }
+        //P(page = k) = 0.5^(k+1), 최대 20
+        int page = 0;
+        while (page < 20 && random.nextBoolean()) {
+            page++;
+        }
+        return page;
+    }
+}
@@ -0,0 +1,97 @@
+package study.querydsl.analytics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 나이 히스토그램
+ * 나이는 범위가 작은 정수라서 t-digest 같은 근사 스케치 대신 나이별 카운트를 그대로 저장한다.
+ * 메모리는 고정(MAX_AGE + 1 개 카운터)이고, 추가/삭제는 O(1), 백분위수는 카운터 수에 비례하는 고정 비용이다.
+ * 카운터는 lock 없이 갱신되고, 히스토그램끼리 더해서(merge) 합칠 수 있다.
+ */
+public class AgeHistogram {
+
+    public static final int MAX_AGE = 150;
+
+    //MAX_AGE 보다 큰 나이는 마지막 칸에, 음수는 0 칸에 모은다.
+    private final AtomicLongArray counts = new AtomicLongArray(MAX_AGE + 1);
+
+    public void add(int age) {
+        counts.incrementAndGet(bucket(age));
+    }
+
+    public void remove(int age) {
+        counts.decrementAndGet(bucket(age));
+    }
+
+    public void merge(AgeHistogram other) {
+        for (int i = 0; i <= MAX_AGE; i++) {
+            long count = other.counts.get(i);
+            if (count != 0) {
+                counts.addAndGet(i, count);
+            }
+        }
+    }
+
+    public long count() {
+        long total = 0;
+        for (int i = 0; i <= MAX_AGE; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    public long count(int age) {
+        return counts.get(bucket(age));
+    }
+
+    /**
+     * nearest-rank 백분위수
+     * 전체의 percentile% 이상이 이 나이 이하인 가장 작은 나이를 반환한다. 비어 있으면 null
+     */
+    public Integer percentile(double percentile) {
+        //NaN 도 거절한다.
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("percentile must be between 0 and 100: " + percentile);
+        }
+        long[] snapshot = snapshot();
+        long total = 0;
+        for (long count : snapshot) {
+            total += count;
+        }
+        if (total <= 0) {
+            return null;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long cumulative = 0;
+        for (int age = 0; age <= MAX_AGE; age++) {
+            cumulative += snapshot[age];
+            if (cumulative >= rank) {
+                return age;
+            }
+        }
+        return MAX_AGE;
+    }
+
+    public Double mean() {
+        long[] snapshot = snapshot();
+        long total = 0;
+        long sum = 0;
+        for (int age = 0; age <= MAX_AGE; age++) {
+            total += snapshot[age];
+            sum += (long) age * snapshot[age];
+        }
+        return total > 0 ? (double) sum / total : null;
+    }
+
+    public long[] snapshot() {
+        long[] snapshot = new long[MAX_AGE + 1];
+        for (int i = 0; i <= MAX_AGE; i++) {
+            snapshot[i] = counts.get(i);
+        }
+        return snapshot;
+    }
+
+    private static int bucket(int age) {
+        return Math.max(0, Math.min(age, MAX_AGE));
+    }
+}
@@ -0,0 +1,102 @@
+package study.querydsl.analytics;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * 서로 다른 값의 개수를 추정하는 HyperLogLog 스케치
+ * 레지스터 2^precision 개를 사용하고, 표준 오차는 약 1.04 / sqrt(2^precision) 이다. (precision 12 - 약 1.6%, 16KB)
+ * 추가는 lock 없이 O(1) 이고, 같은 precision 끼리 merge 할 수 있다. 값을 지울 수는 없다.
+ */
+public class HyperLogLog {
+
+    public static final int DEFAULT_PRECISION = 12;
+
+    private final int precision;
+    private final int registerCount;
+    private final AtomicIntegerArray registers;
+
+    public HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 18) {
+            throw new IllegalArgumentException("precision must be between 4 and 18: " + precision);
+        }
+        this.precision = precision;
+        this.registerCount = 1 << precision;
+        this.registers = new AtomicIntegerArray(registerCount);
+    }
+
+    public void add(String value) {
+        if (value == null) {
+            return;
+        }
+        long hash = hash(value);
+        int index = (int) (hash >>> (64 - precision));
+        //나머지 비트에서 처음 1 이 나오는 위치(1부터), 나머지가 모두 0 이면 64 - precision + 1
+        int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+        int current;
+        do {
+            current = registers.get(index);
+            if (rank <= current) {
+                return;
+            }
+        } while (!registers.compareAndSet(index, current, rank));
+    }
+
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("precision mismatch: " + precision + " != " + other.precision);
+        }
+        for (int i = 0; i < registerCount; i++) {
+            int rank = other.registers.get(i);
+            int current;
+            do {
+                current = registers.get(i);
+                if (rank <= current) {
+                    break;
+                }
+            } while (!registers.compareAndSet(i, current, rank));
+        }
+    }
+
+    public long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (int i = 0; i < registerCount; i++) {
+            int rank = registers.get(i);
+            sum += 1.0 / (1L << rank);
+            if (rank == 0) {
+                zeros++;
+            }
+        }
+        double alpha = 0.7213 / (1 + 1.079 / registerCount);
+        double estimate = alpha * registerCount * registerCount / sum;
+        //작은 범위는 linear counting 으로 보정한다.
+        if (estimate <= 2.5 * registerCount && zeros > 0) {
+            estimate = registerCount * Math.log((double) registerCount / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    //FNV-1a 64 + murmur3 fmix64
+    static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,111 @@
+package study.querydsl.analytics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.MemberActivity;
+import study.querydsl.entity.MemberActivityType;
+import study.querydsl.entity.event.MemberChange;
+import study.querydsl.entity.event.MemberChangeListener;
+import study.querydsl.repository.MemberActivityRepository;
+
+import javax.annotation.PreDestroy;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 커밋된 Member 변경에서 나이 변경(AGE_CHANGE), 팀 이동(TEAM_CHANGE) 활동을 남긴다.
+ * 변경 이벤트는 원래 트랜잭션이 끝나는 중에 호출되므로 바로 저장하지 않고 큐에 넣고,
+ * 별도 스레드가 모아서 자기 트랜잭션으로 저장한다. (벌크 나이 변경도 한 번에 저장된다.)
+ * member.activity.recording.enabled=false 이면 등록하지 않는다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "member.activity.recording.enabled", havingValue = "true", matchIfMissing = true)
+public class MemberActivityRecorder implements MemberChangeListener {
+
+    private final MemberActivityRepository memberActivityRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+
+    private final Queue<MemberActivity> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final ExecutorService flushExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "member-activity-recorder");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public MemberActivityRecorder(MemberActivityRepository memberActivityRepository,
+                                  PlatformTransactionManager transactionManager) {
+        this(memberActivityRepository, transactionManager, Clock.systemDefaultZone());
+    }
+
+    MemberActivityRecorder(MemberActivityRepository memberActivityRepository,
+                           PlatformTransactionManager transactionManager, Clock clock) {
+        this.memberActivityRepository = memberActivityRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clock = clock;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushExecutor.shutdownNow();
+        flush();
+    }
+
+    @Override
+    public void onMemberChange(MemberChange change) {
+        if (change.getType() != MemberChange.Type.UPDATE) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now(clock);
+        boolean recorded = false;
+        if (change.getPreviousAge() != change.getAge()) {
+            pending.add(new MemberActivity(change.getMemberId(), change.getTeamId(), MemberActivityType.AGE_CHANGE, now));
+            recorded = true;
+        }
+        //이동한 팀으로 남긴다.
+        if (!Objects.equals(change.getPreviousTeamId(), change.getTeamId())) {
+            pending.add(new MemberActivity(change.getMemberId(), change.getTeamId(), MemberActivityType.TEAM_CHANGE, now));
+            recorded = true;
+        }
+        if (recorded && flushScheduled.compareAndSet(false, true)) {
+            flushExecutor.execute(() -> {
+                flushScheduled.set(false);
+                try {
+                    flush();
+                } catch (RuntimeException e) {
+                    log.error("Member activity flush failed", e);
+                }
+            });
+        }
+    }
+
+    /**
+     * 큐에 쌓인 활동을 한 트랜잭션으로 저장한다.
+     *
+     * @return 저장한 활동 수
+     */
+    public synchronized int flush() {
+        List<MemberActivity> batch = new ArrayList<>();
+        MemberActivity activity;
+        while ((activity = pending.poll()) != null) {
+            batch.add(activity);
+        }
+        if (!batch.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> batch.forEach(memberActivityRepository::save));
+        }
+        return batch.size();
+    }
+}
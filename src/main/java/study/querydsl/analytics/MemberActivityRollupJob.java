@@ -0,0 +1,53 @@
+package study.querydsl.analytics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import study.querydsl.repository.MemberActivityRepository;
+
+import java.time.Clock;
+import java.time.LocalDate;
+
+/**
+ * MemberActivity 일 단위 집계 작업
+ * 오늘과 지난 lookbackDays 일을 주기적으로 다시 집계한다. 늦게 도착한 이벤트도 lookback 기간 안이면 반영된다.
+ * member.activity.rollup.enabled=false 이면 등록하지 않는다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "member.activity.rollup.enabled", havingValue = "true", matchIfMissing = true)
+public class MemberActivityRollupJob {
+
+    private final MemberActivityRepository memberActivityRepository;
+    private final int lookbackDays;
+    private final Clock clock;
+
+    public MemberActivityRollupJob(MemberActivityRepository memberActivityRepository,
+                                   @Value("${member.activity.rollup.lookback-days:1}") int lookbackDays) {
+        this(memberActivityRepository, lookbackDays, Clock.systemDefaultZone());
+    }
+
+    MemberActivityRollupJob(MemberActivityRepository memberActivityRepository, int lookbackDays, Clock clock) {
+        this.memberActivityRepository = memberActivityRepository;
+        this.lookbackDays = lookbackDays;
+        this.clock = clock;
+    }
+
+    @Scheduled(fixedDelayString = "${member.activity.rollup.interval:PT5M}",
+            initialDelayString = "${member.activity.rollup.initial-delay:PT1M}")
+    public void rollup() {
+        LocalDate today = LocalDate.now(clock);
+        for (int i = lookbackDays; i >= 0; i--) {
+            LocalDate day = today.minusDays(i);
+            try {
+                int rows = memberActivityRepository.rollupDay(day);
+                log.debug("Rolled up member activity for {} ({} rows)", day, rows);
+            } catch (RuntimeException e) {
+                //하루 실패가 나머지 날짜의 집계를 막지 않도록 한다.
+                log.error("Member activity rollup failed for {}", day, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package study.querydsl.analytics;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.AgeDistributionDto;
+import study.querydsl.entity.event.MemberChange;
+import study.querydsl.entity.event.MemberChangeListener;
+
+import javax.persistence.EntityManager;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 팀별 나이 분포/백분위수와 distinct 회원명 수를 DB 조회 없이 응답한다.
+ * - 커밋된 Member 변경 이벤트로 증분 갱신한다.
+ * - rebuild() 는 member 테이블을 스트리밍으로 한번 읽어 새로 만든다. (애플리케이션 시작 시, 그리고 벌크 연산 이후 등 필요할 때)
+ *   rebuild 중에 커밋된 변경은 스캔 결과와 겹치거나 빠질 수 있으므로, rebuild 는 한가한 시간에 실행한다.
+ */
+@Component
+public class MemberAgeAnalytics implements MemberChangeListener {
+
+    //팀이 없는 회원
+    public static final Long NO_TEAM = -1L;
+
+    private static final int SCAN_FETCH_SIZE = 1000;
+
+    private final JPAQueryFactory queryFactory;
+    private volatile Map<Long, TeamAgeStats> stats = new ConcurrentHashMap<>();
+
+    public MemberAgeAnalytics(EntityManager em) {
+        this.queryFactory = new JPAQueryFactory(em);
+    }
+
+    @Override
+    public void onMemberChange(MemberChange change) {
+        Map<Long, TeamAgeStats> current = stats;
+        switch (change.getType()) {
+            case INSERT:
+                statsOf(current, change.getTeamId()).add(change.getUsername(), change.getAge());
+                break;
+            case UPDATE:
+                if (change.getPreviousAge() != change.getAge()
+                        || !Objects.equals(change.getPreviousTeamId(), change.getTeamId())
+                        || !Objects.equals(change.getPreviousUsername(), change.getUsername())) {
+                    statsOf(current, change.getPreviousTeamId()).remove(change.getPreviousAge());
+                    statsOf(current, change.getTeamId()).add(change.getUsername(), change.getAge());
+                }
+                break;
+            case DELETE:
+                statsOf(current, change.getTeamId()).remove(change.getAge());
+                break;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        Map<Long, TeamAgeStats> rebuilt = new ConcurrentHashMap<>();
+        try (Stream<Tuple> rows = queryFactory
+                .select(member.team.id, member.username, member.age)
+                .from(member)
+                .setHint(QueryHints.READ_ONLY, true)
+                .setHint(QueryHints.FETCH_SIZE, SCAN_FETCH_SIZE)
+                .stream()) {
+            rows.forEach(row -> statsOf(rebuilt, row.get(member.team.id))
+                    .add(row.get(member.username), row.get(member.age)));
+        }
+        stats = rebuilt;
+    }
+
+    /**
+     * teamId 가 null 이면 모든 팀을 합친 분포를 반환한다.
+     */
+    public AgeDistributionDto distribution(Long teamId, double... percentiles) {
+        TeamAgeStats target = statsFor(teamId);
+        AgeHistogram ages = target.getAges();
+        Map<Double, Integer> result = new LinkedHashMap<>();
+        for (double percentile : percentiles) {
+            result.put(percentile, ages.percentile(percentile));
+        }
+        return new AgeDistributionDto(teamId, ages.count(), ages.mean(), target.getUsernames().estimate(), result);
+    }
+
+    /**
+     * teamId 가 null 이면 모든 팀을 합쳐서 계산한다. 회원이 없으면 null
+     */
+    public Integer percentile(Long teamId, double percentile) {
+        return statsFor(teamId).getAges().percentile(percentile);
+    }
+
+    private TeamAgeStats statsFor(Long teamId) {
+        TeamAgeStats target = teamId != null ? stats.get(teamId) : merged();
+        return target != null ? target : new TeamAgeStats();
+    }
+
+    private TeamAgeStats merged() {
+        TeamAgeStats merged = new TeamAgeStats();
+        stats.values().forEach(merged::merge);
+        return merged;
+    }
+
+    private static TeamAgeStats statsOf(Map<Long, TeamAgeStats> stats, Long teamId) {
+        return stats.computeIfAbsent(teamId != null ? teamId : NO_TEAM, id -> new TeamAgeStats());
+    }
+}
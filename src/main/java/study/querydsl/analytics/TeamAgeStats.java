@@ -0,0 +1,33 @@
+package study.querydsl.analytics;
+
+/**
+ * 팀 하나의 나이 분포와 회원명 distinct 스케치
+ */
+public class TeamAgeStats {
+
+    private final AgeHistogram ages = new AgeHistogram();
+    private final HyperLogLog usernames = new HyperLogLog();
+
+    public void add(String username, int age) {
+        ages.add(age);
+        usernames.add(username);
+    }
+
+    //HyperLogLog 는 값을 지울 수 없어서 distinct 회원명은 다음 rebuild 까지 상한값이 된다.
+    public void remove(int age) {
+        ages.remove(age);
+    }
+
+    public void merge(TeamAgeStats other) {
+        ages.merge(other.ages);
+        usernames.merge(other.usernames);
+    }
+
+    public AgeHistogram getAges() {
+        return ages;
+    }
+
+    public HyperLogLog getUsernames() {
+        return usernames;
+    }
+}
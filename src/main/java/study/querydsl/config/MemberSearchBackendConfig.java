@@ -0,0 +1,40 @@
+package study.querydsl.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.MemberRepositoryCustom;
+import study.querydsl.repository.memory.MemberMemoryRepository;
+import study.querydsl.sql.MemberSqlRepository;
+
+/**
+ * 회원 검색 구현체 선택
+ * member.search.backend=jpa(기본) - Querydsl JPA (MemberRepositoryImpl)
+ * member.search.backend=sql       - querydsl-sql (MemberSqlRepository)
+ * member.search.backend=memory    - 메모리 컬럼 인덱스 (MemberMemoryRepository)
+ */
+@Configuration
+public class MemberSearchBackendConfig {
+
+    public enum Backend {
+        JPA, SQL, MEMORY
+    }
+
+    @Bean
+    public MemberRepositoryCustom memberSearchRepository(@Value("${member.search.backend:JPA}") Backend backend,
+                                                         MemberRepository memberRepository,
+                                                         ObjectProvider<MemberSqlRepository> memberSqlRepository,
+                                                         ObjectProvider<MemberMemoryRepository> memberMemoryRepository) {
+        switch (backend) {
+            case SQL:
+                return memberSqlRepository.getObject();
+            case MEMORY:
+                return memberMemoryRepository.getObject();
+            case JPA:
+            default:
+                return memberRepository;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package study.querydsl.config;
+
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/**
+ * R2DBC 설정
+ * ConnectionFactory(커넥션 풀)는 spring.r2dbc 설정으로 자동 구성된다.
+ * spring-data-r2dbc 는 사용하지 않으므로 DatabaseClient 만 등록한다.
+ */
+@Configuration
+public class R2dbcConfig {
+
+    @Bean
+    public DatabaseClient databaseClient(ConnectionFactory connectionFactory) {
+        return DatabaseClient.create(connectionFactory);
+    }
+}
@@ -0,0 +1,33 @@
+package study.querydsl.config;
+
+import com.querydsl.sql.H2Templates;
+import com.querydsl.sql.SQLQueryFactory;
+import com.querydsl.sql.SQLTemplates;
+import com.querydsl.sql.spring.SpringConnectionProvider;
+import com.querydsl.sql.spring.SpringExceptionTranslator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * querydsl-sql 설정
+ * SpringConnectionProvider 는 현재 트랜잭션의 커넥션을 사용하므로 JPA 와 같은 트랜잭션 안에서 실행된다.
+ * 트랜잭션 밖에서 사용하면 예외가 발생한다.
+ */
+@Configuration
+public class SqlQueryConfig {
+
+    @Bean
+    public com.querydsl.sql.Configuration querydslSqlConfiguration() {
+        SQLTemplates templates = H2Templates.builder().build();
+        com.querydsl.sql.Configuration configuration = new com.querydsl.sql.Configuration(templates);
+        configuration.setExceptionTranslator(new SpringExceptionTranslator());
+        return configuration;
+    }
+
+    @Bean
+    public SQLQueryFactory sqlQueryFactory(DataSource dataSource, com.querydsl.sql.Configuration querydslSqlConfiguration) {
+        return new SQLQueryFactory(querydslSqlConfiguration, new SpringConnectionProvider(dataSource));
+    }
+}
@@ -0,0 +1,127 @@
+package study.querydsl.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.PriorityOrdered;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 빈 생성 시간 리포트
+ * 인스턴스 생성 직전부터 초기화(@PostConstruct 등)가 끝날 때까지의 시간을 빈마다 기록한다.
+ * 빈을 만드는 도중에 생성된 의존 빈의 시간은 빼고(self time) 기록하고, 애플리케이션이 준비되면 느린 순서로 로그를 남긴다.
+ *
+ * PriorityOrdered 로 등록해서 다른 BeanPostProcessor(AOP, 계측용 Configurer 등)와 그 의존 빈의 생성도 기록한다.
+ * 이 빈보다 먼저 만들어지는 빈(BeanFactoryPostProcessor, PriorityOrdered BeanPostProcessor)과
+ * registerSingleton 으로 등록된 빈은 기록할 수 없으므로 getUntimedBeans() 로 따로 보여준다.
+ */
+@Slf4j
+@Component
+public class StartupTimingBeanPostProcessor implements InstantiationAwareBeanPostProcessor, PriorityOrdered,
+        BeanFactoryAware, ApplicationListener<ApplicationReadyEvent> {
+
+    private static final int REPORT_SIZE = 10;
+
+    private final ThreadLocal<Deque<Frame>> creating = ThreadLocal.withInitial(ArrayDeque::new);
+    private final Map<String, Duration> timings = new ConcurrentHashMap<>();
+    private ConfigurableListableBeanFactory beanFactory;
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) {
+        if (beanFactory instanceof ConfigurableListableBeanFactory) {
+            this.beanFactory = (ConfigurableListableBeanFactory) beanFactory;
+        }
+    }
+
+    @Override
+    public Object postProcessBeforeInstantiation(Class<?> beanClass, String beanName) {
+        creating.get().push(new Frame(beanName, System.nanoTime()));
+        return null;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        Deque<Frame> stack = creating.get();
+        if (stack.stream().noneMatch(frame -> frame.beanName.equals(beanName))) {
+            //FactoryBean 이 만든 객체처럼 생성 구간이 기록되지 않은 경우
+            return bean;
+        }
+        Frame frame;
+        //생성에 실패한 빈의 구간은 버린다.
+        do {
+            frame = stack.pop();
+        } while (!frame.beanName.equals(beanName));
+
+        long elapsed = System.nanoTime() - frame.startNanos;
+        timings.put(beanName, Duration.ofNanos(elapsed - frame.childNanos));
+        Frame parent = stack.peek();
+        if (parent != null) {
+            parent.childNanos += elapsed;
+        }
+        return bean;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        creating.remove();
+        log.info("Slowest beans to create (self time): {}", getSlowestBeans(REPORT_SIZE).stream()
+                .map(entry -> entry.getKey() + "=" + entry.getValue().toMillis() + "ms")
+                .collect(Collectors.joining(", ")));
+        log.info("{} singletons were created before timing started or registered directly", getUntimedBeans().size());
+    }
+
+    public Map<String, Duration> getTimings() {
+        return timings;
+    }
+
+    /**
+     * 생성 시간을 기록하지 못한 싱글톤 빈 이름
+     */
+    public List<String> getUntimedBeans() {
+        if (beanFactory == null) {
+            return List.of();
+        }
+        return Stream.of(beanFactory.getSingletonNames())
+                .filter(name -> !timings.containsKey(name))
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    public List<Map.Entry<String, Duration>> getSlowestBeans(int limit) {
+        return timings.entrySet().stream()
+                .sorted(Map.Entry.<String, Duration>comparingByValue(Comparator.reverseOrder()))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    private static class Frame {
+        private final String beanName;
+        private final long startNanos;
+        private long childNanos;
+
+        Frame(String beanName, long startNanos) {
+            this.beanName = beanName;
+            this.startNanos = startNanos;
+        }
+    }
+}
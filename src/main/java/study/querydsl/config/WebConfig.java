@@ -0,0 +1,31 @@
+package study.querydsl.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import study.querydsl.controller.MemberTeamDtoHttpMessageConverter;
+import study.querydsl.monitoring.PoolSaturationGuard;
+
+import java.util.List;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    private final PoolSaturationGuard poolSaturationGuard;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        //검색 API 만 부하 차단 대상이다.
+        registry.addInterceptor(poolSaturationGuard)
+                .addPathPatterns("/v*/members", "/v*/teams");
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        //List<MemberTeamDto>, Page<MemberTeamDto> 응답은 Jackson 컨버터보다 먼저 처리한다.
+        converters.add(0, new MemberTeamDtoHttpMessageConverter());
+    }
+}
@@ -0,0 +1,65 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import study.querydsl.analytics.MemberAgeAnalytics;
+import study.querydsl.dto.ActivityRollupDto;
+import study.querydsl.dto.AgeDistributionDto;
+import study.querydsl.dto.UsernameFilterStatsDto;
+import study.querydsl.repository.MemberActivityRepository;
+import study.querydsl.repository.MemberUsernameFilter;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class AnalyticsController {
+
+    private final MemberAgeAnalytics memberAgeAnalytics;
+    private final MemberActivityRepository memberActivityRepository;
+    private final MemberUsernameFilter memberUsernameFilter;
+
+    @GetMapping("/analytics/ages")
+    public AgeDistributionDto ageDistribution(@RequestParam(required = false) Long teamId,
+                                              @RequestParam(defaultValue = "50,90,99") double[] percentiles) {
+        for (double percentile : percentiles) {
+            if (!(percentile >= 0 && percentile <= 100)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "percentile must be between 0 and 100: " + percentile);
+            }
+        }
+        return memberAgeAnalytics.distribution(teamId, percentiles);
+    }
+
+    @PostMapping("/analytics/ages/rebuild")
+    public void rebuildAgeDistribution() {
+        memberAgeAnalytics.rebuild();
+    }
+
+    /**
+     * 활동 대시보드 - 원본 이벤트 대신 일 단위 집계를 조회한다.
+     */
+    @GetMapping("/analytics/activity")
+    public List<ActivityRollupDto> activityRollups(@RequestParam(required = false) Long teamId,
+                                                   @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                   @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return memberActivityRepository.findDailyRollups(teamId, from, to);
+    }
+
+    @GetMapping("/analytics/username-filter")
+    public UsernameFilterStatsDto usernameFilterStats() {
+        return memberUsernameFilter.stats();
+    }
+
+    @PostMapping("/analytics/username-filter/rebuild")
+    public void rebuildUsernameFilter() {
+        memberUsernameFilter.rebuild();
+    }
+}
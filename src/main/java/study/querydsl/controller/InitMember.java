@@ -1,6 +1,7 @@
 package study.querydsl.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
@@ -12,6 +13,7 @@ import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
 @Profile("local")
+@ConditionalOnExpression("'${member.snapshot.mode:}' != 'import'") //스냅샷을 적재할 때는 샘플 데이터를 만들지 않는다.
 @Component
 @RequiredArgsConstructor
 public class InitMember {
@@ -0,0 +1,35 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.sql.MemberReactiveRepository;
+
+/**
+ * R2DBC 회원 검색 API
+ * Accept: application/x-ndjson 이면 한 건씩 스트리밍하고, 아니면 JSON 배열로 응답한다.
+ */
+@RestController
+@RequiredArgsConstructor
+public class MemberReactiveController {
+
+    private final MemberReactiveRepository memberReactiveRepository;
+
+    @GetMapping(value = "/reactive/v1/members",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<MemberTeamDto> searchMemberV1(MemberSearchCondition condition) {
+        return memberReactiveRepository.search(condition);
+    }
+
+    @GetMapping("/reactive/v3/members")
+    public Mono<Page<MemberTeamDto>> searchMemberV3(MemberSearchCondition condition, Pageable pageable) {
+        return memberReactiveRepository.searchPageComplex(condition, pageable);
+    }
+}
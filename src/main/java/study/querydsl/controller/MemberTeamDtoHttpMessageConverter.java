@@ -0,0 +1,166 @@
+package study.querydsl.controller;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * List&lt;MemberTeamDto&gt;, Page&lt;MemberTeamDto&gt; 전용 응답 컨버터
+ * ObjectMapper 의 리플렉션 직렬화와 PageImpl 의 pageable/sort 메타데이터 대신,
+ * JsonGenerator 로 출력 스트림에 바로 쓴다. (중간 트리나 byte[] 를 만들지 않는다.)
+ *
+ * 페이지는 다음 형태로 쓴다.
+ * {"content":[...],"page":0,"size":20,"totalElements":4,"totalPages":1}
+ *
+ * Accept 에 따라 JSON, Smile(application/x-jackson-smile), CBOR(application/cbor) 로 인코딩한다.
+ * null 필드는 MemberTeamDto 의 @JsonInclude(NON_NULL) 과 같이 생략한다.
+ */
+public class MemberTeamDtoHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final MediaType APPLICATION_SMILE = MediaType.valueOf("application/x-jackson-smile");
+    public static final MediaType APPLICATION_CBOR = MediaType.valueOf("application/cbor");
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final JsonFactory smileFactory = new SmileFactory();
+    private final JsonFactory cborFactory = new CBORFactory();
+
+    public MemberTeamDtoHttpMessageConverter() {
+        super(MediaType.APPLICATION_JSON, APPLICATION_SMILE, APPLICATION_CBOR);
+        //응답 스트림은 서블릿 컨테이너가 닫는다.
+        jsonFactory.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        smileFactory.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        cborFactory.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Page.class.isAssignableFrom(clazz) || List.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    /**
+     * 제네릭 타입 정보가 없으면 다른 타입의 List, Page 와 구분할 수 없으므로 처리하지 않는다.
+     */
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return isMemberTeamDtoContainer(type) && canWrite(mediaType);
+    }
+
+    private static boolean isMemberTeamDtoContainer(Type type) {
+        if (!(type instanceof ParameterizedType)) {
+            return false;
+        }
+        ParameterizedType parameterizedType = (ParameterizedType) type;
+        if (!(parameterizedType.getRawType() instanceof Class)) {
+            return false;
+        }
+        Class<?> rawType = (Class<?>) parameterizedType.getRawType();
+        return (Page.class.isAssignableFrom(rawType) || List.class.isAssignableFrom(rawType))
+                && parameterizedType.getActualTypeArguments()[0] == MemberTeamDto.class;
+    }
+
+    @Override
+    protected void writeInternal(Object value, Type type, HttpOutputMessage outputMessage) throws IOException {
+        write(value, outputMessage.getHeaders().getContentType(), outputMessage.getBody());
+    }
+
+    /**
+     * List 또는 Page 를 mediaType 인코딩으로 쓴다.
+     */
+    public void write(Object value, MediaType mediaType, OutputStream out) throws IOException {
+        try (JsonGenerator generator = factoryFor(mediaType).createGenerator(out)) {
+            if (value instanceof Page) {
+                writePage(generator, (Page<?>) value);
+            } else {
+                writeContent(generator, (List<?>) value);
+            }
+        }
+    }
+
+    private JsonFactory factoryFor(MediaType mediaType) {
+        if (mediaType != null && APPLICATION_SMILE.isCompatibleWith(mediaType)) {
+            return smileFactory;
+        }
+        if (mediaType != null && APPLICATION_CBOR.isCompatibleWith(mediaType)) {
+            return cborFactory;
+        }
+        return jsonFactory;
+    }
+
+    private static void writePage(JsonGenerator generator, Page<?> page) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName("content");
+        writeContent(generator, page.getContent());
+        generator.writeNumberField("page", page.getNumber());
+        generator.writeNumberField("size", page.getSize());
+        generator.writeNumberField("totalElements", page.getTotalElements());
+        generator.writeNumberField("totalPages", page.getTotalPages());
+        generator.writeEndObject();
+    }
+
+    private static void writeContent(JsonGenerator generator, List<?> content) throws IOException {
+        generator.writeStartArray();
+        for (Object dto : content) {
+            writeDto(generator, (MemberTeamDto) dto);
+        }
+        generator.writeEndArray();
+    }
+
+    private static void writeDto(JsonGenerator generator, MemberTeamDto dto) throws IOException {
+        generator.writeStartObject();
+        if (dto.getMemberId() != null) {
+            generator.writeNumberField("memberId", dto.getMemberId());
+        }
+        if (dto.getUsername() != null) {
+            generator.writeStringField("username", dto.getUsername());
+        }
+        if (dto.getAge() != null) {
+            generator.writeNumberField("age", dto.getAge());
+        }
+        if (dto.getTeamId() != null) {
+            generator.writeNumberField("teamId", dto.getTeamId());
+        }
+        if (dto.getTeamName() != null) {
+            generator.writeStringField("teamName", dto.getTeamName());
+        }
+        generator.writeEndObject();
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("MemberTeamDto responses are write-only", inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("MemberTeamDto responses are write-only", inputMessage);
+    }
+}
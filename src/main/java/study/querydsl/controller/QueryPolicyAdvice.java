@@ -0,0 +1,55 @@
+package study.querydsl.controller;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+import study.querydsl.repository.support.QueryResultLimitExceededException;
+import study.querydsl.repository.support.TruncatedList;
+
+import java.util.Map;
+
+/**
+ * QueryPolicy 결과를 HTTP 응답으로 변환한다.
+ * - 잘린 목록(TruncatedList): X-Result-Truncated 헤더에 최대 행 수를 표시한다.
+ * - 행 수 초과(onExceed = ERROR): 400
+ * - 시간 예산 초과, statement timeout, 취소: 503
+ */
+@RestControllerAdvice
+public class QueryPolicyAdvice implements ResponseBodyAdvice<Object> {
+
+    public static final String TRUNCATED_HEADER = "X-Result-Truncated";
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (body instanceof TruncatedList) {
+            response.getHeaders().set(TRUNCATED_HEADER, String.valueOf(((TruncatedList<?>) body).getLimit()));
+        }
+        return body;
+    }
+
+    @ExceptionHandler(QueryResultLimitExceededException.class)
+    public ResponseEntity<Map<String, String>> resultLimitExceeded(QueryResultLimitExceededException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler({QueryTimeoutException.class, javax.persistence.QueryTimeoutException.class})
+    public ResponseEntity<Map<String, String>> queryTimeout(RuntimeException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(Map.of("error", "Search took too long; narrow the search condition"));
+    }
+}
@@ -0,0 +1,40 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.dto.TeamMembersDto;
+import study.querydsl.dto.TeamSubtreeCountDto;
+import study.querydsl.repository.TeamHierarchyRepository;
+import study.querydsl.repository.TeamQueryRepository;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class TeamController {
+
+    private static final int MAX_MEMBER_LIMIT = 100;
+
+    private final TeamQueryRepository teamQueryRepository;
+    private final TeamHierarchyRepository teamHierarchyRepository;
+
+    @GetMapping("/v1/teams")
+    public Page<TeamMembersDto> searchTeamV1(Pageable pageable,
+                                             @RequestParam(defaultValue = "10") int memberLimit) {
+        int limit = Math.max(0, Math.min(memberLimit, MAX_MEMBER_LIMIT));
+        return teamQueryRepository.findTeamsWithMembers(pageable, limit);
+    }
+
+    /**
+     * 팀 하위 트리의 팀별 회원 수 (하위 팀 포함)
+     */
+    @GetMapping("/v1/teams/{teamId}/subtree")
+    public List<TeamSubtreeCountDto> teamSubtree(@PathVariable Long teamId) {
+        return teamHierarchyRepository.countSubtreeMembers(teamId);
+    }
+}
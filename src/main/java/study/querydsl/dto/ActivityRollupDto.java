@@ -0,0 +1,25 @@
+package study.querydsl.dto;
+
+import com.querydsl.core.annotations.QueryProjection;
+import lombok.Data;
+import study.querydsl.entity.MemberActivityType;
+
+import java.time.LocalDate;
+
+@Data
+public class ActivityRollupDto {
+    private LocalDate day;
+    private Long teamId;
+    private MemberActivityType type;
+    private long eventCount;
+    private long memberCount;
+
+    @QueryProjection
+    public ActivityRollupDto(LocalDate day, Long teamId, MemberActivityType type, long eventCount, long memberCount) {
+        this.day = day;
+        this.teamId = teamId;
+        this.type = type;
+        this.eventCount = eventCount;
+        this.memberCount = memberCount;
+    }
+}
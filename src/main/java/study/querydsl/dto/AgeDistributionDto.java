@@ -0,0 +1,24 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+public class AgeDistributionDto {
+    private Long teamId;
+    private long count;
+    private Double mean;
+    private long distinctUsernames;
+
+    //백분위수 -> 나이
+    private Map<Double, Integer> percentiles;
+
+    public AgeDistributionDto(Long teamId, long count, Double mean, long distinctUsernames, Map<Double, Integer> percentiles) {
+        this.teamId = teamId;
+        this.count = count;
+        this.mean = mean;
+        this.distinctUsernames = distinctUsernames;
+        this.percentiles = percentiles;
+    }
+}
@@ -0,0 +1,18 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+@Data
+public class MemberAgeStatDto {
+    private Long memberId;
+    private String username;
+    private int age;
+    private double averageAge;
+
+    public MemberAgeStatDto(Long memberId, String username, int age, double averageAge) {
+        this.memberId = memberId;
+        this.username = username;
+        this.age = age;
+        this.averageAge = averageAge;
+    }
+}
@@ -4,10 +4,24 @@ import lombok.Data;
 
 @Data
 public class MemberSearchCondition {
-    //회원명, 팀명, 나이(ageGoe, ageLoe)
+    //회원명, 팀명, 팀 ID, 하위 팀 포함 팀 ID, 나이(ageGoe, ageLoe), 위치(반경, 사각 영역)
 
     private String username;
     private String teamName;
+    private Long teamId;
+    //이 팀과 모든 하위 팀의 회원
+    private Long teamSubtree;
     private Integer ageGoe;
     private Integer ageLoe;
+
+    //(latitude, longitude) 에서 radiusMeters 안의 회원. 셋을 같이 지정한다.
+    private Double latitude;
+    private Double longitude;
+    private Double radiusMeters;
+
+    //사각 영역 안의 회원 (경계 포함). 넷을 같이 지정한다.
+    private Double minLatitude;
+    private Double maxLatitude;
+    private Double minLongitude;
+    private Double maxLongitude;
 }
@@ -1,13 +1,20 @@
 package study.querydsl.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.querydsl.core.annotations.QueryProjection;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
+/**
+ * fields 파라미터로 일부 필드만 조회하면 나머지는 null 이므로 응답에서 제외한다.
+ */
 @Data
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class MemberTeamDto {
     private Long memberId;
     private String username;
-    private int age;
+    private Integer age;
 
     private Long teamId;
     private String teamName;
@@ -0,0 +1,24 @@
+package study.querydsl.dto;
+
+import com.querydsl.core.annotations.QueryProjection;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class TeamMembersDto {
+    private Long teamId;
+    private String teamName;
+    private long memberCount;
+
+    //memberLimit 만큼만 담긴다. 전체 회원 수는 memberCount 를 사용한다.
+    private List<MemberDto> members = new ArrayList<>();
+
+    @QueryProjection
+    public TeamMembersDto(Long teamId, String teamName, long memberCount) {
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.memberCount = memberCount;
+    }
+}
@@ -0,0 +1,22 @@
+package study.querydsl.dto;
+
+import com.querydsl.core.annotations.QueryProjection;
+import lombok.Data;
+
+@Data
+public class TeamSubtreeCountDto {
+    private Long teamId;
+    private String teamName;
+    //조회 기준 팀으로부터의 깊이 (기준 팀은 0)
+    private int depth;
+    //이 팀과 모든 하위 팀의 회원 수
+    private long memberCount;
+
+    @QueryProjection
+    public TeamSubtreeCountDto(Long teamId, String teamName, int depth, long memberCount) {
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.depth = depth;
+        this.memberCount = memberCount;
+    }
+}
@@ -0,0 +1,26 @@
+package study.querydsl.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class UsernameFilterStatsDto {
+    boolean enabled;
+    //false 면 모든 조회가 DB 로 간다. (빌드 전, 벌크 변경 후 재빌드 전)
+    boolean active;
+    long expectedInsertions;
+    double configuredFpp;
+    //현재 비트 채움 비율로 계산한 false positive 확률
+    double expectedFpp;
+    //실제 조회 결과로 측정한 false positive 비율 = falsePositives / (negatives + falsePositives)
+    double observedFpp;
+    long bitSize;
+    int hashCount;
+    long memoryBytes;
+    long insertions;
+    long lookups;
+    long bypassed;
+    long negatives;
+    long falsePositives;
+}
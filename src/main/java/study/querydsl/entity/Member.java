@@ -1,6 +1,7 @@
 package study.querydsl.entity;
 
 import lombok.*;
+import study.querydsl.geo.GeoHash;
 
 import javax.persistence.*;
 
@@ -8,18 +9,37 @@ import javax.persistence.*;
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "username", "age"})
+@Table(indexes = @Index(name = "idx_member_geohash", columnList = "geohash"))
+@SequenceGenerator(
+        name = "member_seq_generator",
+        sequenceName = "member_seq",
+        allocationSize = 50) //pooled 방식으로 id 를 50개씩 미리 할당받아 insert 마다 시퀀스를 조회하지 않는다.
 public class Member {
-    @Id @GeneratedValue
+    @Id @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
     @Column(name = "member_id")
     private Long id;
 
     private String username;
     private int age;
 
+    //낙관적 락 버전. 벌크 수정(MemberBulkRepository)도 같이 증가시킨다.
+    @Version
+    @Setter(AccessLevel.NONE)
+    private Long version;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "team_id")
     private Team team;
 
+    //위치. geohash 는 위치 검색 인덱스용으로 changeLocation() 에서만 바꾼다.
+    @Setter(AccessLevel.NONE)
+    private Double latitude;
+    @Setter(AccessLevel.NONE)
+    private Double longitude;
+    @Setter(AccessLevel.NONE)
+    @Column(length = GeoHash.MAX_PRECISION)
+    private String geohash;
+
     public Member(String username) {
         this(username, 0);
     }
@@ -36,6 +56,25 @@ public class Member {
         }
     }
 
+    //위치를 지우려면 둘 다 null
+    public void changeLocation(Double latitude, Double longitude) {
+        if (latitude == null || longitude == null) {
+            if (latitude != null || longitude != null) {
+                throw new IllegalArgumentException("latitude and longitude must be both set or both null");
+            }
+            this.latitude = null;
+            this.longitude = null;
+            this.geohash = null;
+            return;
+        }
+        if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+            throw new IllegalArgumentException("Invalid location: " + latitude + ", " + longitude);
+        }
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.geohash = GeoHash.encode(latitude, longitude, GeoHash.MAX_PRECISION);
+    }
+
     //연관관계 편의 메서드
     public void changeTeam(Team team) {
         this.team = team;
@@ -0,0 +1,63 @@
+package study.querydsl.entity;
+
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 회원 활동 이벤트 (append-only)
+ * bucket 은 발생일(yyyyMMdd)로 만든 파티션 키다. 모든 인덱스가 bucket 으로 시작하고,
+ * 기간 조회는 항상 bucket 범위 조건을 함께 걸어서 해당 기간의 파티션(인덱스 범위)만 읽는다.
+ * 수정하지 않으므로 @Immutable 로 dirty checking 대상에서 제외한다.
+ */
+@Entity
+@Immutable
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString(of = {"id", "memberId", "teamId", "type", "occurredAt"})
+@Table(name = "member_activity", indexes = {
+        @Index(name = "idx_member_activity_bucket_team", columnList = "bucket, team_id"),
+        @Index(name = "idx_member_activity_bucket_member", columnList = "bucket, member_id")
+})
+@SequenceGenerator(
+        name = "member_activity_seq_generator",
+        sequenceName = "member_activity_seq",
+        allocationSize = 50)
+public class MemberActivity {
+
+    @Id @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_activity_seq_generator")
+    @Column(name = "member_activity_id")
+    private Long id;
+
+    //대량 적재를 위해 연관관계 대신 id 만 가진다.
+    @Column(name = "member_id", nullable = false)
+    private Long memberId;
+
+    @Column(name = "team_id")
+    private Long teamId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private MemberActivityType type;
+
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+
+    @Column(nullable = false)
+    private int bucket;
+
+    public MemberActivity(Long memberId, Long teamId, MemberActivityType type, LocalDateTime occurredAt) {
+        this.memberId = memberId;
+        this.teamId = teamId;
+        this.type = type;
+        this.occurredAt = occurredAt;
+        this.bucket = bucketOf(occurredAt.toLocalDate());
+    }
+
+    public static int bucketOf(LocalDate day) {
+        return day.getYear() * 10_000 + day.getMonthValue() * 100 + day.getDayOfMonth();
+    }
+}
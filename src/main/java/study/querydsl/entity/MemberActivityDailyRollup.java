@@ -0,0 +1,56 @@
+package study.querydsl.entity;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 팀/일/활동 종류별 MemberActivity 집계
+ * MemberActivityRollupJob 이 bucket(일) 단위로 다시 계산해서 통째로 교체한다.
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString(of = {"id", "day", "teamId", "type", "eventCount", "memberCount"})
+@Table(name = "member_activity_daily_rollup", indexes = {
+        @Index(name = "idx_member_activity_rollup_bucket_team", columnList = "bucket, team_id")
+})
+public class MemberActivityDailyRollup {
+
+    @Id @GeneratedValue
+    @Column(name = "member_activity_daily_rollup_id")
+    private Long id;
+
+    @Column(nullable = false)
+    private int bucket;
+
+    @Column(nullable = false)
+    private LocalDate day;
+
+    @Column(name = "team_id")
+    private Long teamId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private MemberActivityType type;
+
+    private long eventCount;
+
+    //해당 일의 서로 다른 회원 수
+    private long memberCount;
+
+    private LocalDateTime rolledUpAt;
+
+    public MemberActivityDailyRollup(LocalDate day, Long teamId, MemberActivityType type,
+                                     long eventCount, long memberCount, LocalDateTime rolledUpAt) {
+        this.bucket = MemberActivity.bucketOf(day);
+        this.day = day;
+        this.teamId = teamId;
+        this.type = type;
+        this.eventCount = eventCount;
+        this.memberCount = memberCount;
+        this.rolledUpAt = rolledUpAt;
+    }
+}
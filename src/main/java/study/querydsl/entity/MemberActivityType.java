@@ -0,0 +1,8 @@
+package study.querydsl.entity;
+
+public enum MemberActivityType {
+    LOGIN,
+    LOGOUT,
+    AGE_CHANGE,
+    TEAM_CHANGE
+}
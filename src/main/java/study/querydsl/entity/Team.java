@@ -18,10 +18,35 @@ public class Team {
 
     private String name;
 
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "parent_id")
+    @Setter(AccessLevel.NONE)
+    private Team parent;
+
     @OneToMany(mappedBy = "team")
     private List<Member> members = new ArrayList<>();
 
+    //자기 자신(depth 0)을 포함한 모든 조상 경로. 팀과 같이 저장된다.
+    @OneToMany(mappedBy = "descendant", cascade = CascadeType.PERSIST)
+    @Setter(AccessLevel.NONE)
+    private List<TeamClosure> ancestors = new ArrayList<>();
+
     public Team(String name) {
+        this(name, null);
+    }
+
+    /**
+     * 상위 팀의 조상 경로에 자신을 이어서 closure 행을 만든다.
+     * 이미 저장된 팀을 옮길 때는 TeamHierarchyRepository.move() 를 사용한다.
+     */
+    public Team(String name, Team parent) {
         this.name = name;
+        this.parent = parent;
+        ancestors.add(new TeamClosure(this, this, 0));
+        if (parent != null) {
+            for (TeamClosure path : parent.getAncestors()) {
+                ancestors.add(new TeamClosure(path.getAncestor(), this, path.getDepth() + 1));
+            }
+        }
     }
 }
@@ -0,0 +1,53 @@
+package study.querydsl.entity;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.io.Serializable;
+
+/**
+ * 팀 트리의 closure table
+ * 조상-자손 쌍마다 한 행을 가진다. (자기 자신은 depth 0)
+ * 하위 트리 조회는 재귀 없이 ancestor_id 로 시작하는 PK 인덱스를 한 번 조인하면 된다.
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString(of = {"id", "depth"})
+@Table(name = "team_closure", indexes = {
+        @Index(name = "idx_team_closure_descendant", columnList = "descendant_id, depth")
+})
+public class TeamClosure {
+
+    @EmbeddedId
+    private Key id = new Key();
+
+    @MapsId("ancestorId")
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "ancestor_id")
+    private Team ancestor;
+
+    @MapsId("descendantId")
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "descendant_id")
+    private Team descendant;
+
+    @Column(nullable = false)
+    private int depth;
+
+    public TeamClosure(Team ancestor, Team descendant, int depth) {
+        this.ancestor = ancestor;
+        this.descendant = descendant;
+        this.depth = depth;
+    }
+
+    @Embeddable
+    @Getter
+    @EqualsAndHashCode
+    @NoArgsConstructor(access = AccessLevel.PROTECTED)
+    @ToString
+    public static class Key implements Serializable {
+        private Long ancestorId;
+        private Long descendantId;
+    }
+}
@@ -0,0 +1,64 @@
+package study.querydsl.entity.event;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Hibernate 이벤트를 거치지 않고 member.username 을 바꿀 수 있는 SQL(벌크 update, insert ... select)을 감지한다.
+ * 엔티티 flush 로 나가는 SQL(where member_id = ? and version = ? 인 update, values 로 끝나는 insert)은 제외한다.
+ * Member 는 @Version 을 가지므로 엔티티 update 에는 항상 version 조건이 붙는다.
+ * 감지하면 현재 스레드에서 등록된 리스너를 호출한다. (SQL 실행 직전, 트랜잭션 안)
+ */
+@Component
+public class MemberBulkWriteInspector implements StatementInspector, HibernatePropertiesCustomizer {
+
+    private static final Pattern MEMBER_WRITE = Pattern.compile(
+            "^\\s*(?:/\\*.*?\\*/\\s*)?(update|insert\\s+into|merge\\s+into)\\s+member\\b(.*)$",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern ENTITY_UPDATE = Pattern.compile(
+            "\\bwhere\\s+member_id\\s*=\\s*\\?\\s+and\\s+version\\s*=\\s*\\?\\s*$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern SETS_USERNAME = Pattern.compile(
+            "\\bset\\b.*\\busername\\s*=", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern ENTITY_INSERT = Pattern.compile(
+            "\\bvalues\\s*\\([^)]*\\)\\s*$", Pattern.CASE_INSENSITIVE);
+
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+    }
+
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public String inspect(String sql) {
+        if (isBulkUsernameWrite(sql)) {
+            listeners.forEach(Runnable::run);
+        }
+        return sql;
+    }
+
+    static boolean isBulkUsernameWrite(String sql) {
+        Matcher matcher = MEMBER_WRITE.matcher(sql);
+        if (!matcher.find()) {
+            return false;
+        }
+        String operation = matcher.group(1).toLowerCase();
+        String rest = matcher.group(2);
+        if (operation.startsWith("update")) {
+            return !ENTITY_UPDATE.matcher(rest).find() && SETS_USERNAME.matcher(rest).find();
+        }
+        return !ENTITY_INSERT.matcher(rest).find();
+    }
+}
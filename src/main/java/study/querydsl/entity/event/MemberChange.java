@@ -0,0 +1,46 @@
+package study.querydsl.entity.event;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 커밋된 Member 변경 내용
+ * UPDATE 는 변경 전 값(previous*)을 함께 가진다. 변경 전 상태를 알 수 없으면 previous* 는 현재 값과 같다.
+ */
+@Getter
+@ToString
+public class MemberChange {
+
+    public enum Type {
+        INSERT, UPDATE, DELETE
+    }
+
+    private final Type type;
+    private final Long memberId;
+    private final String username;
+    private final int age;
+    private final Long teamId;
+    private final String previousUsername;
+    private final int previousAge;
+    private final Long previousTeamId;
+
+    public MemberChange(Type type, Long memberId, String username, int age, Long teamId,
+                        String previousUsername, int previousAge, Long previousTeamId) {
+        this.type = type;
+        this.memberId = memberId;
+        this.username = username;
+        this.age = age;
+        this.teamId = teamId;
+        this.previousUsername = previousUsername;
+        this.previousAge = previousAge;
+        this.previousTeamId = previousTeamId;
+    }
+
+    public static MemberChange inserted(Long memberId, String username, int age, Long teamId) {
+        return new MemberChange(Type.INSERT, memberId, username, age, teamId, username, age, teamId);
+    }
+
+    public static MemberChange deleted(Long memberId, String username, int age, Long teamId) {
+        return new MemberChange(Type.DELETE, memberId, username, age, teamId, username, age, teamId);
+    }
+}
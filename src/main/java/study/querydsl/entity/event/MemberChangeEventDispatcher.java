@@ -0,0 +1,120 @@
+package study.querydsl.entity.event;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.tuple.entity.EntityMetamodel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Hibernate 의 커밋 이후(post-commit) 이벤트를 받아 MemberChangeListener 빈들에게 전달한다.
+ */
+@Slf4j
+@Component
+public class MemberChangeEventDispatcher implements PostCommitInsertEventListener,
+        PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    private final EntityManagerFactory emf;
+    private final ObjectProvider<MemberChangeListener> listeners;
+
+    public MemberChangeEventDispatcher(EntityManagerFactory emf, ObjectProvider<MemberChangeListener> listeners) {
+        this.emf = emf;
+        this.listeners = listeners;
+    }
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            Member member = (Member) event.getEntity();
+            publish(MemberChange.inserted(member.getId(), member.getUsername(), member.getAge(), teamId(member.getTeam())));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Member) {
+            Member member = (Member) event.getEntity();
+            Object[] oldState = event.getOldState();
+            EntityMetamodel metamodel = event.getPersister().getEntityMetamodel();
+
+            String previousUsername = member.getUsername();
+            int previousAge = member.getAge();
+            Long previousTeamId = teamId(member.getTeam());
+            if (oldState != null) {
+                previousUsername = (String) oldState[metamodel.getPropertyIndex("username")];
+                previousAge = (Integer) oldState[metamodel.getPropertyIndex("age")];
+                previousTeamId = teamId((Team) oldState[metamodel.getPropertyIndex("team")]);
+            }
+            publish(new MemberChange(MemberChange.Type.UPDATE, member.getId(), member.getUsername(), member.getAge(),
+                    teamId(member.getTeam()), previousUsername, previousAge, previousTeamId));
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            Member member = (Member) event.getEntity();
+            publish(MemberChange.deleted(member.getId(), member.getUsername(), member.getAge(), teamId(member.getTeam())));
+        }
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return Member.class.isAssignableFrom(persister.getMappedClass());
+    }
+
+    /**
+     * 벌크 연산처럼 Hibernate 이벤트를 거치지 않는 변경을 리스너에게 전달한다. 커밋 이후에 호출해야 한다.
+     */
+    public void publish(MemberChange change) {
+        //리스너의 예외가 이미 커밋된 트랜잭션의 호출자에게 전파되지 않도록 한다.
+        listeners.orderedStream().forEach(listener -> {
+            try {
+                listener.onMemberChange(change);
+            } catch (RuntimeException e) {
+                log.warn("MemberChangeListener {} failed for {}", listener.getClass().getSimpleName(), change, e);
+            }
+        });
+    }
+
+    //Team 프록시의 getId() 는 프록시를 초기화하지 않는다.
+    private static Long teamId(Team team) {
+        return team != null ? team.getId() : null;
+    }
+}
@@ -0,0 +1,10 @@
+package study.querydsl.entity.event;
+
+/**
+ * 커밋된 Member 변경을 받는 빈
+ * 커밋 이후에 호출되므로 롤백된 변경은 전달되지 않는다.
+ * JPQL 벌크 연산(update/delete 쿼리)은 영속성 컨텍스트를 거치지 않아 전달되지 않는다.
+ */
+public interface MemberChangeListener {
+    void onMemberChange(MemberChange change);
+}
@@ -0,0 +1,78 @@
+package study.querydsl.geo;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 위도/경도 사각 영역 (경계 포함)
+ * 날짜 변경선(경도 ±180)을 넘는 영역은 경도 전체로 넓힌다. (정확한 거리 조건이 다시 거른다.)
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public class GeoBox {
+
+    //지구 평균 반지름(m)
+    public static final double EARTH_RADIUS_METERS = 6_371_008.8;
+
+    private final double minLatitude;
+    private final double maxLatitude;
+    private final double minLongitude;
+    private final double maxLongitude;
+
+    public GeoBox(double minLatitude, double maxLatitude, double minLongitude, double maxLongitude) {
+        if (minLatitude > maxLatitude || minLongitude > maxLongitude) {
+            throw new IllegalArgumentException("Invalid bounding box: latitude " + minLatitude + " ~ " + maxLatitude
+                    + ", longitude " + minLongitude + " ~ " + maxLongitude);
+        }
+        this.minLatitude = Math.max(minLatitude, -90);
+        this.maxLatitude = Math.min(maxLatitude, 90);
+        this.minLongitude = Math.max(minLongitude, -180);
+        this.maxLongitude = Math.min(maxLongitude, 180);
+    }
+
+    /**
+     * 중심에서 radiusMeters 안의 점을 모두 포함하는 영역
+     */
+    public static GeoBox around(double latitude, double longitude, double radiusMeters) {
+        double deltaLat = Math.toDegrees(radiusMeters / EARTH_RADIUS_METERS);
+        double minLat = latitude - deltaLat;
+        double maxLat = latitude + deltaLat;
+        //극점을 포함하면 모든 경도가 가까울 수 있다.
+        if (minLat <= -90 || maxLat >= 90) {
+            return new GeoBox(minLat, maxLat, -180, 180);
+        }
+        double deltaLon = Math.toDegrees(Math.asin(Math.min(1, Math.sin(radiusMeters / EARTH_RADIUS_METERS)
+                / Math.cos(Math.toRadians(latitude)))));
+        double minLon = longitude - deltaLon;
+        double maxLon = longitude + deltaLon;
+        if (minLon < -180 || maxLon > 180) {
+            return new GeoBox(minLat, maxLat, -180, 180);
+        }
+        return new GeoBox(minLat, maxLat, minLon, maxLon);
+    }
+
+    //겹치는 영역. 겹치지 않으면 null
+    public GeoBox intersect(GeoBox other) {
+        if (other.minLatitude > maxLatitude || other.maxLatitude < minLatitude
+                || other.minLongitude > maxLongitude || other.maxLongitude < minLongitude) {
+            return null;
+        }
+        return new GeoBox(Math.max(minLatitude, other.minLatitude), Math.min(maxLatitude, other.maxLatitude),
+                Math.max(minLongitude, other.minLongitude), Math.min(maxLongitude, other.maxLongitude));
+    }
+
+    public boolean contains(double latitude, double longitude) {
+        return latitude >= minLatitude && latitude <= maxLatitude
+                && longitude >= minLongitude && longitude <= maxLongitude;
+    }
+
+    public double getWidth() {
+        return maxLongitude - minLongitude;
+    }
+
+    public double getHeight() {
+        return maxLatitude - minLatitude;
+    }
+}
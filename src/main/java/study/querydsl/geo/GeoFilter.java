@@ -0,0 +1,150 @@
+package study.querydsl.geo;
+
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.util.List;
+
+/**
+ * MemberSearchCondition 의 위치 조건 (반경, 사각 영역)을 쿼리에 넣을 값으로 풀어 둔다.
+ * 1. geohash 셀 범위 - 인덱스(idx_member_geohash)로 후보를 좁힌다. (셀 prefix 범위, 최대 4개)
+ * 2. 위도/경도 between - 셀이 영역보다 넓으므로 영역 밖 후보를 거른다.
+ * 3. 반경 조건이면 haversine 거리로 정확히 거른다.
+ * 반경과 사각 영역을 같이 주면 둘 다 만족해야 한다.
+ */
+public class GeoFilter {
+
+    /**
+     * haversine 거리 조건. hav(d/R) = sin²(Δφ/2) + cos φ1 cos φ2 sin²(Δλ/2) <= sin²(r/2R)
+     * {0} 위도, {1} 경도 (도), {2} 중심 위도, {3} 중심 경도 (라디안), {4} cos(중심 위도), {5} sin²(r/2R)
+     * JPQL(Hibernate)과 SQL 모두 sin/cos 만 사용한다.
+     */
+    public static final String WITHIN_RADIUS_TEMPLATE =
+            "sin(({0} * 0.017453292519943295 - {2}) / 2) * sin(({0} * 0.017453292519943295 - {2}) / 2)"
+                    + " + {4} * cos({0} * 0.017453292519943295)"
+                    + " * sin(({1} * 0.017453292519943295 - {3}) / 2) * sin(({1} * 0.017453292519943295 - {3}) / 2)"
+                    + " <= {5}";
+
+    private final GeoBox box;
+    private final List<String[]> cellRanges;
+    private final boolean radius;
+    private final double centerLatitude;
+    private final double centerLongitude;
+    private final double cosCenterLatitude;
+    private final double maxHaversine;
+
+    private GeoFilter(GeoBox box, List<String[]> cellRanges, Double latitude, Double longitude, Double radiusMeters) {
+        this.box = box;
+        this.cellRanges = cellRanges;
+        this.radius = radiusMeters != null;
+        if (radius) {
+            this.centerLatitude = Math.toRadians(latitude);
+            this.centerLongitude = Math.toRadians(longitude);
+            this.cosCenterLatitude = Math.cos(centerLatitude);
+            double half = Math.min(radiusMeters / GeoBox.EARTH_RADIUS_METERS, Math.PI) / 2;
+            this.maxHaversine = Math.sin(half) * Math.sin(half);
+        } else {
+            this.centerLatitude = 0;
+            this.centerLongitude = 0;
+            this.cosCenterLatitude = 0;
+            this.maxHaversine = 0;
+        }
+    }
+
+    /**
+     * 위치 조건이 없으면 null
+     */
+    public static GeoFilter of(MemberSearchCondition condition) {
+        GeoBox radiusBox = null;
+        if (condition.getRadiusMeters() != null || condition.getLatitude() != null || condition.getLongitude() != null) {
+            if (condition.getRadiusMeters() == null || condition.getLatitude() == null || condition.getLongitude() == null) {
+                throw new IllegalArgumentException("latitude, longitude and radiusMeters are required together");
+            }
+            if (condition.getRadiusMeters() < 0) {
+                throw new IllegalArgumentException("radiusMeters must not be negative: " + condition.getRadiusMeters());
+            }
+            radiusBox = GeoBox.around(condition.getLatitude(), condition.getLongitude(), condition.getRadiusMeters());
+        }
+
+        GeoBox boundingBox = null;
+        if (condition.getMinLatitude() != null || condition.getMaxLatitude() != null
+                || condition.getMinLongitude() != null || condition.getMaxLongitude() != null) {
+            if (condition.getMinLatitude() == null || condition.getMaxLatitude() == null
+                    || condition.getMinLongitude() == null || condition.getMaxLongitude() == null) {
+                throw new IllegalArgumentException("minLatitude, maxLatitude, minLongitude and maxLongitude are required together");
+            }
+            boundingBox = new GeoBox(condition.getMinLatitude(), condition.getMaxLatitude(),
+                    condition.getMinLongitude(), condition.getMaxLongitude());
+        }
+
+        if (radiusBox == null && boundingBox == null) {
+            return null;
+        }
+        GeoBox box;
+        if (radiusBox == null) {
+            box = boundingBox;
+        } else if (boundingBox == null) {
+            box = radiusBox;
+        } else {
+            //겹치지 않으면 어차피 결과가 없으므로 사각 영역으로 찾고 거리 조건에서 모두 걸러진다.
+            GeoBox intersection = boundingBox.intersect(radiusBox);
+            box = intersection != null ? intersection : boundingBox;
+        }
+        return new GeoFilter(box, GeoHash.coverRanges(box),
+                condition.getLatitude(), condition.getLongitude(), condition.getRadiusMeters());
+    }
+
+    public GeoBox getBox() {
+        return box;
+    }
+
+    //[from, to) geohash 범위 (1 ~ 4개)
+    public List<String[]> getCellRanges() {
+        return cellRanges;
+    }
+
+    public boolean hasRadius() {
+        return radius;
+    }
+
+    public double getCenterLatitudeRadians() {
+        return centerLatitude;
+    }
+
+    public double getCenterLongitudeRadians() {
+        return centerLongitude;
+    }
+
+    public double getCosCenterLatitude() {
+        return cosCenterLatitude;
+    }
+
+    public double getMaxHaversine() {
+        return maxHaversine;
+    }
+
+    /**
+     * 쿼리 조건과 같은 판정 (위치가 없으면 false)
+     */
+    public boolean matches(Double latitude, Double longitude) {
+        if (latitude == null || longitude == null || !box.contains(latitude, longitude)) {
+            return false;
+        }
+        if (!radius) {
+            return true;
+        }
+        double sinLat = Math.sin((Math.toRadians(latitude) - centerLatitude) / 2);
+        double sinLon = Math.sin((Math.toRadians(longitude) - centerLongitude) / 2);
+        return sinLat * sinLat + cosCenterLatitude * Math.cos(Math.toRadians(latitude)) * sinLon * sinLon <= maxHaversine;
+    }
+
+    /**
+     * 두 점 사이의 거리(m)
+     */
+    public static double distanceMeters(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double sinLat = Math.sin(Math.toRadians(latitude2 - latitude1) / 2);
+        double sinLon = Math.sin(Math.toRadians(longitude2 - longitude1) / 2);
+        double h = sinLat * sinLat
+                + Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2)) * sinLon * sinLon;
+        return 2 * GeoBox.EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(h)));
+    }
+}
@@ -0,0 +1,135 @@
+package study.querydsl.geo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * geohash - 위도/경도를 번갈아 이분한 비트를 base32 문자열로 만든다.
+ * 같은 prefix 를 가진 geohash 는 같은 셀 안에 있으므로, 셀 검색은 문자열 범위(prefix 이상, prefix + '{' 미만) 조건이 된다.
+ */
+public final class GeoHash {
+
+    public static final int MAX_PRECISION = 12;
+
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    //모든 geohash 문자보다 큰 문자. prefix 범위의 끝으로 쓴다.
+    private static final char AFTER_LAST = '{';
+
+    private GeoHash() {
+    }
+
+    public static String encode(double latitude, double longitude, int precision) {
+        if (precision < 1 || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("precision must be between 1 and " + MAX_PRECISION + ": " + precision);
+        }
+        double minLat = -90, maxLat = 90;
+        double minLon = -180, maxLon = 180;
+        char[] hash = new char[precision];
+        boolean lonBit = true;
+        for (int i = 0; i < precision; i++) {
+            int index = 0;
+            for (int bit = 0; bit < 5; bit++) {
+                index <<= 1;
+                if (lonBit) {
+                    double mid = (minLon + maxLon) / 2;
+                    if (longitude >= mid) {
+                        index |= 1;
+                        minLon = mid;
+                    } else {
+                        maxLon = mid;
+                    }
+                } else {
+                    double mid = (minLat + maxLat) / 2;
+                    if (latitude >= mid) {
+                        index |= 1;
+                        minLat = mid;
+                    } else {
+                        maxLat = mid;
+                    }
+                }
+                lonBit = !lonBit;
+            }
+            hash[i] = BASE32[index];
+        }
+        return new String(hash);
+    }
+
+    /**
+     * box 를 덮는 셀의 geohash 범위 [from, to) 목록 (최대 4개, 정렬됨)
+     * box 보다 크거나 같은 셀 중 가장 작은 크기를 고르므로 box 는 많아야 2x2 셀에 걸친다.
+     * 이웃한 셀이 geohash 순서로도 연속이면 하나의 범위로 합친다.
+     * box 가 가장 큰 셀(45도)보다 크면 모든 geohash 를 덮는 범위 하나를 반환한다.
+     */
+    public static List<String[]> coverRanges(GeoBox box) {
+        int precision = coverPrecision(box);
+        List<String[]> ranges = new ArrayList<>();
+        if (precision == 0) {
+            ranges.add(new String[]{"", String.valueOf(AFTER_LAST)});
+            return ranges;
+        }
+
+        TreeSet<String> cells = new TreeSet<>();
+        cells.add(encode(box.getMinLatitude(), box.getMinLongitude(), precision));
+        cells.add(encode(box.getMinLatitude(), box.getMaxLongitude(), precision));
+        cells.add(encode(box.getMaxLatitude(), box.getMinLongitude(), precision));
+        cells.add(encode(box.getMaxLatitude(), box.getMaxLongitude(), precision));
+
+        String from = null;
+        String last = null;
+        for (String cell : cells) {
+            if (from == null) {
+                from = cell;
+            } else if (!cell.equals(next(last))) {
+                ranges.add(new String[]{from, last + AFTER_LAST});
+                from = cell;
+            }
+            last = cell;
+        }
+        ranges.add(new String[]{from, last + AFTER_LAST});
+        return ranges;
+    }
+
+    static int coverPrecision(GeoBox box) {
+        for (int precision = MAX_PRECISION; precision >= 1; precision--) {
+            if (cellWidth(precision) >= box.getWidth() && cellHeight(precision) >= box.getHeight()) {
+                return precision;
+            }
+        }
+        return 0;
+    }
+
+    static double cellWidth(int precision) {
+        int lonBits = (5 * precision + 1) / 2;
+        return 360.0 / (1L << lonBits);
+    }
+
+    static double cellHeight(int precision) {
+        int latBits = 5 * precision / 2;
+        return 180.0 / (1L << latBits);
+    }
+
+    //같은 길이에서 다음 geohash. 마지막이면 null
+    static String next(String cell) {
+        char[] chars = cell.toCharArray();
+        for (int i = chars.length - 1; i >= 0; i--) {
+            int index = indexOf(chars[i]);
+            if (index < BASE32.length - 1) {
+                chars[i] = BASE32[index + 1];
+                return new String(chars);
+            }
+            chars[i] = BASE32[0];
+        }
+        return null;
+    }
+
+    private static int indexOf(char c) {
+        for (int i = 0; i < BASE32.length; i++) {
+            if (BASE32[i] == c) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Not a geohash character: " + c);
+    }
+}
@@ -0,0 +1,165 @@
+package study.querydsl.monitoring;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 커넥션 풀 / 트랜잭션 계측
+ * - HikariCP 의 MetricsTrackerFactory 로 커넥션 대기 시간(acquire)과 점유 시간(usage), 타임아웃을 받는다.
+ * - 대기/점유 시간은 그 시점에 실행 중인 리포지토리 메서드(RepositoryTimingAspect)에도 기록한다.
+ * - 최근 대기 시간은 지수 이동 평균(EWMA)으로 유지하고, PoolSaturationGuard 가 사용한다.
+ */
+@Component
+public class ConnectionPoolMetrics implements MetricsTrackerFactory {
+
+    public static final String NO_METHOD = "(outside repository)";
+
+    //EWMA 가중치, 최근 값의 비중
+    private static final double EWMA_ALPHA = 0.2;
+    //이 시간 동안 커넥션 획득이 없으면 최근 대기 시간을 0 으로 본다.
+    private static final long EWMA_STALE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final DurationStats acquire = new DurationStats();
+    private final DurationStats usage = new DurationStats();
+    private final DurationStats transactions = new DurationStats();
+    private final LongAdder timeouts = new LongAdder();
+    private final Map<String, MethodStats> methods = new ConcurrentHashMap<>();
+
+    private final AtomicLong recentWaitNanos = new AtomicLong();
+    private volatile long lastAcquireNanos = System.nanoTime();
+    private volatile Supplier<Integer> pendingThreads = () -> 0;
+
+    private final ThreadLocal<String> currentMethod = new ThreadLocal<>();
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        pendingThreads = poolStats::getPendingThreads;
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                recordAcquire(elapsedAcquiredNanos);
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                long nanos = TimeUnit.MILLISECONDS.toNanos(elapsedBorrowedMillis);
+                usage.record(nanos);
+                methodStats(currentMethod()).hold.record(nanos);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeouts.increment();
+            }
+        };
+    }
+
+    void recordAcquire(long nanos) {
+        acquire.record(nanos);
+        methodStats(currentMethod()).wait.record(nanos);
+        long previous;
+        long next;
+        do {
+            previous = recentWaitNanos.get();
+            next = (long) (previous * (1 - EWMA_ALPHA) + nanos * EWMA_ALPHA);
+        } while (!recentWaitNanos.compareAndSet(previous, next));
+        lastAcquireNanos = System.nanoTime();
+    }
+
+    String enterMethod(String method) {
+        String outer = currentMethod.get();
+        if (outer == null) {
+            currentMethod.set(method);
+        }
+        return outer;
+    }
+
+    void exitMethod(String method, String outer, long nanos) {
+        methodStats(method).calls.record(nanos);
+        if (outer == null) {
+            currentMethod.remove();
+        }
+    }
+
+    void recordTransaction(long nanos) {
+        transactions.record(nanos);
+    }
+
+    /**
+     * 최근 커넥션 대기 시간(EWMA)
+     */
+    public long getRecentWaitNanos() {
+        if (System.nanoTime() - lastAcquireNanos > EWMA_STALE_NANOS) {
+            return 0;
+        }
+        return recentWaitNanos.get();
+    }
+
+    public int getPendingThreads() {
+        return pendingThreads.get();
+    }
+
+    public DurationStats getAcquire() {
+        return acquire;
+    }
+
+    public DurationStats getUsage() {
+        return usage;
+    }
+
+    public DurationStats getTransactions() {
+        return transactions;
+    }
+
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    public Map<String, MethodStats> getMethods() {
+        return methods;
+    }
+
+    private String currentMethod() {
+        String method = currentMethod.get();
+        return method != null ? method : NO_METHOD;
+    }
+
+    private MethodStats methodStats(String method) {
+        return methods.computeIfAbsent(method, m -> new MethodStats());
+    }
+
+    public static class MethodStats {
+        private final DurationStats calls = new DurationStats();
+        private final DurationStats wait = new DurationStats();
+        private final DurationStats hold = new DurationStats();
+
+        //메서드 실행 시간
+        public DurationStats getCalls() {
+            return calls;
+        }
+
+        //메서드 안에서 커넥션을 얻기까지 기다린 시간
+        public DurationStats getWait() {
+            return wait;
+        }
+
+        //메서드 안에서 얻은 커넥션을 반납하기까지 점유한 시간
+        public DurationStats getHold() {
+            return hold;
+        }
+
+        @Override
+        public String toString() {
+            return "calls[" + calls + "], wait[" + wait + "], hold[" + hold + "]";
+        }
+    }
+}
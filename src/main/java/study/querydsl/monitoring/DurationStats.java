@@ -0,0 +1,43 @@
+package study.querydsl.monitoring;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 실행 횟수, 합계, 최대 시간을 lock 없이 누적한다.
+ */
+public class DurationStats {
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    public void record(long nanos) {
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getAvgMillis() {
+        long n = count.sum();
+        return n > 0 ? totalNanos.sum() / (double) n / TimeUnit.MILLISECONDS.toNanos(1) : 0;
+    }
+
+    public double getMaxMillis() {
+        return maxNanos.get() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public double getTotalMillis() {
+        return totalNanos.sum() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d, avg=%.2fms, max=%.2fms", getCount(), getAvgMillis(), getMaxMillis());
+    }
+}
@@ -0,0 +1,30 @@
+package study.querydsl.monitoring;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+/**
+ * 풀이 시작되기 전에 HikariDataSource 에 ConnectionPoolMetrics 를 연결한다.
+ */
+@Component
+public class HikariMetricsConfigurer implements BeanPostProcessor {
+
+    private final ObjectProvider<ConnectionPoolMetrics> metrics;
+
+    public HikariMetricsConfigurer(ObjectProvider<ConnectionPoolMetrics> metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof HikariDataSource) {
+            HikariDataSource dataSource = (HikariDataSource) bean;
+            if (dataSource.getMetricsTrackerFactory() == null && dataSource.getMetricRegistry() == null) {
+                dataSource.setMetricsTrackerFactory(metrics.getObject());
+            }
+        }
+        return bean;
+    }
+}
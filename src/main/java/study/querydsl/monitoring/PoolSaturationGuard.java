@@ -0,0 +1,70 @@
+package study.querydsl.monitoring;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 커넥션 풀이 포화되면 우선순위가 낮은 검색 요청을 DB 에 보내지 않고 바로 503 으로 거절한다.
+ * 포화 - 최근 커넥션 대기 시간(EWMA)이 waitThreshold 를 넘거나, 커넥션을 기다리는 스레드가 maxPendingThreads 를 넘은 경우
+ * 우선순위 - X-Request-Priority: high 헤더가 없으면 낮은 우선순위로 본다.
+ *   아무나 헤더로 거절을 피하지 못하도록 member.pool-guard.trusted-addresses 에서 온 요청의 헤더만 인정한다.
+ *   (기본값은 loopback, 비우면 헤더를 무시한다. 프록시 뒤에서는 프록시 주소를 적는다.)
+ */
+@Component
+public class PoolSaturationGuard implements HandlerInterceptor {
+
+    public static final String PRIORITY_HEADER = "X-Request-Priority";
+
+    private final ConnectionPoolMetrics metrics;
+    private final boolean enabled;
+    private final long waitThresholdNanos;
+    private final int maxPendingThreads;
+    private final Set<String> trustedAddresses;
+    private final LongAdder shed = new LongAdder();
+
+    public PoolSaturationGuard(ConnectionPoolMetrics metrics,
+                               @Value("${member.pool-guard.enabled:true}") boolean enabled,
+                               @Value("${member.pool-guard.wait-threshold:100ms}") Duration waitThreshold,
+                               @Value("${member.pool-guard.max-pending-threads:10}") int maxPendingThreads,
+                               @Value("${member.pool-guard.trusted-addresses:127.0.0.1,0:0:0:0:0:0:0:1}") String[] trustedAddresses) {
+        this.metrics = metrics;
+        this.enabled = enabled;
+        this.waitThresholdNanos = waitThreshold.toNanos();
+        this.maxPendingThreads = maxPendingThreads;
+        this.trustedAddresses = Set.copyOf(Arrays.asList(trustedAddresses));
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!enabled || isHighPriority(request) || !isSaturated()) {
+            return true;
+        }
+        shed.increment();
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader("Retry-After", "1");
+        return false;
+    }
+
+    private boolean isHighPriority(HttpServletRequest request) {
+        return "high".equalsIgnoreCase(request.getHeader(PRIORITY_HEADER))
+                && trustedAddresses.contains(request.getRemoteAddr());
+    }
+
+    public boolean isSaturated() {
+        return metrics.getRecentWaitNanos() > waitThresholdNanos
+                || metrics.getPendingThreads() > maxPendingThreads;
+    }
+
+    public long getShedCount() {
+        return shed.sum();
+    }
+}
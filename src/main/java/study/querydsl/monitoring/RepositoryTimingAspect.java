@@ -0,0 +1,36 @@
+package study.querydsl.monitoring;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * 리포지토리 메서드 실행 시간을 기록하고, 그 안에서 일어난 커넥션 대기/점유 시간을 메서드별로 묶는다.
+ * 리포지토리가 스스로 여는 트랜잭션의 커밋/커넥션 반납까지 포함하도록 트랜잭션 어드바이스보다 바깥에서 실행한다.
+ * 트랜잭션 시간은 TransactionTimingConfigurer 가 기록한다.
+ */
+@Aspect
+@Component
+@Order(0)
+public class RepositoryTimingAspect {
+
+    private final ConnectionPoolMetrics metrics;
+
+    public RepositoryTimingAspect(ConnectionPoolMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Around("execution(public * study.querydsl..*Repository*.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        String method = joinPoint.getSignature().getDeclaringType().getSimpleName() + "." + joinPoint.getSignature().getName();
+        String outer = metrics.enterMethod(method);
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            metrics.exitMethod(method, outer, System.nanoTime() - start);
+        }
+    }
+}
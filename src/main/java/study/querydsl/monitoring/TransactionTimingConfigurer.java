@@ -0,0 +1,69 @@
+package study.querydsl.monitoring;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 트랜잭션 매니저를 감싸서 트랜잭션 시작(커넥션 획득 포함)부터 완료까지를 ConnectionPoolMetrics 에 기록한다.
+ * 서비스의 @Transactional, TransactionTemplate, 리포지토리가 스스로 연 트랜잭션(SimpleJpaRepository 등)을 모두 잰다.
+ */
+@Component
+public class TransactionTimingConfigurer implements BeanPostProcessor {
+
+    private final ObjectProvider<ConnectionPoolMetrics> metrics;
+
+    public TransactionTimingConfigurer(ObjectProvider<ConnectionPoolMetrics> metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof PlatformTransactionManager && !(bean instanceof TimingTransactionManager)) {
+            return new TimingTransactionManager((PlatformTransactionManager) bean, metrics);
+        }
+        return bean;
+    }
+
+    static class TimingTransactionManager implements PlatformTransactionManager {
+
+        private final PlatformTransactionManager delegate;
+        private final ObjectProvider<ConnectionPoolMetrics> metrics;
+
+        TimingTransactionManager(PlatformTransactionManager delegate, ObjectProvider<ConnectionPoolMetrics> metrics) {
+            this.delegate = delegate;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            long start = System.nanoTime();
+            TransactionStatus status = delegate.getTransaction(definition);
+            //참여한 트랜잭션은 바깥 트랜잭션이 기록한다. REQUIRES_NEW 는 동기화 범위가 새로 열리므로 따로 기록된다.
+            if (status.isNewTransaction() && TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int completionStatus) {
+                        metrics.getObject().recordTransaction(System.nanoTime() - start);
+                    }
+                });
+            }
+            return status;
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+            delegate.commit(status);
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+            delegate.rollback(status);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.ActivityRollupDto;
+import study.querydsl.dto.QActivityRollupDto;
+import study.querydsl.entity.MemberActivity;
+import study.querydsl.entity.MemberActivityDailyRollup;
+import study.querydsl.entity.MemberActivityType;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static study.querydsl.entity.QMemberActivity.memberActivity;
+import static study.querydsl.entity.QMemberActivityDailyRollup.memberActivityDailyRollup;
+
+/**
+ * 회원 활동 리포지토리
+ * 원본 이벤트 조회는 항상 bucket 범위 조건을 추가해서 기간 밖의 파티션을 읽지 않는다. (partition pruning)
+ * 대시보드는 원본 대신 일 단위 집계(MemberActivityDailyRollup)를 조회한다.
+ */
+@Repository
+public class MemberActivityRepository {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+
+    public MemberActivityRepository(EntityManager em) {
+        this.em = em;
+        this.queryFactory = new JPAQueryFactory(em);
+    }
+
+    @Transactional
+    public void save(MemberActivity activity) {
+        em.persist(activity);
+    }
+
+    /**
+     * [from, to) 기간의 팀 활동 (teamId 가 null 이면 전체)
+     */
+    public List<MemberActivity> findActivities(Long teamId, LocalDateTime from, LocalDateTime to) {
+        return queryFactory
+                .selectFrom(memberActivity)
+                .where(
+                        inPeriod(from, to),
+                        teamIdEq(teamId)
+                )
+                .orderBy(memberActivity.occurredAt.asc())
+                .fetch();
+    }
+
+    public Map<MemberActivityType, Long> countByType(LocalDateTime from, LocalDateTime to) {
+        List<Tuple> result = queryFactory
+                .select(memberActivity.type, memberActivity.count())
+                .from(memberActivity)
+                .where(inPeriod(from, to))
+                .groupBy(memberActivity.type)
+                .fetch();
+
+        Map<MemberActivityType, Long> counts = new EnumMap<>(MemberActivityType.class);
+        for (Tuple tuple : result) {
+            counts.put(tuple.get(memberActivity.type), tuple.get(memberActivity.count()));
+        }
+        return counts;
+    }
+
+    /**
+     * day 하루치 원본 이벤트를 팀/활동 종류별로 집계해서 기존 집계를 교체한다.
+     *
+     * @return 저장한 집계 행 수
+     */
+    @Transactional
+    public int rollupDay(LocalDate day) {
+        int bucket = MemberActivity.bucketOf(day);
+        List<Tuple> result = queryFactory
+                .select(memberActivity.teamId,
+                        memberActivity.type,
+                        memberActivity.count(),
+                        memberActivity.memberId.countDistinct())
+                .from(memberActivity)
+                .where(memberActivity.bucket.eq(bucket))
+                .groupBy(memberActivity.teamId, memberActivity.type)
+                .fetch();
+
+        queryFactory
+                .delete(memberActivityDailyRollup)
+                .where(memberActivityDailyRollup.bucket.eq(bucket))
+                .execute();
+
+        LocalDateTime rolledUpAt = LocalDateTime.now();
+        List<MemberActivityDailyRollup> rollups = new ArrayList<>(result.size());
+        for (Tuple tuple : result) {
+            MemberActivityDailyRollup rollup = new MemberActivityDailyRollup(day,
+                    tuple.get(memberActivity.teamId),
+                    tuple.get(memberActivity.type),
+                    tuple.get(memberActivity.count()),
+                    tuple.get(memberActivity.memberId.countDistinct()),
+                    rolledUpAt);
+            em.persist(rollup);
+            rollups.add(rollup);
+        }
+        return rollups.size();
+    }
+
+    /**
+     * [from, to] 기간의 일 단위 집계 (teamId 가 null 이면 전체)
+     */
+    public List<ActivityRollupDto> findDailyRollups(Long teamId, LocalDate from, LocalDate to) {
+        return queryFactory
+                .select(new QActivityRollupDto(
+                        memberActivityDailyRollup.day,
+                        memberActivityDailyRollup.teamId,
+                        memberActivityDailyRollup.type,
+                        memberActivityDailyRollup.eventCount,
+                        memberActivityDailyRollup.memberCount
+                ))
+                .from(memberActivityDailyRollup)
+                .where(
+                        memberActivityDailyRollup.bucket.between(MemberActivity.bucketOf(from), MemberActivity.bucketOf(to)),
+                        teamId != null ? memberActivityDailyRollup.teamId.eq(teamId) : null
+                )
+                .orderBy(memberActivityDailyRollup.day.asc(),
+                        memberActivityDailyRollup.teamId.asc(),
+                        memberActivityDailyRollup.type.asc())
+                .fetch();
+    }
+
+    //bucket 범위로 파티션을 좁히고, occurredAt 으로 경계일의 나머지 시간을 거른다.
+    private BooleanExpression inPeriod(LocalDateTime from, LocalDateTime to) {
+        return memberActivity.bucket.between(
+                        MemberActivity.bucketOf(from.toLocalDate()),
+                        MemberActivity.bucketOf(to.toLocalDate()))
+                .and(memberActivity.occurredAt.goe(from))
+                .and(memberActivity.occurredAt.lt(to));
+    }
+
+    private BooleanExpression teamIdEq(Long teamId) {
+        return teamId != null ? memberActivity.teamId.eq(teamId) : null;
+    }
+}
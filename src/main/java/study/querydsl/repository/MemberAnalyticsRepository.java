@@ -0,0 +1,118 @@
+package study.querydsl.repository;
+
+import org.springframework.stereotype.Repository;
+import study.querydsl.dto.MemberAgeStatDto;
+import study.querydsl.dto.MemberTeamDto;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 분석용 조회 리포지토리
+ * JPQL 은 윈도우 함수와 from 절 서브쿼리(인라인 뷰)를 지원하지 않아서 네이티브 SQL 을 사용한다.
+ * 상관 서브쿼리(member.age.eq(select(memberSub.age.max())...)) 대신 테이블을 한번만 읽는다.
+ * - 윈도우 함수 - max/avg/rank() over (partition by team_id)
+ * - select 절 스칼라 서브쿼리 - 미리 집계한 인라인 뷰와 조인
+ * AVG 는 정수 컬럼에 대해 정수를 반환하므로 double 로 변환해서 계산한다.
+ */
+@Repository
+public class MemberAnalyticsRepository {
+
+    private static final String MEMBER_TEAM_COLUMNS =
+            "m.member_id, m.username, m.age, t.team_id, t.name";
+
+    private final EntityManager em;
+
+    public MemberAnalyticsRepository(EntityManager em) {
+        this.em = em;
+    }
+
+    /**
+     * 팀별 최고령 회원 (동률이면 모두 반환)
+     */
+    public List<MemberTeamDto> findTopMembersPerTeam() {
+        return fetchMemberTeam(
+                "select " + MEMBER_TEAM_COLUMNS +
+                " from (select mm.*, rank() over (partition by mm.team_id order by mm.age desc) as age_rank" +
+                "       from member mm where mm.team_id is not null) m" +
+                " join team t on t.team_id = m.team_id" +
+                " where m.age_rank = 1" +
+                " order by t.team_id, m.member_id");
+    }
+
+    /**
+     * 소속 팀 평균 나이보다 나이가 많은 회원
+     */
+    public List<MemberTeamDto> findMembersAboveTeamAverage() {
+        return fetchMemberTeam(
+                "select " + MEMBER_TEAM_COLUMNS +
+                " from (select mm.*, avg(cast(mm.age as double)) over (partition by mm.team_id) as team_avg_age" +
+                "       from member mm where mm.team_id is not null) m" +
+                " join team t on t.team_id = m.team_id" +
+                " where m.age > m.team_avg_age" +
+                " order by t.team_id, m.member_id");
+    }
+
+    /**
+     * 나이가 가장 많은 회원 (QuerydslBasicTest.서브쿼리1_eq)
+     */
+    public List<MemberTeamDto> findOldestMembers() {
+        return fetchMemberTeam(
+                "select " + MEMBER_TEAM_COLUMNS +
+                " from (select mm.*, max(mm.age) over () as max_age from member mm) m" +
+                " left join team t on t.team_id = m.team_id" +
+                " where m.age = m.max_age" +
+                " order by m.member_id");
+    }
+
+    /**
+     * 나이가 평균 이상인 회원 (QuerydslBasicTest.서브쿼리2_goe)
+     */
+    public List<MemberTeamDto> findMembersAtOrAboveAverage() {
+        return fetchMemberTeam(
+                "select " + MEMBER_TEAM_COLUMNS +
+                " from (select mm.*, avg(cast(mm.age as double)) over () as avg_age from member mm) m" +
+                " left join team t on t.team_id = m.team_id" +
+                " where m.age >= m.avg_age" +
+                " order by m.member_id");
+    }
+
+    /**
+     * 회원별 나이와 전체 평균 나이 (QuerydslBasicTest.서브쿼리_select)
+     * 스칼라 서브쿼리 대신 한번만 집계한 인라인 뷰와 조인한다.
+     */
+    @SuppressWarnings("unchecked")
+    public List<MemberAgeStatDto> findMemberAgesWithAverage() {
+        List<Object[]> rows = em.createNativeQuery(
+                "select m.member_id, m.username, m.age, a.avg_age" +
+                " from member m" +
+                " cross join (select avg(cast(age as double)) as avg_age from member) a" +
+                " order by m.member_id")
+                .getResultList();
+        return rows.stream()
+                .map(row -> new MemberAgeStatDto(
+                        toLong(row[0]),
+                        (String) row[1],
+                        ((Number) row[2]).intValue(),
+                        ((Number) row[3]).doubleValue()))
+                .collect(Collectors.toList());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<MemberTeamDto> fetchMemberTeam(String sql) {
+        List<Object[]> rows = em.createNativeQuery(sql).getResultList();
+        return rows.stream()
+                .map(row -> new MemberTeamDto(
+                        toLong(row[0]),
+                        (String) row[1],
+                        ((Number) row[2]).intValue(),
+                        toLong(row[3]),
+                        (String) row[4]))
+                .collect(Collectors.toList());
+    }
+
+    private static Long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : null;
+    }
+}
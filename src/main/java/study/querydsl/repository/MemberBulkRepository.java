@@ -0,0 +1,116 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.engine.spi.EntityKey;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.event.MemberChange;
+import study.querydsl.entity.event.MemberChangeEventDispatcher;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.util.ArrayList;
+import java.util.List;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 버전과 캐시를 맞춰 주는 회원 벌크 수정
+ * queryFactory.update(member) 는 영속성 컨텍스트, 2차 캐시, @Version 을 모두 우회한다.
+ * 그래서 호출할 때마다 em.flush(); em.clear(); 가 필요하고, 이미 읽은 엔티티와 DB 의 값이 달라진다.
+ *
+ * 1. 대상 회원을 select ... for update 로 잠그고 id 와 변경 전 값을 읽는다. (수정 대상과 반환 id 가 같다.)
+ * 2. id IN 청크 단위로 update 하면서 version 도 1 증가시킨다.
+ * 3. 영속성 컨텍스트에 있는 대상 엔티티는 refresh 하고, 2차 캐시에서는 evict 한다.
+ * 4. 커밋 후에 MemberChange(UPDATE) 를 발행해서 이벤트 기반 집계(MemberAgeAnalytics 등)를 맞춘다.
+ */
+@Repository
+public class MemberBulkRepository {
+
+    private static final int IN_CHUNK_SIZE = 1000;
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final MemberChangeEventDispatcher eventDispatcher;
+
+    public MemberBulkRepository(EntityManager em, MemberChangeEventDispatcher eventDispatcher) {
+        this.em = em;
+        this.queryFactory = new JPAQueryFactory(em);
+        this.eventDispatcher = eventDispatcher;
+    }
+
+    /**
+     * where 조건(member 경로만 사용 가능)에 맞는 회원의 나이를 delta 만큼 더한다.
+     *
+     * @return 수정된 회원 id
+     */
+    @Transactional
+    public List<Long> incrementAge(Predicate where, int delta) {
+        List<Tuple> targets = queryFactory
+                .select(member.id, member.username, member.age, member.team.id)
+                .from(member)
+                .where(where)
+                .orderBy(member.id.asc())
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .fetch();
+
+        List<Long> ids = new ArrayList<>(targets.size());
+        for (Tuple target : targets) {
+            ids.add(target.get(member.id));
+        }
+
+        for (int from = 0; from < ids.size(); from += IN_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + IN_CHUNK_SIZE, ids.size()));
+            queryFactory
+                    .update(member)
+                    .set(member.age, member.age.add(delta))
+                    .set(member.version, member.version.add(1L))
+                    .where(member.id.in(chunk))
+                    .execute();
+        }
+
+        synchronize(ids);
+        publishAfterCommit(targets, delta);
+        return ids;
+    }
+
+    private void synchronize(List<Long> ids) {
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(Member.class);
+        for (Long id : ids) {
+            EntityKey key = session.generateEntityKey(id, persister);
+            Object managed = session.getPersistenceContext().getEntity(key);
+            if (managed != null) {
+                em.refresh(managed);
+            }
+            em.getEntityManagerFactory().getCache().evict(Member.class, id);
+        }
+    }
+
+    private void publishAfterCommit(List<Tuple> targets, int delta) {
+        if (targets.isEmpty() || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        List<MemberChange> changes = new ArrayList<>(targets.size());
+        for (Tuple target : targets) {
+            String username = target.get(member.username);
+            int previousAge = target.get(member.age);
+            Long teamId = target.get(member.team.id);
+            changes.add(new MemberChange(MemberChange.Type.UPDATE, target.get(member.id),
+                    username, previousAge + delta, teamId, username, previousAge, teamId));
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                changes.forEach(eventDispatcher::publish);
+            }
+        });
+    }
+}
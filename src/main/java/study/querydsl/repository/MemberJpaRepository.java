@@ -1,13 +1,16 @@
 package study.querydsl.repository;
 
 import com.querydsl.core.BooleanBuilder;
-import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.springframework.stereotype.Repository;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
+import study.querydsl.repository.support.MemberPredicates;
+import study.querydsl.repository.support.QueryPolicies;
+import study.querydsl.repository.support.QueryPolicy;
 
 import javax.persistence.EntityManager;
 import java.util.List;
@@ -16,16 +19,29 @@ import java.util.Optional;
 import static org.springframework.util.StringUtils.hasText;
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.repository.support.TeamSubtreeJoin.joinTeamSubtree;
 
 @Repository
 public class MemberJpaRepository {
 
+    private static final QMemberTeamDto MEMBER_TEAM_DTO = new QMemberTeamDto(
+            member.id.as("memberId"),
+            member.username,
+            member.age,
+            team.id.as("teamId"),
+            team.name.as("teamName")
+    );
+
     private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final MemberPredicates memberPredicates;
+    private final MemberUsernameFilter usernameFilter;
 
-    public MemberJpaRepository(EntityManager em) {
+    public MemberJpaRepository(EntityManager em, MemberPredicates memberPredicates, MemberUsernameFilter usernameFilter) {
         this.em = em;
-        this.queryFactory = new JPAQueryFactory(em);
+        this.queryFactory = memberPredicates.queryFactory(em);
+        this.memberPredicates = memberPredicates;
+        this.usernameFilter = usernameFilter;
     }
 
     public void save(Member member) {
@@ -50,17 +66,18 @@ public class MemberJpaRepository {
     }
 
     public List<Member> findByUsername(String username) {
-        return em.createQuery("select m from Member m where m.username = :username", Member.class)
-                .setParameter("username", username)
-                .getResultList();
+        return usernameFilter.lookup(username, () ->
+                em.createQuery("select m from Member m where m.username = :username", Member.class)
+                        .setParameter("username", username)
+                        .getResultList());
     }
 
     //Querydsl 사용
     public List<Member> findByUsername_Querydsl(String username) {
-        return queryFactory
+        return usernameFilter.lookup(username, () -> queryFactory
                 .selectFrom(member)
                 .where(member.username.eq(username))
-                .fetch();
+                .fetch());
     }
 
     /**
@@ -74,14 +91,18 @@ public class MemberJpaRepository {
         if (hasText(condition.getTeamName())) {
             builder.and(team.name.eq(condition.getTeamName()));
         }
+        if (condition.getTeamId() != null) {
+            builder.and(member.team.id.eq(condition.getTeamId()));
+        }
         if (condition.getAgeGoe() != null) {
             builder.and(member.age.goe(condition.getAgeGoe()));
         }
         if (condition.getAgeLoe() != null) {
-            builder.and(member.age.goe(condition.getAgeLoe()));
+            builder.and(member.age.loe(condition.getAgeLoe()));
         }
+        builder.and(MemberPredicates.geoOf(condition));
 
-        return queryFactory
+        JPAQuery<MemberTeamDto> query = queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
@@ -91,45 +112,19 @@ public class MemberJpaRepository {
                 ))
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(builder)
-                .fetch();
+                .where(builder);
+        return joinTeamSubtree(query, condition.getTeamSubtree()).fetch();
     }
     /**
      * Querydsl 의 where 사용
      */
+    @QueryPolicy(timeout = "${member.query-policy.search.timeout:3s}",
+            maxRows = "${member.query-policy.search.max-rows:1000}")
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")
-                ))
+        JPAQuery<MemberTeamDto> query = queryFactory
+                .select(MEMBER_TEAM_DTO)
                 .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
-                .fetch();
-    }
-
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
-    }
-
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
-    }
-
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
-    }
-
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.goe(ageLoe) : null;
+                .leftJoin(member.team, team);
+        return QueryPolicies.fetch(memberPredicates.apply(query, condition));
     }
 }
@@ -0,0 +1,73 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.support.MemberPredicates;
+import study.querydsl.repository.support.MemberTeamFields;
+import study.querydsl.repository.support.QueryPolicies;
+import study.querydsl.repository.support.QueryPolicy;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 필드 선택 회원 검색
+ * MemberRepositoryImpl 의 search, searchPageComplex 와 같은 조건이지만 요청한 컬럼만 select 한다.
+ * team 조인은 teamName 을 조회하거나 teamName 조건이 있을 때만 추가한다.
+ */
+@Repository
+public class MemberProjectionRepository {
+
+    private final JPAQueryFactory queryFactory;
+    private final MemberPredicates memberPredicates;
+
+    public MemberProjectionRepository(EntityManager em, MemberPredicates memberPredicates) {
+        this.queryFactory = memberPredicates.queryFactory(em);
+        this.memberPredicates = memberPredicates;
+    }
+
+    @QueryPolicy(timeout = "${member.query-policy.search.timeout:3s}",
+            maxRows = "${member.query-policy.search.max-rows:1000}")
+    public List<MemberTeamDto> search(MemberSearchCondition condition, MemberTeamFields fields) {
+        return QueryPolicies.fetch(contentQuery(condition, fields));
+    }
+
+    @QueryPolicy(timeout = "${member.query-policy.page.timeout:3s}",
+            maxRows = "${member.query-policy.page.max-rows:1000}",
+            onExceed = QueryPolicy.OnExceed.ERROR)
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, MemberTeamFields fields, Pageable pageable) {
+        List<MemberTeamDto> content = QueryPolicies.fetch(contentQuery(condition, fields)
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize()));
+
+        //count 는 select 필드와 무관하므로 teamName 조건이 있을 때만 조인한다.
+        JPAQuery<Long> countQuery = where(queryFactory.select(member.count()).from(member),
+                condition, hasText(condition.getTeamName()));
+
+        return PageableExecutionUtils.getPage(content, pageable, () -> QueryPolicies.fetchOne(countQuery));
+    }
+
+    private JPAQuery<MemberTeamDto> contentQuery(MemberSearchCondition condition, MemberTeamFields fields) {
+        JPAQuery<MemberTeamDto> query = queryFactory
+                .select(fields.getProjection())
+                .from(member);
+        return where(query, condition, fields.requiresTeamJoin() || hasText(condition.getTeamName()));
+    }
+
+    private <T> JPAQuery<T> where(JPAQuery<T> query, MemberSearchCondition condition, boolean teamJoin) {
+        if (teamJoin) {
+            query.leftJoin(member.team, team);
+        }
+        return memberPredicates.apply(query, condition);
+    }
+}
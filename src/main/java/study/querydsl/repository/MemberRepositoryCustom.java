@@ -12,4 +12,10 @@ public interface MemberRepositoryCustom {
     List<MemberTeamDto> search(MemberSearchCondition condition);
     Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable);
     Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable);
+
+    //조건에 맞는 회원이 한 명이라도 있는지 (첫 행에서 멈춘다.)
+    boolean exists(MemberSearchCondition condition);
+
+    //조건에 맞는 회원이 속한 팀 id (중복 제거, 팀이 없는 회원은 제외, id 순)
+    List<Long> distinctTeams(MemberSearchCondition condition);
 }
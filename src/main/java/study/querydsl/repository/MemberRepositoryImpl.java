@@ -1,6 +1,5 @@
 package study.querydsl.repository;
 
-import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.JPQLQuery;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
@@ -13,11 +12,13 @@ import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
+import study.querydsl.repository.support.MemberPredicates;
+import study.querydsl.repository.support.QueryPolicies;
+import study.querydsl.repository.support.QueryPolicy;
 
 import javax.persistence.EntityManager;
 import java.util.List;
 
-import static org.springframework.util.StringUtils.hasText;
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
 
@@ -27,10 +28,20 @@ import static study.querydsl.entity.QTeam.team;
  */
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
+    private static final QMemberTeamDto MEMBER_TEAM_DTO = new QMemberTeamDto(
+            member.id.as("memberId"),
+            member.username,
+            member.age,
+            team.id.as("teamId"),
+            team.name.as("teamName")
+    );
+
     private final JPAQueryFactory queryFactory;
+    private final MemberPredicates memberPredicates;
 
-    public MemberRepositoryImpl(EntityManager em) {
-        this.queryFactory = new JPAQueryFactory(em);
+    public MemberRepositoryImpl(EntityManager em, MemberPredicates memberPredicates) {
+        this.queryFactory = memberPredicates.queryFactory(em);
+        this.memberPredicates = memberPredicates;
     }
 
 //    public MemberRepositoryImpl() {
@@ -38,24 +49,14 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
 //    }
 
     @Override
+    @QueryPolicy(timeout = "${member.query-policy.search.timeout:3s}",
+            maxRows = "${member.query-policy.search.max-rows:1000}")
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")
-                ))
+        JPAQuery<MemberTeamDto> query = queryFactory
+                .select(MEMBER_TEAM_DTO)
                 .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
-                .fetch();
+                .leftJoin(member.team, team);
+        return QueryPolicies.fetch(memberPredicates.apply(query, condition));
     }
 
     /**
@@ -66,26 +67,17 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
      * count(member.id) - select(member.count())
      */
     @Override
+    @QueryPolicy(timeout = "${member.query-policy.page.timeout:3s}",
+            maxRows = "${member.query-policy.page.max-rows:1000}",
+            onExceed = QueryPolicy.OnExceed.ERROR)
     public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
-        List<MemberTeamDto> content = queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")
-                ))
+        JPAQuery<MemberTeamDto> contentQuery = queryFactory
+                .select(MEMBER_TEAM_DTO)
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
                 .offset(pageable.getOffset())
-                .limit(pageable.getPageSize())
-                .fetch();
+                .limit(pageable.getPageSize());
+        List<MemberTeamDto> content = QueryPolicies.fetch(memberPredicates.apply(contentQuery, condition));
 
         int total = content.size();
         return new PageImpl<>(content, pageable, total);
@@ -122,55 +114,55 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
 //    }
 
     @Override
+    @QueryPolicy(timeout = "${member.query-policy.page.timeout:3s}",
+            maxRows = "${member.query-policy.page.max-rows:1000}",
+            onExceed = QueryPolicy.OnExceed.ERROR)
     public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
-        List<MemberTeamDto> content = queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")
-                ))
+        JPAQuery<MemberTeamDto> contentQuery = queryFactory
+                .select(MEMBER_TEAM_DTO)
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
                 .offset(pageable.getOffset())
-                .limit(pageable.getPageSize())
-                .fetch();
+                .limit(pageable.getPageSize());
+        List<MemberTeamDto> content = QueryPolicies.fetch(memberPredicates.apply(contentQuery, condition));
 
-        JPAQuery<Long> countQuery = queryFactory
+        JPAQuery<Long> countQuery = memberPredicates.apply(queryFactory
                 .select(member.count())
                 .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                );
-
-        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
-//        return new PageImpl<>(content, pageable, total);
-    }
+                .leftJoin(member.team, team), condition);
 
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
-    }
-
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
+        return PageableExecutionUtils.getPage(content, pageable, () -> QueryPolicies.fetchOne(countQuery));
+//        return new PageImpl<>(content, pageable, total);
     }
 
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    /**
+     * count 나 fetch 후 isEmpty() 대신 select 1 ... limit 1 로 첫 행을 찾으면 바로 끝낸다.
+     */
+    @Override
+    @QueryPolicy(timeout = "${member.query-policy.search.timeout:3s}")
+    public boolean exists(MemberSearchCondition condition) {
+        JPAQuery<Integer> query = queryFactory
+                .selectOne()
+                .from(member)
+                .leftJoin(member.team, team)
+                .limit(1);
+        return QueryPolicies.fetchOne(memberPredicates.apply(query, condition)) != null;
     }
 
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.goe(ageLoe) : null;
+    /**
+     * 회원 목록을 가져와서 팀을 모으지 않고 DB 에서 team.id 만 distinct 로 가져온다.
+     * 팀이 있는 회원만 대상이므로 inner join 을 사용한다.
+     */
+    @Override
+    @QueryPolicy(timeout = "${member.query-policy.search.timeout:3s}",
+            maxRows = "${member.query-policy.search.max-rows:1000}")
+    public List<Long> distinctTeams(MemberSearchCondition condition) {
+        JPAQuery<Long> query = queryFactory
+                .select(team.id)
+                .distinct()
+                .from(member)
+                .join(member.team, team)
+                .orderBy(team.id.asc());
+        return QueryPolicies.fetch(memberPredicates.apply(query, condition));
     }
 }
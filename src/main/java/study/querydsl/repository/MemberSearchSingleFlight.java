@@ -0,0 +1,130 @@
+package study.querydsl.repository;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import study.querydsl.config.MemberSearchBackendConfig.Backend;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.support.MemberTeamFields;
+import study.querydsl.repository.support.SingleFlight;
+import study.querydsl.repository.support.TruncatedList;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * 회원 검색 앞단의 single-flight 계층
+ * 캐시가 만료된 직후처럼 같은 조건의 검색이 동시에 몰려도 DB 에는 한번만 실행한다.
+ * 검색은 member.search.backend 로 선택한 구현체(memberSearchRepository)를 사용한다.
+ * 키는 (메서드, 정규화한 검색 조건, Pageable, 필드) 이다. 빈 문자열 조건은 null 과 같은 쿼리를 만들므로 null 로 맞춘다.
+ *
+ * 필드 선택(fields) 검색도 같은 구현체를 따른다.
+ * jpa 는 요청한 컬럼만 select 하는 MemberProjectionRepository 를 쓰고, sql/memory 는 전체 결과에서 필드를 골라낸다.
+ */
+@Component
+public class MemberSearchSingleFlight {
+
+    private final MemberRepositoryCustom memberSearchRepository;
+    private final MemberProjectionRepository memberProjectionRepository;
+    private final boolean projectInQuery;
+    private final SingleFlight<SearchKey, Object> singleFlight;
+
+    public MemberSearchSingleFlight(@Qualifier("memberSearchRepository") MemberRepositoryCustom memberSearchRepository,
+                                    MemberProjectionRepository memberProjectionRepository,
+                                    @Value("${member.search.backend:JPA}") Backend backend,
+                                    @Value("${member.search.single-flight.wait-timeout:3s}") Duration waitTimeout) {
+        this.memberSearchRepository = memberSearchRepository;
+        this.memberProjectionRepository = memberProjectionRepository;
+        this.projectInQuery = backend == Backend.JPA;
+        this.singleFlight = new SingleFlight<>(waitTimeout);
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        MemberSearchCondition key = normalize(condition);
+        return (List<MemberTeamDto>) singleFlight.execute(new SearchKey("search", key, null, null),
+                () -> unmodifiable(memberSearchRepository.search(key)));
+    }
+
+    @SuppressWarnings("unchecked")
+    public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+        MemberSearchCondition key = normalize(condition);
+        return (Page<MemberTeamDto>) singleFlight.execute(new SearchKey("searchPageSimple", key, pageable, null),
+                () -> memberSearchRepository.searchPageSimple(key, pageable));
+    }
+
+    @SuppressWarnings("unchecked")
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        MemberSearchCondition key = normalize(condition);
+        return (Page<MemberTeamDto>) singleFlight.execute(new SearchKey("searchPageComplex", key, pageable, null),
+                () -> memberSearchRepository.searchPageComplex(key, pageable));
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<MemberTeamDto> search(MemberSearchCondition condition, MemberTeamFields fields) {
+        if (fields == MemberTeamFields.ALL) {
+            return search(condition);
+        }
+        MemberSearchCondition key = normalize(condition);
+        return (List<MemberTeamDto>) singleFlight.execute(new SearchKey("search", key, null, fields),
+                () -> unmodifiable(projectInQuery
+                        ? memberProjectionRepository.search(key, fields)
+                        : fields.select(memberSearchRepository.search(key))));
+    }
+
+    @SuppressWarnings("unchecked")
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, MemberTeamFields fields, Pageable pageable) {
+        if (fields == MemberTeamFields.ALL) {
+            return searchPageComplex(condition, pageable);
+        }
+        MemberSearchCondition key = normalize(condition);
+        return (Page<MemberTeamDto>) singleFlight.execute(new SearchKey("searchPageComplex", key, pageable, fields),
+                () -> projectInQuery
+                        ? memberProjectionRepository.searchPageComplex(key, fields, pageable)
+                        : fields.select(memberSearchRepository.searchPageComplex(key, pageable)));
+    }
+
+    //TruncatedList 는 읽기 전용이고, 감싸면 X-Result-Truncated 헤더가 빠지므로 그대로 둔다.
+    private static <T> List<T> unmodifiable(List<T> result) {
+        return result instanceof TruncatedList ? result : Collections.unmodifiableList(result);
+    }
+
+    public Map<Object, SingleFlight.Stats> getStats() {
+        return singleFlight.getStats();
+    }
+
+    //키로 사용하므로 호출한 쪽의 객체를 그대로 쓰지 않고 복사한다.
+    static MemberSearchCondition normalize(MemberSearchCondition condition) {
+        MemberSearchCondition normalized = new MemberSearchCondition();
+        normalized.setUsername(hasText(condition.getUsername()) ? condition.getUsername() : null);
+        normalized.setTeamName(hasText(condition.getTeamName()) ? condition.getTeamName() : null);
+        normalized.setTeamId(condition.getTeamId());
+        normalized.setTeamSubtree(condition.getTeamSubtree());
+        normalized.setAgeGoe(condition.getAgeGoe());
+        normalized.setAgeLoe(condition.getAgeLoe());
+        normalized.setLatitude(condition.getLatitude());
+        normalized.setLongitude(condition.getLongitude());
+        normalized.setRadiusMeters(condition.getRadiusMeters());
+        normalized.setMinLatitude(condition.getMinLatitude());
+        normalized.setMaxLatitude(condition.getMaxLatitude());
+        normalized.setMinLongitude(condition.getMinLongitude());
+        normalized.setMaxLongitude(condition.getMaxLongitude());
+        return normalized;
+    }
+
+    @lombok.Value
+    static class SearchKey {
+        String method;
+        MemberSearchCondition condition;
+        Pageable pageable;
+        //MemberTeamFields 는 조합마다 하나의 인스턴스만 만든다.
+        MemberTeamFields fields;
+    }
+}
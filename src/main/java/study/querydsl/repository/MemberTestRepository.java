@@ -1,6 +1,5 @@
 package study.querydsl.repository;
 
-import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -8,19 +7,25 @@ import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.entity.Member;
+import study.querydsl.repository.support.ChunkOptions;
+import study.querydsl.repository.support.ChunkStats;
+import study.querydsl.repository.support.MemberPredicates;
 import study.querydsl.repository.support.Querydsl4RepositorySupport;
 
 import java.util.List;
+import java.util.function.Consumer;
 
-import static org.springframework.util.StringUtils.hasText;
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
 
 @Repository
 public class MemberTestRepository extends Querydsl4RepositorySupport {
 
-    public MemberTestRepository(Class<?> domainClass) {
+    private final MemberPredicates memberPredicates;
+
+    public MemberTestRepository(MemberPredicates memberPredicates) {
         super(Member.class);
+        this.memberPredicates = memberPredicates;
     }
 
     public List<Member> basicSelect() {
@@ -35,63 +40,49 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
     }
 
     public Page<Member> searchPageByApplyPage(MemberSearchCondition condition, Pageable pageable) {
-        JPAQuery<Member> query = selectFrom(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                );
+        JPAQuery<Member> query = memberPredicates.apply(selectFrom(member)
+                .leftJoin(member.team, team), condition);
         List<Member> content = getQuerydsl().applyPagination(pageable, query).fetch();
         return PageableExecutionUtils.getPage(content, pageable, query::fetchCount);
     }
 
     public Page<Member> applyPagination1(MemberSearchCondition condition, Pageable pageable) {
         return applyPagination(pageable, query ->
-                query.selectFrom(member)
-                        .where(
-                                usernameEq(condition.getUsername()),
-                                teamNameEq(condition.getTeamName()),
-                                ageGoe(condition.getAgeGoe()),
-                                ageLoe(condition.getAgeLoe())
-                        ));
+                memberPredicates.apply(query.selectFrom(member), condition));
     }
 
     public Page<Member> applyPagination2(MemberSearchCondition condition, Pageable pageable) {
         return applyPagination(pageable, contentQuery ->
-                        contentQuery.selectFrom(member)
-                        .where(
-                                usernameEq(condition.getUsername()),
-                                teamNameEq(condition.getTeamName()),
-                                ageGoe(condition.getAgeGoe()),
-                                ageLoe(condition.getAgeLoe())
-                        ), countQuery ->
-                        countQuery.select(member.count())
+                        memberPredicates.apply(contentQuery.selectFrom(member), condition), countQuery ->
+                        memberPredicates.apply(countQuery.select(member.count())
                         .from(member)
-                        .leftJoin(member.team, team)
-                        .where(
-                                usernameEq(condition.getUsername()),
-                                teamNameEq(condition.getTeamName()),
-                                ageGoe(condition.getAgeGoe()),
-                                ageLoe(condition.getAgeLoe())
-                        )
+                        .leftJoin(member.team, team), condition)
                 );
     }
 
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
+    public Page<Member> applyPaginationReadOnly(MemberSearchCondition condition, Pageable pageable) {
+        return applyReadOnlyPagination(pageable, contentQuery ->
+                        memberPredicates.apply(contentQuery.selectFrom(member)
+                        .leftJoin(member.team, team), condition), countQuery ->
+                        memberPredicates.apply(countQuery.select(member.count())
+                        .from(member)
+                        .leftJoin(member.team, team), condition)
+                );
     }
 
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
+    public boolean exists(MemberSearchCondition condition) {
+        return exists(query -> memberPredicates.apply(query.from(member)
+                .leftJoin(member.team, team), condition));
     }
 
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    public List<Long> distinctTeams(MemberSearchCondition condition) {
+        return fetchDistinct(team.id, query -> memberPredicates.apply(query.from(member)
+                .join(member.team, team)
+                .orderBy(team.id.asc()), condition));
     }
 
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.goe(ageLoe) : null;
+    public ChunkStats forEachChunk(MemberSearchCondition condition, ChunkOptions options, Consumer<List<Member>> processor) {
+        return forEachChunk(member.id, query -> memberPredicates.apply(query.selectFrom(member)
+                .leftJoin(member.team, team), condition), options, processor);
     }
 }
@@ -0,0 +1,310 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.annotations.QueryHints;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.analytics.BloomFilter;
+import study.querydsl.dto.UsernameFilterStatsDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.event.MemberBulkWriteInspector;
+import study.querydsl.entity.event.MemberChange;
+import study.querydsl.entity.event.MemberChangeListener;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 존재하는 username 의 Bloom filter
+ * findByUsername 조회 전에 확인해서, 확실히 없는 username 은 DB 조회 없이 빈 목록을 반환한다.
+ *
+ * 필터에 없는 username 이 DB 에 있으면(false negative) 안 되므로 다음 경우에는 필터를 사용하지 않는다.
+ * - 필터를 만들기 전 (애플리케이션 시작 시 member 테이블을 스트리밍으로 읽어 만든다.)
+ * - 현재 세션에 flush 되지 않은 변경이 있을 때 (persist 직후 같은 트랜잭션에서 조회하는 경우)
+ * - 현재 트랜잭션이 회원을 insert/update 했을 때 (커밋 전에 재빌드된 필터에는 아직 없다.)
+ * - 벌크 SQL 로 username 이 바뀐 뒤 (MemberBulkWriteInspector) 백그라운드 재빌드가 끝나기 전까지
+ *
+ * username 은 flush 시점과 커밋 이후(재빌드 중 커밋된 변경) 두 번 추가한다.
+ * 삭제와 변경 전 username 은 지우지 않는다. (false positive 만 늘어난다.)
+ */
+@Slf4j
+@Component
+public class MemberUsernameFilter implements MemberChangeListener, PostInsertEventListener, PostUpdateEventListener {
+
+    private static final int SCAN_FETCH_SIZE = 1000;
+    //회원을 쓴 트랜잭션에 바인딩하는 리소스 키
+    private static final Object MEMBER_WRITTEN = new Object();
+
+    private final EntityManagerFactory emf;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final MemberBulkWriteInspector bulkWriteInspector;
+    private final boolean enabled;
+    private final long expectedInsertions;
+    private final double fpp;
+
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "member-username-filter-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile BloomFilter current;
+    private volatile BloomFilter building;
+    private volatile boolean stale;
+
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong bypassed = new AtomicLong();
+    private final AtomicLong negatives = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+
+    public MemberUsernameFilter(EntityManagerFactory emf,
+                                EntityManager em,
+                                PlatformTransactionManager transactionManager,
+                                MemberBulkWriteInspector bulkWriteInspector,
+                                @Value("${member.username-filter.enabled:true}") boolean enabled,
+                                @Value("${member.username-filter.expected-insertions:1000000}") long expectedInsertions,
+                                @Value("${member.username-filter.fpp:0.01}") double fpp) {
+        this.emf = emf;
+        this.queryFactory = new JPAQueryFactory(em);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.bulkWriteInspector = bulkWriteInspector;
+        this.enabled = enabled;
+        this.expectedInsertions = expectedInsertions;
+        this.fpp = fpp;
+    }
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        bulkWriteInspector.addListener(this::onBulkWrite);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    /**
+     * 필터가 없다고 하면 빈 목록을, 아니면 query 결과를 반환한다.
+     */
+    public <T> List<T> lookup(String username, Supplier<List<T>> query) {
+        lookups.incrementAndGet();
+        BloomFilter filter = current;
+        if (!enabled || username == null || filter == null || stale || hasPendingChanges()) {
+            bypassed.incrementAndGet();
+            return query.get();
+        }
+        if (!filter.mightContain(username)) {
+            negatives.incrementAndGet();
+            return new ArrayList<>();
+        }
+        List<T> result = query.get();
+        if (result.isEmpty()) {
+            falsePositives.incrementAndGet();
+        }
+        return result;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        long startGeneration = generation.get();
+        BloomFilter filter = new BloomFilter(expectedInsertions, fpp);
+        building = filter;
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<String> usernames = queryFactory
+                        .select(member.username)
+                        .from(member)
+                        .setHint(QueryHints.READ_ONLY, true)
+                        .setHint(QueryHints.FETCH_SIZE, SCAN_FETCH_SIZE)
+                        .stream()) {
+                    usernames.forEach(username -> {
+                        if (username != null) {
+                            filter.put(username);
+                        }
+                    });
+                }
+            });
+            if (generation.get() == startGeneration) {
+                current = filter;
+                stale = false;
+            } else {
+                //스캔 중에 벌크 변경이 있었으면 다시 만든다.
+                scheduleRebuild();
+            }
+        } finally {
+            building = null;
+        }
+
+        if (filter.getInsertions() > expectedInsertions) {
+            log.warn("Username filter holds {} usernames, more than expected {}; false positive rate will exceed {}",
+                    filter.getInsertions(), expectedInsertions, fpp);
+        }
+        log.info("Username filter rebuilt: {} usernames, {} KB, expected fpp {} ({}ms)",
+                filter.getInsertions(), filter.getMemoryBytes() / 1024, String.format("%.5f", filter.expectedFpp()),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public UsernameFilterStatsDto stats() {
+        BloomFilter filter = current;
+        long negativeCount = negatives.get();
+        long falsePositiveCount = falsePositives.get();
+        long absent = negativeCount + falsePositiveCount;
+        return UsernameFilterStatsDto.builder()
+                .enabled(enabled)
+                .active(enabled && filter != null && !stale)
+                .expectedInsertions(expectedInsertions)
+                .configuredFpp(fpp)
+                .expectedFpp(filter != null ? filter.expectedFpp() : 0)
+                .observedFpp(absent == 0 ? 0 : (double) falsePositiveCount / absent)
+                .bitSize(filter != null ? filter.getBitSize() : 0)
+                .hashCount(filter != null ? filter.getHashCount() : 0)
+                .memoryBytes(filter != null ? filter.getMemoryBytes() : 0)
+                .insertions(filter != null ? filter.getInsertions() : 0)
+                .lookups(lookups.get())
+                .bypassed(bypassed.get())
+                .negatives(negativeCount)
+                .falsePositives(falsePositiveCount)
+                .build();
+    }
+
+    //flush 시점
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            markMemberWritten();
+            add(((Member) event.getEntity()).getUsername());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Member) {
+            markMemberWritten();
+            add(((Member) event.getEntity()).getUsername());
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    //커밋 이후 - flush 와 커밋 사이에 시작된 재빌드가 이 username 을 놓치지 않게 한다.
+    @Override
+    public void onMemberChange(MemberChange change) {
+        if (change.getType() != MemberChange.Type.DELETE) {
+            add(change.getUsername());
+        }
+    }
+
+    private void add(String username) {
+        if (username == null) {
+            return;
+        }
+        BloomFilter filter = current;
+        if (filter != null) {
+            filter.put(username);
+        }
+        BloomFilter rebuilding = building;
+        if (rebuilding != null) {
+            rebuilding.put(username);
+        }
+    }
+
+    private void onBulkWrite() {
+        stale = true;
+        generation.incrementAndGet();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            //커밋 전에 시작된 재빌드는 아직 보이지 않는 변경을 놓치므로, 트랜잭션이 끝난 뒤 다시 만든다.
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    generation.incrementAndGet();
+                    scheduleRebuild();
+                }
+            });
+        } else {
+            scheduleRebuild();
+        }
+    }
+
+    private void scheduleRebuild() {
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            rebuildExecutor.execute(() -> {
+                rebuildScheduled.set(false);
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    log.error("Username filter rebuild failed; lookups bypass the filter until the next rebuild", e);
+                }
+            });
+        }
+    }
+
+    private void markMemberWritten() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(MEMBER_WRITTEN)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(MEMBER_WRITTEN, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(MEMBER_WRITTEN);
+            }
+        });
+    }
+
+    private boolean hasPendingChanges() {
+        if (TransactionSynchronizationManager.hasResource(MEMBER_WRITTEN)) {
+            return true;
+        }
+        EntityManagerHolder holder = (EntityManagerHolder) TransactionSynchronizationManager.getResource(emf);
+        if (holder == null) {
+            return false;
+        }
+        return holder.getEntityManager().unwrap(Session.class).isDirty();
+    }
+}
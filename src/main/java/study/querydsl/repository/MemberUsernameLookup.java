@@ -0,0 +1,12 @@
+package study.querydsl.repository;
+
+import study.querydsl.entity.Member;
+
+import java.util.List;
+
+/**
+ * username 조회 - 파생 쿼리(findByUsername) 대신 MemberUsernameFilter 를 거치도록 구현을 직접 제공한다.
+ */
+public interface MemberUsernameLookup {
+    List<Member> findByUsername(String username);
+}
@@ -0,0 +1,28 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import study.querydsl.entity.Member;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static study.querydsl.entity.QMember.member;
+
+public class MemberUsernameLookupImpl implements MemberUsernameLookup {
+
+    private final JPAQueryFactory queryFactory;
+    private final MemberUsernameFilter usernameFilter;
+
+    public MemberUsernameLookupImpl(EntityManager em, MemberUsernameFilter usernameFilter) {
+        this.queryFactory = new JPAQueryFactory(em);
+        this.usernameFilter = usernameFilter;
+    }
+
+    @Override
+    public List<Member> findByUsername(String username) {
+        return usernameFilter.lookup(username, () -> queryFactory
+                .selectFrom(member)
+                .where(member.username.eq(username))
+                .fetch());
+    }
+}
@@ -0,0 +1,220 @@
+package study.querydsl.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 회원 저장 write-behind 경로 (member.write-behind.enabled=true 일 때만 등록)
+ * MemberJpaRepository.save() 는 요청마다 insert 를 실행한다.
+ * 여기서는 회원을 큐에 넣고, batchSize 만큼 모이거나 flushInterval 이 지나면 한 트랜잭션에서 JDBC 배치로 저장한다.
+ * - 큐는 ConcurrentLinkedQueue + 크기 카운터로 lock 없이 capacity 를 제한한다.
+ * - insert 정렬(order_inserts)과 pooled 시퀀스(member_seq)로 배치가 깨지지 않는다.
+ * - 커밋이 끝나면 CompletableFuture 로 id 를 돌려준다. 실패하면 배치 전체가 예외로 완료된다.
+ * - 큐가 가득 차면 backpressure 정책(REJECT, BLOCK, CALLER_RUNS)을 따른다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "member.write-behind.enabled", havingValue = "true")
+public class MemberWriteBehindWriter {
+
+    public enum Backpressure {
+        //즉시 RejectedExecutionException 으로 완료한다.
+        REJECT,
+        //blockTimeout 까지 자리가 나기를 기다린 뒤 REJECT 한다.
+        BLOCK,
+        //호출한 스레드에서 바로 저장한다.
+        CALLER_RUNS
+    }
+
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final int capacity;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final Backpressure backpressure;
+    private final Duration blockTimeout;
+
+    private final Queue<Pending> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private volatile boolean running;
+    private Thread flusher;
+
+    public MemberWriteBehindWriter(EntityManager em,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${member.write-behind.capacity:10000}") int capacity,
+                                   @Value("${member.write-behind.batch-size:100}") int batchSize,
+                                   @Value("${member.write-behind.flush-interval:50ms}") Duration flushInterval,
+                                   @Value("${member.write-behind.backpressure:BLOCK}") Backpressure backpressure,
+                                   @Value("${member.write-behind.block-timeout:1s}") Duration blockTimeout) {
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.backpressure = backpressure;
+        this.blockTimeout = blockTimeout;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        flusher = new Thread(this::flushLoop, "member-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(flusher);
+        flusher.join();
+        //종료 전에 남은 회원을 모두 저장한다.
+        int flushed;
+        do {
+            flushed = flushBatch();
+        } while (flushed > 0);
+    }
+
+    /**
+     * 회원을 저장 큐에 넣는다.
+     * 반환된 future 는 회원이 커밋된 뒤 id 로 완료된다.
+     */
+    public CompletableFuture<Long> submit(Member member) {
+        CompletableFuture<Long> ack = new CompletableFuture<>();
+        if (!running) {
+            ack.completeExceptionally(new RejectedExecutionException("Write-behind writer is stopped"));
+            return ack;
+        }
+        if (reserve()) {
+            enqueue(new Pending(member, ack));
+            return ack;
+        }
+
+        switch (backpressure) {
+            case CALLER_RUNS:
+                return persistNow(member, ack);
+            case BLOCK:
+                long deadline = System.nanoTime() + blockTimeout.toNanos();
+                while (System.nanoTime() < deadline) {
+                    LockSupport.parkNanos(100_000);
+                    if (reserve()) {
+                        enqueue(new Pending(member, ack));
+                        return ack;
+                    }
+                }
+                break;
+            default:
+                break;
+        }
+        ack.completeExceptionally(new RejectedExecutionException(
+                "Write-behind queue is full (capacity=" + capacity + ")"));
+        return ack;
+    }
+
+    public int getQueueSize() {
+        return size.get();
+    }
+
+    private boolean reserve() {
+        int current;
+        do {
+            current = size.get();
+            if (current >= capacity) {
+                return false;
+            }
+        } while (!size.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private void enqueue(Pending pending) {
+        queue.add(pending);
+        //stop() 의 마지막 flush 이후에 들어간 회원은 저장되지 않으므로 다시 확인한다.
+        //큐에서 꺼내지 못했으면 마지막 flush 가 이미 가져간 것이다.
+        if (!running && queue.remove(pending)) {
+            size.decrementAndGet();
+            pending.ack.completeExceptionally(new RejectedExecutionException("Write-behind writer is stopped"));
+            return;
+        }
+        if (size.get() >= batchSize) {
+            LockSupport.unpark(flusher);
+        }
+    }
+
+    private CompletableFuture<Long> persistNow(Member member, CompletableFuture<Long> ack) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> em.persist(member));
+            ack.complete(member.getId());
+        } catch (RuntimeException e) {
+            ack.completeExceptionally(e);
+        }
+        return ack;
+    }
+
+    private void flushLoop() {
+        while (running) {
+            if (size.get() < batchSize) {
+                LockSupport.parkNanos(flushInterval.toNanos());
+            }
+            try {
+                flushBatch();
+            } catch (RuntimeException e) {
+                log.error("Write-behind flush failed", e);
+            }
+        }
+    }
+
+    private int flushBatch() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        Pending pending;
+        while (batch.size() < batchSize && (pending = queue.poll()) != null) {
+            batch.add(pending);
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        size.addAndGet(-batch.size());
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Pending p : batch) {
+                    em.persist(p.member);
+                }
+                em.flush();
+                em.clear();
+            });
+        } catch (RuntimeException e) {
+            batch.forEach(p -> p.ack.completeExceptionally(e));
+            throw e;
+        }
+        batch.forEach(p -> p.ack.complete(p.member.getId()));
+        return batch.size();
+    }
+
+    private static class Pending {
+        private final Member member;
+        private final CompletableFuture<Long> ack;
+
+        Pending(Member member, CompletableFuture<Long> ack) {
+            this.member = member;
+            this.ack = ack;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.QTeamSubtreeCountDto;
+import study.querydsl.dto.TeamSubtreeCountDto;
+import study.querydsl.entity.QTeamClosure;
+import study.querydsl.entity.Team;
+import study.querydsl.entity.TeamClosure;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static com.querydsl.jpa.JPAExpressions.select;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.entity.QTeamClosure.teamClosure;
+
+/**
+ * 팀 트리(Team.parent + TeamClosure) 조회와 변경
+ * 새 팀은 new Team(name, parent) 로 만들면 closure 행이 같이 저장된다.
+ * 이미 있는 팀을 옮길 때만 여기서 closure 를 다시 계산한다.
+ */
+@Repository
+public class TeamHierarchyRepository {
+
+    private static final int FLUSH_SIZE = 1000;
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+
+    public TeamHierarchyRepository(EntityManager em) {
+        this.em = em;
+        this.queryFactory = new JPAQueryFactory(em);
+    }
+
+    /**
+     * rootTeamId 하위 트리의 팀마다 (자기 자신 + 모든 하위 팀) 회원 수를 구한다.
+     * 깊이와 상관없이 쿼리 한 번으로 끝난다.
+     */
+    public List<TeamSubtreeCountDto> countSubtreeMembers(Long rootTeamId) {
+        QTeamClosure path = new QTeamClosure("path");
+        QTeamClosure subtree = new QTeamClosure("subtree");
+        return queryFactory
+                .select(new QTeamSubtreeCountDto(
+                        team.id,
+                        team.name,
+                        path.depth,
+                        member.count()
+                ))
+                .from(path)
+                .join(path.descendant, team)
+                .join(subtree).on(subtree.id.ancestorId.eq(team.id))
+                .leftJoin(member).on(member.team.id.eq(subtree.id.descendantId))
+                .where(path.id.ancestorId.eq(rootTeamId))
+                .groupBy(team.id, team.name, path.depth)
+                .orderBy(path.depth.asc(), team.id.asc())
+                .fetch();
+    }
+
+    /**
+     * 팀을 하위 트리째 newParentId 아래로 옮긴다. (null 이면 최상위 팀이 된다.)
+     * 1. 하위 트리 밖의 조상과 하위 트리 사이의 경로를 지운다.
+     * 2. 새 상위 팀의 조상 x 하위 트리 경로를 추가한다.
+     * 이미 로딩된 Team.ancestors 가 옛 경로를 가지므로 끝나면 영속성 컨텍스트를 비운다.
+     */
+    @Transactional
+    public void move(Long teamId, Long newParentId) {
+        em.flush();
+        if (em.find(Team.class, teamId) == null) {
+            throw new IllegalArgumentException("Unknown team: " + teamId);
+        }
+        if (newParentId != null) {
+            if (em.find(Team.class, newParentId) == null) {
+                throw new IllegalArgumentException("Unknown team: " + newParentId);
+            }
+            boolean intoOwnSubtree = queryFactory
+                    .selectOne()
+                    .from(teamClosure)
+                    .where(teamClosure.id.ancestorId.eq(teamId), teamClosure.id.descendantId.eq(newParentId))
+                    .fetchFirst() != null;
+            if (intoOwnSubtree) {
+                throw new IllegalArgumentException("Team " + teamId + " cannot move under its own subtree " + newParentId);
+            }
+        }
+
+        QTeamClosure subtree = new QTeamClosure("subtree");
+        queryFactory
+                .delete(teamClosure)
+                .where(
+                        teamClosure.id.descendantId.in(select(subtree.id.descendantId)
+                                .from(subtree)
+                                .where(subtree.id.ancestorId.eq(teamId))),
+                        teamClosure.id.ancestorId.notIn(select(subtree.id.descendantId)
+                                .from(subtree)
+                                .where(subtree.id.ancestorId.eq(teamId)))
+                )
+                .execute();
+
+        if (newParentId != null) {
+            List<Tuple> ancestors = queryFactory
+                    .select(teamClosure.id.ancestorId, teamClosure.depth)
+                    .from(teamClosure)
+                    .where(teamClosure.id.descendantId.eq(newParentId))
+                    .fetch();
+            List<Tuple> descendants = queryFactory
+                    .select(teamClosure.id.descendantId, teamClosure.depth)
+                    .from(teamClosure)
+                    .where(teamClosure.id.ancestorId.eq(teamId))
+                    .fetch();
+
+            int count = 0;
+            for (Tuple ancestor : ancestors) {
+                Team ancestorTeam = em.getReference(Team.class, ancestor.get(teamClosure.id.ancestorId));
+                for (Tuple descendant : descendants) {
+                    em.persist(new TeamClosure(
+                            ancestorTeam,
+                            em.getReference(Team.class, descendant.get(teamClosure.id.descendantId)),
+                            ancestor.get(teamClosure.depth) + descendant.get(teamClosure.depth) + 1));
+                    if (++count % FLUSH_SIZE == 0) {
+                        em.flush();
+                    }
+                }
+            }
+        }
+
+        if (newParentId != null) {
+            queryFactory
+                    .update(team)
+                    .set(team.parent, em.getReference(Team.class, newParentId))
+                    .where(team.id.eq(teamId))
+                    .execute();
+        } else {
+            queryFactory
+                    .update(team)
+                    .setNull(team.parent)
+                    .where(team.id.eq(teamId))
+                    .execute();
+        }
+
+        em.flush();
+        em.clear();
+    }
+}
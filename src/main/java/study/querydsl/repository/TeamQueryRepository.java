@@ -0,0 +1,98 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.QTeamMembersDto;
+import study.querydsl.dto.TeamMembersDto;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 팀 목록 조회 리포지토리
+ * Team.members 를 지연 로딩하면 팀마다 쿼리가 나가고(1+N), 큰 팀은 모든 회원을 List 에 올린다.
+ * 여기서는 쿼리 수를 고정한다.
+ * 1. 팀 페이지 + 회원 수(count 는 SQL 에서 group by 로 계산)
+ * 2. 해당 팀들의 회원을 IN 쿼리 한번으로 조회하고 팀별로 묶는다.
+ *    팀당 memberLimit 건 제한은 DB 에서 row_number() 로 걸어서 큰 팀이라도 memberLimit 건만 읽는다.
+ * 3. 팀 전체 건수(count 쿼리, 필요할 때만)
+ */
+@Repository
+public class TeamQueryRepository {
+
+    //JPQL 은 윈도우 함수를 지원하지 않으므로 네이티브 SQL 로 팀마다 member_id 순으로 memberLimit 건만 고른다.
+    static final String MEMBERS_BY_TEAM_SQL =
+            "select r.team_id, r.username, r.age" +
+            " from (select m.team_id, m.username, m.age," +
+            "        row_number() over (partition by m.team_id order by m.member_id) as rn" +
+            "       from member m where m.team_id in (:teamIds)) r" +
+            " where r.rn <= :memberLimit" +
+            " order by r.team_id, r.rn";
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+
+    public TeamQueryRepository(EntityManager em) {
+        this.em = em;
+        this.queryFactory = new JPAQueryFactory(em);
+    }
+
+    public Page<TeamMembersDto> findTeamsWithMembers(Pageable pageable, int memberLimit) {
+        List<TeamMembersDto> content = queryFactory
+                .select(new QTeamMembersDto(
+                        team.id,
+                        team.name,
+                        member.count()
+                ))
+                .from(team)
+                .leftJoin(team.members, member)
+                .groupBy(team.id, team.name)
+                .orderBy(team.id.asc())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        Map<Long, List<MemberDto>> membersByTeam = findMembersByTeam(
+                content.stream().map(TeamMembersDto::getTeamId).collect(Collectors.toList()), memberLimit);
+        for (TeamMembersDto dto : content) {
+            dto.setMembers(membersByTeam.getOrDefault(dto.getTeamId(), Collections.emptyList()));
+        }
+
+        JPAQuery<Long> countQuery = queryFactory
+                .select(team.count())
+                .from(team);
+
+        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Long, List<MemberDto>> findMembersByTeam(List<Long> teamIds, int memberLimit) {
+        if (teamIds.isEmpty() || memberLimit == 0) {
+            return Collections.emptyMap();
+        }
+        List<Object[]> rows = em.createNativeQuery(MEMBERS_BY_TEAM_SQL)
+                .setParameter("teamIds", teamIds)
+                .setParameter("memberLimit", memberLimit)
+                .getResultList();
+
+        Map<Long, List<MemberDto>> membersByTeam = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            membersByTeam.computeIfAbsent(((Number) row[0]).longValue(), teamId -> new ArrayList<>())
+                    .add(new MemberDto((String) row[1], ((Number) row[2]).intValue()));
+        }
+        return membersByTeam;
+    }
+}
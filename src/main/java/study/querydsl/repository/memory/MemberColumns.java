@@ -0,0 +1,138 @@
+package study.querydsl.repository.memory;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 회원 projection 을 컬럼별 primitive 배열로 가진 읽기 전용 테이블 (행 번호 = member_id 오름차순 순서)
+ * 인덱스
+ * - username, team_id -> 행 BitSet
+ * - 나이 -> 나이순으로 정렬한 행 번호와 나이 배열 (범위 조건은 이분 탐색 두 번)
+ * 만든 뒤에는 바꾸지 않으므로 여러 스레드가 lock 없이 읽는다.
+ */
+final class MemberColumns {
+
+    static final long NO_TEAM = -1;
+
+    static final MemberColumns EMPTY = new MemberColumns(new long[0], new String[0], new int[0], new long[0], 0);
+
+    private final int size;
+    private final long[] ids;
+    private final String[] usernames;
+    private final int[] ages;
+    private final long[] teamIds;
+
+    private final Map<String, BitSet> rowsByUsername = new HashMap<>();
+    private final Map<Long, BitSet> rowsByTeam = new HashMap<>();
+    private final int[] rowsByAge;
+    private final int[] sortedAges;
+
+    /**
+     * ids 는 오름차순이어야 한다. 배열은 복사하지 않고 그대로 사용한다.
+     */
+    MemberColumns(long[] ids, String[] usernames, int[] ages, long[] teamIds, int size) {
+        this.size = size;
+        this.ids = ids;
+        this.usernames = usernames;
+        this.ages = ages;
+        this.teamIds = teamIds;
+
+        for (int row = 0; row < size; row++) {
+            if (usernames[row] != null) {
+                rowsByUsername.computeIfAbsent(usernames[row], name -> new BitSet()).set(row);
+            }
+            rowsByTeam.computeIfAbsent(teamIds[row], teamId -> new BitSet()).set(row);
+        }
+
+        //(나이, 행 번호)를 long 하나로 묶어 박싱 없이 병렬 정렬한다.
+        long[] ageRows = new long[size];
+        for (int row = 0; row < size; row++) {
+            ageRows[row] = ((long) ages[row] - Integer.MIN_VALUE) << 32 | row;
+        }
+        Arrays.parallelSort(ageRows);
+        this.rowsByAge = new int[size];
+        this.sortedAges = new int[size];
+        for (int i = 0; i < size; i++) {
+            rowsByAge[i] = (int) ageRows[i];
+            sortedAges[i] = (int) ((ageRows[i] >>> 32) + Integer.MIN_VALUE);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    long id(int row) {
+        return ids[row];
+    }
+
+    String username(int row) {
+        return usernames[row];
+    }
+
+    int age(int row) {
+        return ages[row];
+    }
+
+    long teamId(int row) {
+        return teamIds[row];
+    }
+
+    //id 의 행 번호, 없으면 음수
+    int rowOf(long id) {
+        return Arrays.binarySearch(ids, 0, size, id);
+    }
+
+    BitSet all() {
+        BitSet rows = new BitSet(size);
+        rows.set(0, size);
+        return rows;
+    }
+
+    BitSet usernameRows(String username) {
+        BitSet rows = rowsByUsername.get(username);
+        return rows != null ? rows : new BitSet();
+    }
+
+    BitSet teamRows(long teamId) {
+        BitSet rows = rowsByTeam.get(teamId);
+        return rows != null ? rows : new BitSet();
+    }
+
+    /**
+     * goe <= age <= loe 인 행 (null 이면 그쪽 제한 없음)
+     */
+    BitSet ageRows(Integer goe, Integer loe) {
+        int from = goe != null ? lowerBound(goe) : 0;
+        int to = loe != null ? (loe == Integer.MAX_VALUE ? size : lowerBound(loe + 1)) : size;
+        BitSet rows = new BitSet(size);
+        for (int i = from; i < to; i++) {
+            rows.set(rowsByAge[i]);
+        }
+        return rows;
+    }
+
+    //age 이상인 첫 위치
+    private int lowerBound(int age) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedAges[mid] < age) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    //age 범위에 들어가는 행 수 (BitSet 을 만들지 않고 조건 순서를 정할 때 쓴다.)
+    int ageRowCount(Integer goe, Integer loe) {
+        int from = goe != null ? lowerBound(goe) : 0;
+        int to = loe != null ? (loe == Integer.MAX_VALUE ? size : lowerBound(loe + 1)) : size;
+        return Math.max(0, to - from);
+    }
+}
@@ -0,0 +1,673 @@
+package study.querydsl.repository.memory;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.event.MemberBulkWriteInspector;
+import study.querydsl.entity.event.MemberChange;
+import study.querydsl.entity.event.MemberChangeListener;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.MemberRepositoryCustom;
+import study.querydsl.repository.support.QueryPolicies;
+import study.querydsl.repository.support.QueryPolicy;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 회원 검색을 DB 대신 메모리의 컬럼 테이블(MemberColumns)로 처리한다. (member.search.backend=memory 일 때만 등록)
+ * - 애플리케이션 시작 시 member/team 테이블을 스트리밍으로 한번 읽어 만든다.
+ * - 커밋된 Member 변경 이벤트는 id 기준 upsert/delete 로 delta 에 쌓고, delta 가 커지면 컬럼 테이블을 다시 만든다. (compaction)
+ * - username, teamId, teamName, 나이 조건은 BitSet 인덱스의 교집합으로, 이후 변경분(delta)은 직접 비교한다.
+ * - 읽기는 불변 상태(State)를 lock 없이 사용하고, 쓰기는 새 상태를 만들어 교체한다.
+ *
+ * 다음 경우에는 MemberRepository(Querydsl JPA)로 조회한다.
+ * - 로딩 전, 그리고 벌크 SQL 로 username 이 바뀐 뒤 백그라운드 재빌드가 끝나기 전까지
+ * - 하위 팀(teamSubtree), 위치 조건 (메모리에 팀 계층과 좌표를 두지 않는다.)
+ *
+ * 결과 행 수 제한(QueryPolicy.maxRows)은 JPA 구현체와 같은 설정을 따른다.
+ *
+ * 커밋된 변경만 보이므로 같은 트랜잭션에서 저장한 회원은 커밋 전까지 검색되지 않는다.
+ * Team 은 변경 이벤트가 없어 팀 이름 변경은 rebuild() 이후에 반영된다. (새 팀은 처음 조회할 때 이름을 읽어 온다.)
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "member.search.backend", havingValue = "memory")
+public class MemberMemoryRepository implements MemberRepositoryCustom, MemberChangeListener {
+
+    private static final int SCAN_FETCH_SIZE = 1000;
+    //delta 가 이 크기와 (전체 / 32) 중 큰 값을 넘으면 compaction
+    private static final int MIN_COMPACTION_THRESHOLD = 1024;
+    //결과가 이보다 많으면 병렬 스트림으로 정렬/변환한다.
+    private static final int PARALLEL_THRESHOLD = 10_000;
+    private static final Sort DEFAULT_SORT = Sort.by("memberId");
+
+    private final MemberRepository memberRepository;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final MemberBulkWriteInspector bulkWriteInspector;
+
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "member-memory-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private final AtomicLong generation = new AtomicLong();
+
+    //변경 이벤트 반영과 상태 교체
+    private final Object writeLock = new Object();
+    private volatile State state;
+    private volatile boolean stale;
+    //재빌드 중에 받은 변경 (스캔 결과에 다시 반영한다.)
+    private List<MemberChange> changesDuringRebuild;
+
+    public MemberMemoryRepository(MemberRepository memberRepository,
+                                  EntityManager em,
+                                  PlatformTransactionManager transactionManager,
+                                  MemberBulkWriteInspector bulkWriteInspector) {
+        this.memberRepository = memberRepository;
+        this.queryFactory = new JPAQueryFactory(em);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.bulkWriteInspector = bulkWriteInspector;
+    }
+
+    @PostConstruct
+    public void register() {
+        bulkWriteInspector.addListener(this::onBulkWrite);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    public boolean isActive() {
+        return state != null && !stale;
+    }
+
+    @Override
+    @QueryPolicy(timeout = "${member.query-policy.search.timeout:3s}",
+            maxRows = "${member.query-policy.search.max-rows:1000}")
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        View view = view(condition);
+        if (view == null) {
+            return memberRepository.search(condition);
+        }
+        return QueryPolicies.enforce(view.fetch(view.match(condition), DEFAULT_SORT, 0, Integer.MAX_VALUE));
+    }
+
+    /**
+     * MemberRepositoryImpl 과 같이 total 은 현재 페이지의 건수이다.
+     */
+    @Override
+    @QueryPolicy(timeout = "${member.query-policy.page.timeout:3s}",
+            maxRows = "${member.query-policy.page.max-rows:1000}",
+            onExceed = QueryPolicy.OnExceed.ERROR)
+    public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+        View view = view(condition);
+        if (view == null) {
+            return memberRepository.searchPageSimple(condition, pageable);
+        }
+        List<MemberTeamDto> content = QueryPolicies.enforce(view.fetch(view.match(condition), DEFAULT_SORT,
+                pageable.getOffset(), pageable.getPageSize()));
+        return new PageImpl<>(content, pageable, content.size());
+    }
+
+    /**
+     * 정렬 조건이 없으면 memberId 순이다. total 은 조건에 맞는 전체 건수이다.
+     */
+    @Override
+    @QueryPolicy(timeout = "${member.query-policy.page.timeout:3s}",
+            maxRows = "${member.query-policy.page.max-rows:1000}",
+            onExceed = QueryPolicy.OnExceed.ERROR)
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        View view = view(condition);
+        if (view == null) {
+            return memberRepository.searchPageComplex(condition, pageable);
+        }
+        Sort sort = pageable.getSort().isSorted() ? pageable.getSort() : DEFAULT_SORT;
+        int[] hits = view.match(condition);
+        List<MemberTeamDto> content = QueryPolicies.enforce(
+                view.fetch(hits, sort, pageable.getOffset(), pageable.getPageSize()));
+        return new PageImpl<>(content, pageable, hits.length);
+    }
+
+    @Override
+    public boolean exists(MemberSearchCondition condition) {
+        View view = view(condition);
+        if (view == null) {
+            return memberRepository.exists(condition);
+        }
+        return view.exists(condition);
+    }
+
+    @Override
+    @QueryPolicy(timeout = "${member.query-policy.search.timeout:3s}",
+            maxRows = "${member.query-policy.search.max-rows:1000}")
+    public List<Long> distinctTeams(MemberSearchCondition condition) {
+        View view = view(condition);
+        if (view == null) {
+            return memberRepository.distinctTeams(condition);
+        }
+        int[] hits = view.match(condition);
+        Set<Long> teamIds = new TreeSet<>();
+        for (int ref : hits) {
+            Long teamId = view.teamId(ref);
+            if (teamId != null) {
+                teamIds.add(teamId);
+            }
+        }
+        return QueryPolicies.enforce(new ArrayList<>(teamIds));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        long startGeneration = generation.get();
+        synchronized (writeLock) {
+            changesDuringRebuild = new ArrayList<>();
+        }
+
+        State rebuilt;
+        try {
+            rebuilt = transactionTemplate.execute(status -> scan());
+        } catch (RuntimeException e) {
+            synchronized (writeLock) {
+                changesDuringRebuild = null;
+            }
+            throw e;
+        }
+
+        synchronized (writeLock) {
+            //스캔 중에 커밋된 변경은 스캔 결과에 있을 수도 없을 수도 있으므로 다시 반영한다. (id 기준 upsert 라 두번 반영해도 같다.)
+            for (MemberChange change : changesDuringRebuild) {
+                rebuilt = apply(rebuilt, change);
+            }
+            changesDuringRebuild = null;
+            state = rebuilt;
+            if (generation.get() == startGeneration) {
+                stale = false;
+            } else {
+                //스캔 중에 벌크 변경이 있었으면 다시 만든다.
+                scheduleRebuild();
+            }
+        }
+        log.info("Member memory index rebuilt: {} members, {} teams ({}ms)",
+                rebuilt.base.size(), rebuilt.teamNames.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Override
+    public void onMemberChange(MemberChange change) {
+        synchronized (writeLock) {
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(change);
+            }
+            State current = state;
+            if (current != null) {
+                state = apply(current, change);
+            }
+        }
+    }
+
+    private State scan() {
+        int capacity = 1024;
+        long[] ids = new long[capacity];
+        String[] usernames = new String[capacity];
+        int[] ages = new int[capacity];
+        long[] teamIds = new long[capacity];
+        int size = 0;
+
+        try (Stream<Tuple> rows = queryFactory
+                .select(member.id, member.username, member.age, member.team.id)
+                .from(member)
+                .orderBy(member.id.asc())
+                .setHint(QueryHints.READ_ONLY, true)
+                .setHint(QueryHints.FETCH_SIZE, SCAN_FETCH_SIZE)
+                .stream()) {
+            for (Tuple row : (Iterable<Tuple>) rows::iterator) {
+                if (size == capacity) {
+                    capacity *= 2;
+                    ids = Arrays.copyOf(ids, capacity);
+                    usernames = Arrays.copyOf(usernames, capacity);
+                    ages = Arrays.copyOf(ages, capacity);
+                    teamIds = Arrays.copyOf(teamIds, capacity);
+                }
+                Long teamId = row.get(member.team.id);
+                ids[size] = row.get(member.id);
+                usernames[size] = row.get(member.username);
+                ages[size] = row.get(member.age);
+                teamIds[size] = teamId != null ? teamId : MemberColumns.NO_TEAM;
+                size++;
+            }
+        }
+
+        Map<Long, String> teamNames = new HashMap<>();
+        for (Tuple row : queryFactory.select(team.id, team.name).from(team).fetch()) {
+            teamNames.put(row.get(team.id), row.get(team.name));
+        }
+        MemberColumns base = new MemberColumns(ids, usernames, ages, teamIds, size);
+        return new State(base, new HashMap<>(), new BitSet(), teamNames, new HashSet<>());
+    }
+
+    /**
+     * change 를 반영한 새 상태 (current 는 바꾸지 않는다.)
+     */
+    private static State apply(State current, MemberChange change) {
+        Map<Long, Row> delta = new HashMap<>(current.delta);
+        BitSet shadowed = (BitSet) current.shadowed.clone();
+        Set<Long> unresolvedTeams = current.unresolvedTeams;
+
+        int baseRow = current.base.rowOf(change.getMemberId());
+        if (baseRow >= 0) {
+            shadowed.set(baseRow);
+        }
+        if (change.getType() == MemberChange.Type.DELETE) {
+            //null 은 삭제된 회원
+            delta.put(change.getMemberId(), null);
+        } else {
+            delta.put(change.getMemberId(),
+                    new Row(change.getMemberId(), change.getUsername(), change.getAge(), change.getTeamId()));
+            if (change.getTeamId() != null && !current.teamNames.containsKey(change.getTeamId())
+                    && !unresolvedTeams.contains(change.getTeamId())) {
+                unresolvedTeams = new HashSet<>(unresolvedTeams);
+                unresolvedTeams.add(change.getTeamId());
+            }
+        }
+
+        State next = new State(current.base, delta, shadowed, current.teamNames, unresolvedTeams);
+        return delta.size() > Math.max(MIN_COMPACTION_THRESHOLD, current.base.size() / 32) ? compact(next) : next;
+    }
+
+    /**
+     * 가려진 행을 빼고 delta 를 합쳐 컬럼 테이블을 다시 만든다. (id 순 병합)
+     */
+    private static State compact(State current) {
+        MemberColumns base = current.base;
+        List<Row> upserts = current.delta.values().stream()
+                .filter(Objects::nonNull)
+                .sorted(Comparator.comparingLong(row -> row.id))
+                .collect(Collectors.toList());
+
+        int capacity = base.size() - current.shadowed.cardinality() + upserts.size();
+        long[] ids = new long[capacity];
+        String[] usernames = new String[capacity];
+        int[] ages = new int[capacity];
+        long[] teamIds = new long[capacity];
+
+        int size = 0;
+        int row = current.shadowed.nextClearBit(0);
+        int next = 0;
+        while (row < base.size() || next < upserts.size()) {
+            boolean takeBase = row < base.size()
+                    && (next == upserts.size() || base.id(row) < upserts.get(next).id);
+            if (takeBase) {
+                ids[size] = base.id(row);
+                usernames[size] = base.username(row);
+                ages[size] = base.age(row);
+                teamIds[size] = base.teamId(row);
+                row = current.shadowed.nextClearBit(row + 1);
+            } else {
+                Row upsert = upserts.get(next++);
+                ids[size] = upsert.id;
+                usernames[size] = upsert.username;
+                ages[size] = upsert.age;
+                teamIds[size] = upsert.teamId != null ? upsert.teamId : MemberColumns.NO_TEAM;
+            }
+            size++;
+        }
+        return new State(new MemberColumns(ids, usernames, ages, teamIds, size),
+                new HashMap<>(), new BitSet(), current.teamNames, current.unresolvedTeams);
+    }
+
+    //메모리로 처리할 수 없으면 null
+    private View view(MemberSearchCondition condition) {
+        State current = state;
+        if (current == null || stale || condition.getTeamSubtree() != null || hasGeoCondition(condition)) {
+            return null;
+        }
+        if (!current.unresolvedTeams.isEmpty()) {
+            current = resolveTeams();
+        }
+        return new View(current);
+    }
+
+    private static boolean hasGeoCondition(MemberSearchCondition condition) {
+        return condition.getLatitude() != null || condition.getLongitude() != null || condition.getRadiusMeters() != null
+                || condition.getMinLatitude() != null || condition.getMaxLatitude() != null
+                || condition.getMinLongitude() != null || condition.getMaxLongitude() != null;
+    }
+
+    //변경 이벤트로 처음 본 팀의 이름을 읽어 온다.
+    private State resolveTeams() {
+        Set<Long> teamIds = new HashSet<>(state.unresolvedTeams);
+        if (teamIds.isEmpty()) {
+            return state;
+        }
+        List<Tuple> rows = queryFactory
+                .select(team.id, team.name)
+                .from(team)
+                .where(team.id.in(teamIds))
+                .fetch();
+        synchronized (writeLock) {
+            State current = state;
+            Map<Long, String> teamNames = new HashMap<>(current.teamNames);
+            rows.forEach(row -> teamNames.put(row.get(team.id), row.get(team.name)));
+            Set<Long> unresolvedTeams = new HashSet<>(current.unresolvedTeams);
+            unresolvedTeams.removeAll(teamIds);
+            state = new State(current.base, current.delta, current.shadowed, teamNames, unresolvedTeams);
+            return state;
+        }
+    }
+
+    private void onBulkWrite() {
+        stale = true;
+        generation.incrementAndGet();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            //커밋 전에 시작된 재빌드는 아직 보이지 않는 변경을 놓치므로, 트랜잭션이 끝난 뒤 다시 만든다.
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    generation.incrementAndGet();
+                    scheduleRebuild();
+                }
+            });
+        } else {
+            scheduleRebuild();
+        }
+    }
+
+    private void scheduleRebuild() {
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            rebuildExecutor.execute(() -> {
+                rebuildScheduled.set(false);
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    log.error("Member memory index rebuild failed; searches fall back to JPA until the next rebuild", e);
+                }
+            });
+        }
+    }
+
+    /**
+     * 불변 상태
+     * base 의 shadowed 행은 delta 의 값(null 이면 삭제)이 대신한다.
+     */
+    private static class State {
+        private final MemberColumns base;
+        private final Map<Long, Row> delta;
+        private final BitSet shadowed;
+        private final Map<Long, String> teamNames;
+        private final Set<Long> unresolvedTeams;
+
+        State(MemberColumns base, Map<Long, Row> delta, BitSet shadowed,
+              Map<Long, String> teamNames, Set<Long> unresolvedTeams) {
+            this.base = base;
+            this.delta = delta;
+            this.shadowed = shadowed;
+            this.teamNames = teamNames;
+            this.unresolvedTeams = unresolvedTeams;
+        }
+    }
+
+    private static class Row {
+        private final long id;
+        private final String username;
+        private final int age;
+        private final Long teamId;
+
+        Row(long id, String username, int age, Long teamId) {
+            this.id = id;
+            this.username = username;
+            this.age = age;
+            this.teamId = teamId;
+        }
+    }
+
+    /**
+     * 한 번의 조회가 보는 상태
+     * 결과 행은 int 로 가리킨다. 0 이상이면 base 의 행 번호, 음수면 deltaRows[~ref] 이다.
+     */
+    private static class View {
+        private final MemberColumns base;
+        private final BitSet shadowed;
+        private final Row[] deltaRows;
+        private final Map<Long, String> teamNames;
+
+        View(State state) {
+            this.base = state.base;
+            this.shadowed = state.shadowed;
+            this.deltaRows = state.delta.values().stream().filter(Objects::nonNull).toArray(Row[]::new);
+            this.teamNames = state.teamNames;
+        }
+
+        int[] match(MemberSearchCondition condition) {
+            Set<Long> teamIdsByName = teamIdsByName(condition.getTeamName());
+            BitSet rows = baseRows(condition, teamIdsByName);
+            int[] hits = new int[rows.cardinality() + deltaRows.length];
+            int count = 0;
+            for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+                hits[count++] = row;
+            }
+            for (int i = 0; i < deltaRows.length; i++) {
+                if (matches(deltaRows[i], condition, teamIdsByName)) {
+                    hits[count++] = ~i;
+                }
+            }
+            return Arrays.copyOf(hits, count);
+        }
+
+        boolean exists(MemberSearchCondition condition) {
+            Set<Long> teamIdsByName = teamIdsByName(condition.getTeamName());
+            if (!baseRows(condition, teamIdsByName).isEmpty()) {
+                return true;
+            }
+            for (Row row : deltaRows) {
+                if (matches(row, condition, teamIdsByName)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * 인덱스 BitSet 중 가장 작은 것을 복사해 나머지와 교집합을 구한다.
+         */
+        private BitSet baseRows(MemberSearchCondition condition, Set<Long> teamIdsByName) {
+            List<BitSet> filters = new ArrayList<>(4);
+            if (hasText(condition.getUsername())) {
+                filters.add(base.usernameRows(condition.getUsername()));
+            }
+            if (condition.getTeamId() != null) {
+                filters.add(base.teamRows(condition.getTeamId()));
+            }
+            if (teamIdsByName != null) {
+                BitSet rows = new BitSet();
+                teamIdsByName.forEach(teamId -> rows.or(base.teamRows(teamId)));
+                filters.add(rows);
+            }
+            if (condition.getAgeGoe() != null || condition.getAgeLoe() != null) {
+                filters.add(base.ageRows(condition.getAgeGoe(), condition.getAgeLoe()));
+            }
+
+            filters.sort(Comparator.comparingInt(BitSet::cardinality));
+            BitSet rows = filters.isEmpty() ? base.all() : (BitSet) filters.get(0).clone();
+            for (int i = 1; i < filters.size() && !rows.isEmpty(); i++) {
+                rows.and(filters.get(i));
+            }
+            rows.andNot(shadowed);
+            return rows;
+        }
+
+        private static boolean matches(Row row, MemberSearchCondition condition, Set<Long> teamIdsByName) {
+            return (!hasText(condition.getUsername()) || condition.getUsername().equals(row.username))
+                    && (condition.getTeamId() == null || condition.getTeamId().equals(row.teamId))
+                    && (teamIdsByName == null || (row.teamId != null && teamIdsByName.contains(row.teamId)))
+                    && (condition.getAgeGoe() == null || row.age >= condition.getAgeGoe())
+                    && (condition.getAgeLoe() == null || row.age <= condition.getAgeLoe());
+        }
+
+        //teamName 조건이 없으면 null
+        private Set<Long> teamIdsByName(String teamName) {
+            if (!hasText(teamName)) {
+                return null;
+            }
+            Set<Long> teamIds = new HashSet<>();
+            teamNames.forEach((teamId, name) -> {
+                if (teamName.equals(name)) {
+                    teamIds.add(teamId);
+                }
+            });
+            return teamIds;
+        }
+
+        /**
+         * hits 를 정렬해 offset 부터 limit 건만 DTO 로 만든다.
+         * memberId 오름차순은 base 행 순서와 같으므로 delta 결과가 없으면 정렬하지 않는다.
+         */
+        List<MemberTeamDto> fetch(int[] hits, Sort sort, long offset, int limit) {
+            if (offset >= hits.length) {
+                return new ArrayList<>();
+            }
+            boolean parallel = hits.length >= PARALLEL_THRESHOLD;
+            int[] sorted = hits;
+            boolean baseOrder = sort.equals(DEFAULT_SORT) && (hits.length == 0 || hits[hits.length - 1] >= 0);
+            if (!baseOrder) {
+                IntStream refs = parallel ? IntStream.of(hits).parallel() : IntStream.of(hits);
+                sorted = refs.boxed()
+                        .sorted(comparator(sort))
+                        .mapToInt(Integer::intValue)
+                        .toArray();
+            }
+
+            int from = (int) offset;
+            int to = (int) Math.min(sorted.length, offset + limit);
+            int[] pageRefs = Arrays.copyOfRange(sorted, from, to);
+            return (parallel && to - from >= PARALLEL_THRESHOLD ? IntStream.of(pageRefs).parallel() : IntStream.of(pageRefs))
+                    .mapToObj(this::toDto)
+                    .collect(Collectors.toList());
+        }
+
+        private MemberTeamDto toDto(int ref) {
+            Long teamId = teamId(ref);
+            return new MemberTeamDto(id(ref), username(ref), age(ref), teamId,
+                    teamId != null ? teamNames.get(teamId) : null);
+        }
+
+        long id(int ref) {
+            return ref >= 0 ? base.id(ref) : deltaRows[~ref].id;
+        }
+
+        String username(int ref) {
+            return ref >= 0 ? base.username(ref) : deltaRows[~ref].username;
+        }
+
+        int age(int ref) {
+            return ref >= 0 ? base.age(ref) : deltaRows[~ref].age;
+        }
+
+        Long teamId(int ref) {
+            if (ref < 0) {
+                return deltaRows[~ref].teamId;
+            }
+            long teamId = base.teamId(ref);
+            return teamId != MemberColumns.NO_TEAM ? teamId : null;
+        }
+
+        private String teamName(int ref) {
+            Long teamId = teamId(ref);
+            return teamId != null ? teamNames.get(teamId) : null;
+        }
+
+        /**
+         * ShardedMemberQueryExecutor 와 같이 null 은 오름차순에서 먼저 온다. 마지막은 memberId 순이다.
+         */
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        private Comparator<Integer> comparator(Sort sort) {
+            Comparator<Integer> comparator = null;
+            for (Sort.Order order : sort) {
+                IntFunction<Comparable> key = sortKey(order.getProperty());
+                Comparator<Integer> next = (a, b) -> compareNullsFirst(key.apply(a), key.apply(b));
+                if (order.isDescending()) {
+                    next = next.reversed();
+                }
+                comparator = comparator == null ? next : comparator.thenComparing(next);
+            }
+            Comparator<Integer> byId = Comparator.comparingLong(this::id);
+            return comparator == null ? byId : comparator.thenComparing(byId);
+        }
+
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        private static int compareNullsFirst(Comparable a, Comparable b) {
+            if (a == b) {
+                return 0;
+            }
+            if (a == null) {
+                return -1;
+            }
+            if (b == null) {
+                return 1;
+            }
+            return a.compareTo(b);
+        }
+
+        @SuppressWarnings("rawtypes")
+        private IntFunction<Comparable> sortKey(String property) {
+            switch (property) {
+                case "memberId":
+                    return this::id;
+                case "username":
+                    return this::username;
+                case "age":
+                    return this::age;
+                case "teamId":
+                    return this::teamId;
+                case "teamName":
+                    return this::teamName;
+                default:
+                    throw new IllegalArgumentException("Unsupported sort property: " + property);
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package study.querydsl.repository.shard;
+
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.util.OptionalInt;
+
+/**
+ * 검색 조건으로 조회할 샤드를 결정한다.
+ * 조건이 하나의 팀으로 고정되지 않으면 empty 를 반환하고, 이 경우 모든 샤드에 scatter 한다.
+ */
+@FunctionalInterface
+public interface MemberShardRouter {
+    OptionalInt route(MemberSearchCondition condition);
+}
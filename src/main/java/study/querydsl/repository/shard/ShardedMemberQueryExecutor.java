@@ -0,0 +1,338 @@
+package study.querydsl.repository.shard;
+
+import com.querydsl.core.types.Order;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.repository.support.MemberPredicates;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.repository.support.TeamSubtreeJoin.joinTeamSubtree;
+
+/**
+ * Member/Team 데이터를 팀 단위로 나누어 저장한 여러 데이터소스(샤드)를 조회한다.
+ * 조건이 하나의 팀으로 고정되면 해당 샤드에서만 조회하고, 아니면 모든 샤드에 병렬로 조회(scatter)한 뒤 병합(gather)한다.
+ *
+ * 페이징 병합 - 각 샤드는 Pageable 정렬 순서로 offset + pageSize 건까지만 반환하고,
+ * 정렬된 결과를 k-way 병합한 뒤 전역 offset/limit 을 적용한다. count 는 샤드별 count 의 합이다.
+ * 정렬 조건이 없으면 memberId 순으로, 있으면 마지막에 memberId 를 더해 페이지 경계가 흔들리지 않게 한다.
+ *
+ * id 는 모든 샤드에서 유일해야 한다. 샤드마다 시퀀스를 따로 쓰면 같은 team_id 가 여러 샤드에 생겨
+ * team_id 로 라우팅한 조회가 다른 팀을 읽고, 병합 결과에 같은 memberId 가 섞인다.
+ * (예: TeamIdShardRouter 로 n 개 샤드를 쓰면 i 번 샤드의 시퀀스를 n + i 부터 n 씩 증가시킨다.)
+ * 시작할 때 validateTeamPlacement() 로 팀이 라우팅되는 샤드에 있는지 확인한다.
+ */
+public class ShardedMemberQueryExecutor {
+
+    private static final Sort DEFAULT_SORT = Sort.by("memberId");
+
+    private static final Map<String, ComparableExpressionBase<?>> SORT_PATHS = Map.of(
+            "memberId", member.id,
+            "username", member.username,
+            "age", member.age,
+            "teamId", team.id,
+            "teamName", team.name
+    );
+
+    private static final Map<String, Function<MemberTeamDto, Comparable>> SORT_KEYS = Map.of(
+            "memberId", MemberTeamDto::getMemberId,
+            "username", MemberTeamDto::getUsername,
+            "age", MemberTeamDto::getAge,
+            "teamId", MemberTeamDto::getTeamId,
+            "teamName", MemberTeamDto::getTeamName
+    );
+
+    private final List<EntityManagerFactory> shards;
+    private final MemberShardRouter router;
+    private final Executor executor;
+
+    public ShardedMemberQueryExecutor(List<EntityManagerFactory> shards, MemberShardRouter router, Executor executor) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.shards = List.copyOf(shards);
+        this.router = router;
+        this.executor = executor;
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        OptionalInt shard = route(condition);
+        if (shard.isPresent()) {
+            return execute(shard.getAsInt(), queryFactory -> contentQuery(queryFactory, condition).fetch());
+        }
+        return scatter(queryFactory -> contentQuery(queryFactory, condition).fetch()).stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+    }
+
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        Sort sort = withTieBreaker(pageable.getSort().isSorted() ? pageable.getSort() : DEFAULT_SORT);
+
+        OptionalInt shard = route(condition);
+        if (shard.isPresent()) {
+            return execute(shard.getAsInt(), queryFactory -> {
+                List<MemberTeamDto> content = contentQuery(queryFactory, condition)
+                        .orderBy(orderSpecifiers(sort))
+                        .offset(pageable.getOffset())
+                        .limit(pageable.getPageSize())
+                        .fetch();
+                JPAQuery<Long> countQuery = countQuery(queryFactory, condition);
+                return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
+            });
+        }
+
+        //샤드마다 전역 페이지에 들어갈 수 있는 최대 건수(offset + pageSize)만 가져온다.
+        long window = pageable.getOffset() + pageable.getPageSize();
+        List<ShardPage> shardPages = scatter(queryFactory -> {
+            List<MemberTeamDto> content = contentQuery(queryFactory, condition)
+                    .orderBy(orderSpecifiers(sort))
+                    .limit(window)
+                    .fetch();
+            //샤드의 결과가 window 보다 작으면 전체 건수를 이미 알고 있으므로 count 쿼리를 생략한다.
+            long total = content.size() < window ? content.size() : countQuery(queryFactory, condition).fetchOne();
+            return new ShardPage(content, total);
+        });
+
+        List<MemberTeamDto> content = merge(shardPages, comparator(sort), pageable.getOffset(), pageable.getPageSize());
+        long total = shardPages.stream().mapToLong(ShardPage::getTotal).sum();
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    /**
+     * username, age, team 처럼 중복되는 키로 정렬하면 같은 키끼리의 순서가 실행마다 달라질 수 있어
+     * 페이지 경계에서 행이 중복되거나 빠진다. 샤드 쿼리와 병합 모두 마지막에 memberId 로 정렬한다.
+     */
+    static Sort withTieBreaker(Sort sort) {
+        return sort.getOrderFor("memberId") != null ? sort : sort.and(DEFAULT_SORT);
+    }
+
+    /**
+     * 각 샤드의 팀이 router 가 고르는 샤드에 저장되어 있는지 확인한다.
+     * 같은 team_id 가 두 샤드에 있으면 둘 중 하나는 반드시 실패한다.
+     */
+    public void validateTeamPlacement() {
+        for (int i = 0; i < shards.size(); i++) {
+            int shard = i;
+            List<Long> teamIds = execute(shard, queryFactory -> queryFactory.select(team.id).from(team).fetch());
+            for (Long teamId : teamIds) {
+                MemberSearchCondition condition = new MemberSearchCondition();
+                condition.setTeamId(teamId);
+                OptionalInt routed = route(condition);
+                if (routed.isPresent() && routed.getAsInt() != shard) {
+                    throw new IllegalStateException("Team " + teamId + " is stored in shard " + shard
+                            + " but routed to shard " + routed.getAsInt());
+                }
+            }
+        }
+    }
+
+    private OptionalInt route(MemberSearchCondition condition) {
+        OptionalInt shard = router.route(condition);
+        if (shard.isPresent() && (shard.getAsInt() < 0 || shard.getAsInt() >= shards.size())) {
+            throw new IllegalStateException("Router returned unknown shard " + shard.getAsInt() + " of " + shards.size());
+        }
+        return shard;
+    }
+
+    private <R> R execute(int shard, Function<JPAQueryFactory, R> work) {
+        EntityManager em = shards.get(shard).createEntityManager();
+        try {
+            return work.apply(new JPAQueryFactory(em));
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * 한 샤드라도 실패하면 나머지 작업을 취소한다.
+     * executor 에 FutureTask 를 직접 넘기므로 아직 시작하지 않은 작업은 실행되지 않고,
+     * 실행 중인 작업은 스레드가 인터럽트된다.
+     */
+    private <R> List<R> scatter(Function<JPAQueryFactory, R> work) {
+        List<FutureTask<R>> tasks = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            int shard = i;
+            FutureTask<R> task = new FutureTask<>(() -> execute(shard, work));
+            tasks.add(task);
+            executor.execute(task);
+        }
+        try {
+            List<R> results = new ArrayList<>(tasks.size());
+            for (FutureTask<R> task : tasks) {
+                results.add(task.get());
+            }
+            return results;
+        } catch (ExecutionException e) {
+            tasks.forEach(task -> task.cancel(true));
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            tasks.forEach(task -> task.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for shard queries", e);
+        }
+    }
+
+    static List<MemberTeamDto> merge(List<ShardPage> shardPages, Comparator<MemberTeamDto> comparator, long offset, int limit) {
+        PriorityQueue<Cursor> queue = new PriorityQueue<>(
+                Comparator.comparing((Cursor cursor) -> cursor.current, comparator)
+                        .thenComparingInt(cursor -> cursor.shard));
+        for (int i = 0; i < shardPages.size(); i++) {
+            Iterator<MemberTeamDto> iterator = shardPages.get(i).getContent().iterator();
+            if (iterator.hasNext()) {
+                queue.add(new Cursor(i, iterator));
+            }
+        }
+
+        List<MemberTeamDto> result = new ArrayList<>(limit);
+        long skipped = 0;
+        while (!queue.isEmpty() && result.size() < limit) {
+            Cursor cursor = queue.poll();
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                result.add(cursor.current);
+            }
+            if (cursor.advance()) {
+                queue.add(cursor);
+            }
+        }
+        return result;
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static OrderSpecifier[] orderSpecifiers(Sort sort) {
+        return sort.stream()
+                .map(order -> new OrderSpecifier(order.isAscending() ? Order.ASC : Order.DESC, sortPath(order.getProperty())))
+                .toArray(OrderSpecifier[]::new);
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    static Comparator<MemberTeamDto> comparator(Sort sort) {
+        Comparator<MemberTeamDto> comparator = null;
+        for (Sort.Order order : sort) {
+            sortPath(order.getProperty());
+            Function<MemberTeamDto, Comparable> key = SORT_KEYS.get(order.getProperty());
+            Comparator<MemberTeamDto> next = (a, b) -> compareNullsFirst(key.apply(a), key.apply(b));
+            if (order.isDescending()) {
+                next = next.reversed();
+            }
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        return comparator;
+    }
+
+    //H2 의 기본 null 정렬(ASC 에서 null 이 먼저)과 맞춘다.
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static int compareNullsFirst(Comparable a, Comparable b) {
+        if (a == b) {
+            return 0;
+        }
+        if (a == null) {
+            return -1;
+        }
+        if (b == null) {
+            return 1;
+        }
+        return a.compareTo(b);
+    }
+
+    private static ComparableExpressionBase<?> sortPath(String property) {
+        ComparableExpressionBase<?> path = SORT_PATHS.get(property);
+        if (path == null) {
+            throw new IllegalArgumentException("Unsupported sort property: " + property);
+        }
+        return path;
+    }
+
+    private JPAQuery<MemberTeamDto> contentQuery(JPAQueryFactory queryFactory, MemberSearchCondition condition) {
+        return joinTeamSubtree(queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")
+                ))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(MemberPredicates.whereOf(condition)), condition.getTeamSubtree());
+    }
+
+    private JPAQuery<Long> countQuery(JPAQueryFactory queryFactory, MemberSearchCondition condition) {
+        return joinTeamSubtree(queryFactory
+                .select(member.count())
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(MemberPredicates.whereOf(condition)), condition.getTeamSubtree());
+    }
+
+    static class ShardPage {
+        private final List<MemberTeamDto> content;
+        private final long total;
+
+        ShardPage(List<MemberTeamDto> content, long total) {
+            this.content = content;
+            this.total = total;
+        }
+
+        List<MemberTeamDto> getContent() {
+            return content;
+        }
+
+        long getTotal() {
+            return total;
+        }
+    }
+
+    private static class Cursor {
+        private final int shard;
+        private final Iterator<MemberTeamDto> iterator;
+        private MemberTeamDto current;
+
+        Cursor(int shard, Iterator<MemberTeamDto> iterator) {
+            this.shard = shard;
+            this.iterator = iterator;
+            this.current = iterator.next();
+        }
+
+        boolean advance() {
+            if (!iterator.hasNext()) {
+                return false;
+            }
+            current = iterator.next();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package study.querydsl.repository.shard;
+
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.util.OptionalInt;
+
+/**
+ * team_id 기준 모듈러 샤딩
+ */
+public class TeamIdShardRouter implements MemberShardRouter {
+
+    private final int shardCount;
+
+    public TeamIdShardRouter(int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("shardCount must be positive: " + shardCount);
+        }
+        this.shardCount = shardCount;
+    }
+
+    @Override
+    public OptionalInt route(MemberSearchCondition condition) {
+        Long teamId = condition.getTeamId();
+        if (teamId == null) {
+            return OptionalInt.empty();
+        }
+        return OptionalInt.of((int) Math.floorMod(teamId, (long) shardCount));
+    }
+}
@@ -0,0 +1,51 @@
+package study.querydsl.repository.support;
+
+/**
+ * Querydsl4RepositorySupport.forEachChunk() 옵션
+ * chunkSize - 한번에 읽는 엔티티 수
+ * maxManagedEntities - 영속성 컨텍스트에 남겨 둘 수 있는 엔티티 수. 청크 처리 후 이 값 이상이면 flush/clear 한다. (기본 chunkSize)
+ * stateless - StatelessSession 으로 읽는다. 영속성 컨텍스트 없이 읽으므로 메모리는 청크 크기만큼만 쓰지만,
+ *             변경 감지와 지연 로딩이 없고 현재 트랜잭션과 다른 커넥션에서 읽는다. (커밋되지 않은 변경은 보이지 않는다.)
+ */
+public class ChunkOptions {
+
+    private final int chunkSize;
+    private final int maxManagedEntities;
+    private final boolean stateless;
+
+    private ChunkOptions(int chunkSize, int maxManagedEntities, boolean stateless) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        if (maxManagedEntities <= 0) {
+            throw new IllegalArgumentException("maxManagedEntities must be positive: " + maxManagedEntities);
+        }
+        this.chunkSize = chunkSize;
+        this.maxManagedEntities = maxManagedEntities;
+        this.stateless = stateless;
+    }
+
+    public static ChunkOptions of(int chunkSize) {
+        return new ChunkOptions(chunkSize, chunkSize, false);
+    }
+
+    public ChunkOptions maxManagedEntities(int maxManagedEntities) {
+        return new ChunkOptions(chunkSize, maxManagedEntities, stateless);
+    }
+
+    public ChunkOptions stateless() {
+        return new ChunkOptions(chunkSize, maxManagedEntities, true);
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public int getMaxManagedEntities() {
+        return maxManagedEntities;
+    }
+
+    public boolean isStateless() {
+        return stateless;
+    }
+}
@@ -0,0 +1,25 @@
+package study.querydsl.repository.support;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * forEachChunk() 실행 결과
+ * peakManagedEntities - 청크 처리 직후 영속성 컨텍스트의 엔티티 수 중 최대값 (stateless 는 0)
+ */
+@Getter
+@ToString
+public class ChunkStats {
+
+    private final int chunks;
+    private final long rows;
+    private final int clears;
+    private final int peakManagedEntities;
+
+    public ChunkStats(int chunks, long rows, int clears, int peakManagedEntities) {
+        this.chunks = chunks;
+        this.rows = rows;
+        this.clears = clears;
+        this.peakManagedEntities = peakManagedEntities;
+    }
+}
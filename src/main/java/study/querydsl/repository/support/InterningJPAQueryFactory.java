@@ -0,0 +1,44 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import javax.persistence.EntityManager;
+
+/**
+ * 만드는 JPAQuery 가 JpqlCache 로 JPQL 직렬화를 재사용하는 JPAQueryFactory
+ * select/selectFrom/from 으로 시작하는 조회 쿼리에만 적용된다. (update/delete/insert 는 그대로)
+ */
+public class InterningJPAQueryFactory extends JPAQueryFactory {
+
+    private final EntityManager em;
+    private final JpqlCache jpqlCache;
+
+    public InterningJPAQueryFactory(EntityManager em, JpqlCache jpqlCache) {
+        super(em);
+        this.em = em;
+        this.jpqlCache = jpqlCache;
+    }
+
+    @Override
+    public JPAQuery<?> query() {
+        return new InterningJPAQuery<Void>(em, jpqlCache);
+    }
+
+    private static class InterningJPAQuery<T> extends JPAQuery<T> {
+
+        private final JpqlCache jpqlCache;
+
+        InterningJPAQuery(EntityManager em, JpqlCache jpqlCache) {
+            super(em);
+            this.jpqlCache = jpqlCache;
+        }
+
+        @Override
+        protected JPQLSerializer serialize(boolean forCountRow) {
+            return jpqlCache.serialize(getMetadata(), forCountRow, getTemplates(), entityManager,
+                    () -> super.serialize(forCountRow));
+        }
+    }
+}
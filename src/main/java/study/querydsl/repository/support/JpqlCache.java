@@ -0,0 +1,109 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.JPQLTemplates;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 쿼리 모양별로 직렬화한 JPQL 을 재사용한다.
+ * 키는 JPQL 에 영향을 주는 메타데이터(projection, join, where, group by, having, order by, flag, distinct)와 count 여부다.
+ * offset/limit 과 Param 값은 JPQL 문자열에 들어가지 않으므로 키에서 빠진다.
+ * 값을 상수로 넣은 쿼리(Param 이 아닌 상수가 있는 쿼리)는 값마다 모양이 달라지므로 캐시하지 않는다.
+ * 캐시가 maxSize 에 도달하면 더 이상 넣지 않고 매번 직렬화한다.
+ */
+public class JpqlCache {
+
+    private final int maxSize;
+    private final ConcurrentMap<List<Object>, InternedSerializer> cache = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public JpqlCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    JPQLSerializer serialize(QueryMetadata metadata, boolean forCountRow, JPQLTemplates templates, EntityManager em,
+                             Supplier<JPQLSerializer> serializer) {
+        List<Object> key = Arrays.asList(
+                metadata.getProjection(),
+                List.copyOf(metadata.getJoins()),
+                metadata.getWhere(),
+                List.copyOf(metadata.getGroupBy()),
+                metadata.getHaving(),
+                List.copyOf(metadata.getOrderBy()),
+                Set.copyOf(metadata.getFlags()),
+                metadata.isDistinct(),
+                forCountRow);
+        InternedSerializer interned = cache.get(key);
+        if (interned != null) {
+            hits.incrementAndGet();
+            return interned;
+        }
+        misses.incrementAndGet();
+        JPQLSerializer serialized = serializer.get();
+        if (!onlyParams(serialized.getConstants()) || cache.size() >= maxSize) {
+            return serialized;
+        }
+        interned = new InternedSerializer(templates, em, serialized.toString(), serialized.getConstants());
+        InternedSerializer existing = cache.putIfAbsent(key, interned);
+        return existing != null ? existing : interned;
+    }
+
+    private static boolean onlyParams(List<Object> constants) {
+        for (Object constant : constants) {
+            if (!(constant instanceof ParamExpression)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * 직렬화가 끝난 JPQL 과 상수 목록만 가진다. 다시 serialize 하지 않으므로 여러 스레드가 같이 사용해도 된다.
+     */
+    private static class InternedSerializer extends JPQLSerializer {
+
+        private final String jpql;
+        private final List<Object> constants;
+
+        InternedSerializer(JPQLTemplates templates, EntityManager em, String jpql, List<Object> constants) {
+            super(templates, em);
+            this.jpql = jpql;
+            this.constants = Collections.unmodifiableList(new ArrayList<>(constants));
+        }
+
+        @Override
+        public List<Object> getConstants() {
+            return constants;
+        }
+
+        @Override
+        public String toString() {
+            return jpql;
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.geo.GeoFilter;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.entity.QTeamClosure.teamClosure;
+
+/**
+ * MemberSearchCondition 의 동적 조건 (리포지토리마다 복사되어 있던 usernameEq, teamNameEq, ageGoe, ageLoe ...)
+ * 값 대신 Param 으로 만든 식을 조건 조합(모양)별로 미리 만들어 두고, 호출할 때는 Param 값만 바인딩한다.
+ * - 호출마다 BooleanExpression 트리를 새로 만들지 않는다.
+ * - 같은 모양이면 JPQL 이 같으므로 queryFactory() 가 만든 쿼리는 직렬화 결과를 재사용한다. (JpqlCache)
+ *
+ * teamName 조건은 team 별칭을 사용하므로 member.team 을 team 으로 조인한 쿼리에만 적용한다.
+ *
+ * 위치 조건(GeoFilter)은 geohash 셀 범위 수(1 ~ 4)와 반경 여부에 따라 모양이 나뉜다.
+ * 셀 범위가 4개보다 적을 때 남는 Param 을 빈 범위로 채우지 않고 범위 수별로 where 를 따로 만들어,
+ * 범위가 하나일 때는 geohash 인덱스 범위 스캔 하나가 되게 한다.
+ */
+@Component
+public class MemberPredicates {
+
+    public static final Param<String> USERNAME = new Param<>(String.class, "username");
+    public static final Param<String> TEAM_NAME = new Param<>(String.class, "teamName");
+    public static final Param<Long> TEAM_ID = new Param<>(Long.class, "teamId");
+    public static final Param<Long> TEAM_SUBTREE = new Param<>(Long.class, "teamSubtree");
+    public static final Param<Integer> AGE_GOE = new Param<>(Integer.class, "ageGoe");
+    public static final Param<Integer> AGE_LOE = new Param<>(Integer.class, "ageLoe");
+    public static final Param<Double> GEO_MIN_LAT = new Param<>(Double.class, "geoMinLat");
+    public static final Param<Double> GEO_MAX_LAT = new Param<>(Double.class, "geoMaxLat");
+    public static final Param<Double> GEO_MIN_LON = new Param<>(Double.class, "geoMinLon");
+    public static final Param<Double> GEO_MAX_LON = new Param<>(Double.class, "geoMaxLon");
+    public static final Param<Double> GEO_CENTER_LAT = new Param<>(Double.class, "geoCenterLat");
+    public static final Param<Double> GEO_CENTER_LON = new Param<>(Double.class, "geoCenterLon");
+    public static final Param<Double> GEO_COS_CENTER_LAT = new Param<>(Double.class, "geoCosCenterLat");
+    public static final Param<Double> GEO_MAX_HAVERSINE = new Param<>(Double.class, "geoMaxHaversine");
+    private static final int MAX_CELL_RANGES = 4;
+    @SuppressWarnings("unchecked")
+    private static final Param<String>[] GEO_CELL_FROM = new Param[MAX_CELL_RANGES];
+    @SuppressWarnings("unchecked")
+    private static final Param<String>[] GEO_CELL_TO = new Param[MAX_CELL_RANGES];
+
+    static {
+        for (int i = 0; i < MAX_CELL_RANGES; i++) {
+            GEO_CELL_FROM[i] = new Param<>(String.class, "geoCellFrom" + i);
+            GEO_CELL_TO[i] = new Param<>(String.class, "geoCellTo" + i);
+        }
+    }
+
+    private static final int USERNAME_BIT = 1;
+    private static final int TEAM_NAME_BIT = 1 << 1;
+    private static final int TEAM_ID_BIT = 1 << 2;
+    private static final int AGE_GOE_BIT = 1 << 3;
+    private static final int AGE_LOE_BIT = 1 << 4;
+
+    //비트 순서와 같다.
+    private static final BooleanExpression[] CONDITIONS = {
+            member.username.eq(USERNAME),
+            team.name.eq(TEAM_NAME),
+            member.team.id.eq(TEAM_ID),
+            member.age.goe(AGE_GOE),
+            member.age.loe(AGE_LOE)
+    };
+
+    private static final Predicate TEAM_SUBTREE_JOIN = teamClosure.id.ancestorId.eq(TEAM_SUBTREE)
+            .and(teamClosure.id.descendantId.eq(member.team.id));
+
+    //위치 모양 - 0 은 위치 조건 없음, 1 + (셀 범위 수 - 1) + (반경이면 MAX_CELL_RANGES)
+    private static final int GEO_SHAPES = 1 + 2 * MAX_CELL_RANGES;
+
+    //모양(비트 조합, 위치 모양)별 where. 조건이 없는 모양은 null
+    private final Predicate[][] whereByShape = new Predicate[1 << CONDITIONS.length][GEO_SHAPES];
+    private final JpqlCache jpqlCache;
+
+    public MemberPredicates(@Value("${member.predicates.jpql-cache-size:1024}") int jpqlCacheSize) {
+        Predicate[] geoByShape = new Predicate[GEO_SHAPES];
+        for (int geoShape = 1; geoShape < GEO_SHAPES; geoShape++) {
+            int ranges = (geoShape - 1) % MAX_CELL_RANGES + 1;
+            BooleanExpression geo = withinCells(List.of(GEO_CELL_FROM).subList(0, ranges), List.of(GEO_CELL_TO).subList(0, ranges))
+                    .and(withinBox(GEO_MIN_LAT, GEO_MAX_LAT, GEO_MIN_LON, GEO_MAX_LON));
+            if (geoShape > MAX_CELL_RANGES) {
+                geo = geo.and(withinRadius(GEO_CENTER_LAT, GEO_CENTER_LON, GEO_COS_CENTER_LAT, GEO_MAX_HAVERSINE));
+            }
+            geoByShape[geoShape] = geo;
+        }
+        for (int shape = 0; shape < whereByShape.length; shape++) {
+            Predicate where = null;
+            for (int i = 0; i < CONDITIONS.length; i++) {
+                if ((shape & (1 << i)) != 0) {
+                    where = ExpressionUtils.and(where, CONDITIONS[i]);
+                }
+            }
+            for (int geoShape = 0; geoShape < GEO_SHAPES; geoShape++) {
+                whereByShape[shape][geoShape] = geoShape == 0 ? where : ExpressionUtils.and(where, geoByShape[geoShape]);
+            }
+        }
+        this.jpqlCache = new JpqlCache(jpqlCacheSize);
+    }
+
+    /**
+     * 조회 쿼리의 JPQL 직렬화를 모양별로 재사용하는 JPAQueryFactory
+     */
+    public JPAQueryFactory queryFactory(EntityManager em) {
+        return new InterningJPAQueryFactory(em, jpqlCache);
+    }
+
+    /**
+     * condition 에 있는 조건만 where 에 추가하고 값을 바인딩한다.
+     * teamSubtree 가 있으면 closure table 을 조인한다.
+     */
+    public <T> JPAQuery<T> apply(JPAQuery<T> query, MemberSearchCondition condition) {
+        int shape = 0;
+        if (hasText(condition.getUsername())) {
+            shape |= USERNAME_BIT;
+            query.set(USERNAME, condition.getUsername());
+        }
+        if (hasText(condition.getTeamName())) {
+            shape |= TEAM_NAME_BIT;
+            query.set(TEAM_NAME, condition.getTeamName());
+        }
+        if (condition.getTeamId() != null) {
+            shape |= TEAM_ID_BIT;
+            query.set(TEAM_ID, condition.getTeamId());
+        }
+        if (condition.getAgeGoe() != null) {
+            shape |= AGE_GOE_BIT;
+            query.set(AGE_GOE, condition.getAgeGoe());
+        }
+        if (condition.getAgeLoe() != null) {
+            shape |= AGE_LOE_BIT;
+            query.set(AGE_LOE, condition.getAgeLoe());
+        }
+        if (condition.getTeamSubtree() != null) {
+            query.join(teamClosure).on(TEAM_SUBTREE_JOIN);
+            query.set(TEAM_SUBTREE, condition.getTeamSubtree());
+        }
+        int geoShape = bindGeo(query, GeoFilter.of(condition));
+        Predicate where = whereByShape[shape][geoShape];
+        if (where != null) {
+            query.where(where);
+        }
+        return query;
+    }
+
+    private static int bindGeo(JPAQuery<?> query, GeoFilter geo) {
+        if (geo == null) {
+            return 0;
+        }
+        List<String[]> ranges = geo.getCellRanges();
+        for (int i = 0; i < ranges.size(); i++) {
+            query.set(GEO_CELL_FROM[i], ranges.get(i)[0]);
+            query.set(GEO_CELL_TO[i], ranges.get(i)[1]);
+        }
+        query.set(GEO_MIN_LAT, geo.getBox().getMinLatitude());
+        query.set(GEO_MAX_LAT, geo.getBox().getMaxLatitude());
+        query.set(GEO_MIN_LON, geo.getBox().getMinLongitude());
+        query.set(GEO_MAX_LON, geo.getBox().getMaxLongitude());
+        if (!geo.hasRadius()) {
+            return ranges.size();
+        }
+        query.set(GEO_CENTER_LAT, geo.getCenterLatitudeRadians());
+        query.set(GEO_CENTER_LON, geo.getCenterLongitudeRadians());
+        query.set(GEO_COS_CENTER_LAT, geo.getCosCenterLatitude());
+        query.set(GEO_MAX_HAVERSINE, geo.getMaxHaversine());
+        return MAX_CELL_RANGES + ranges.size();
+    }
+
+    /**
+     * 값을 바로 넣은 검색 조건 (Param 을 바인딩하지 않는 쿼리용). 조건이 없으면 null
+     * apply() 의 CONDITIONS 와 같은 조건이다. teamSubtree 는 조인이 필요하므로 포함하지 않는다. (TeamSubtreeJoin)
+     */
+    public static Predicate whereOf(MemberSearchCondition condition) {
+        return ExpressionUtils.allOf(
+                hasText(condition.getUsername()) ? member.username.eq(condition.getUsername()) : null,
+                hasText(condition.getTeamName()) ? team.name.eq(condition.getTeamName()) : null,
+                condition.getTeamId() != null ? member.team.id.eq(condition.getTeamId()) : null,
+                condition.getAgeGoe() != null ? member.age.goe(condition.getAgeGoe()) : null,
+                condition.getAgeLoe() != null ? member.age.loe(condition.getAgeLoe()) : null,
+                geoOf(condition));
+    }
+
+    /**
+     * 값을 바로 넣은 위치 조건 (Param 을 바인딩하지 않는 쿼리용). 위치 조건이 없으면 null
+     */
+    public static BooleanExpression geoOf(MemberSearchCondition condition) {
+        GeoFilter geo = GeoFilter.of(condition);
+        if (geo == null) {
+            return null;
+        }
+        List<Expression<String>> from = new ArrayList<>();
+        List<Expression<String>> to = new ArrayList<>();
+        for (String[] range : geo.getCellRanges()) {
+            from.add(Expressions.constant(range[0]));
+            to.add(Expressions.constant(range[1]));
+        }
+        BooleanExpression result = withinCells(from, to).and(withinBox(
+                Expressions.constant(geo.getBox().getMinLatitude()), Expressions.constant(geo.getBox().getMaxLatitude()),
+                Expressions.constant(geo.getBox().getMinLongitude()), Expressions.constant(geo.getBox().getMaxLongitude())));
+        if (geo.hasRadius()) {
+            result = result.and(withinRadius(
+                    Expressions.constant(geo.getCenterLatitudeRadians()), Expressions.constant(geo.getCenterLongitudeRadians()),
+                    Expressions.constant(geo.getCosCenterLatitude()), Expressions.constant(geo.getMaxHaversine())));
+        }
+        return result;
+    }
+
+    private static BooleanExpression withinCells(List<? extends Expression<String>> from, List<? extends Expression<String>> to) {
+        BooleanExpression cells = null;
+        for (int i = 0; i < from.size(); i++) {
+            BooleanExpression range = member.geohash.goe(from.get(i)).and(member.geohash.lt(to.get(i)));
+            cells = cells == null ? range : cells.or(range);
+        }
+        return cells;
+    }
+
+    private static BooleanExpression withinBox(Expression<Double> minLat, Expression<Double> maxLat,
+                                               Expression<Double> minLon, Expression<Double> maxLon) {
+        return member.latitude.between(minLat, maxLat).and(member.longitude.between(minLon, maxLon));
+    }
+
+    private static BooleanExpression withinRadius(Expression<Double> centerLat, Expression<Double> centerLon,
+                                                  Expression<Double> cosCenterLat, Expression<Double> maxHaversine) {
+        return Expressions.booleanTemplate(GeoFilter.WITHIN_RADIUS_TEMPLATE,
+                member.latitude, member.longitude, centerLat, centerLon, cosCenterLat, maxHaversine);
+    }
+
+    public JpqlCache getJpqlCache() {
+        return jpqlCache;
+    }
+}
@@ -0,0 +1,155 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.QBean;
+import org.springframework.data.domain.Page;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * MemberTeamDto 필드 선택 (?fields=memberId,username)
+ * 필드 이름 -> select 식(accessor)을 정의하고, 요청한 필드만 Projections.bean 으로 조회한다.
+ * - teamId 는 member.team_id(FK) 컬럼으로 읽으므로 team 조인이 필요 없다. team 조인은 teamName 을 조회할 때만 한다.
+ * - 필드 조합은 2^5 개뿐이므로 조합별 QBean 을 비트마스크로 캐시한다.
+ * - select 를 바꿀 수 없는 검색 구현체(sql, memory)의 결과는 select() 로 요청한 필드만 남긴다.
+ */
+public final class MemberTeamFields {
+
+    private static final String[] NAMES = {"memberId", "username", "age", "teamId", "teamName"};
+
+    private static final Expression<?>[] ACCESSORS = {
+            member.id.as("memberId"),
+            member.username,
+            member.age,
+            member.team.id.as("teamId"),
+            team.name.as("teamName")
+    };
+
+    private static final int TEAM_JOIN_MASK = 1 << 4;
+    private static final int ALL_MASK = (1 << NAMES.length) - 1;
+
+    private static final MemberTeamFields[] CACHE = new MemberTeamFields[ALL_MASK + 1];
+
+    public static final MemberTeamFields ALL = of(ALL_MASK);
+
+    private final int mask;
+    private final Set<String> names;
+    private final QBean<MemberTeamDto> projection;
+
+    private MemberTeamFields(int mask) {
+        this.mask = mask;
+        Set<String> names = new LinkedHashSet<>();
+        List<Expression<?>> expressions = new ArrayList<>();
+        for (int i = 0; i < NAMES.length; i++) {
+            if ((mask & (1 << i)) != 0) {
+                names.add(NAMES[i]);
+                expressions.add(ACCESSORS[i]);
+            }
+        }
+        this.names = Collections.unmodifiableSet(names);
+        this.projection = Projections.bean(MemberTeamDto.class, expressions.toArray(new Expression<?>[0]));
+    }
+
+    /**
+     * 쉼표로 구분한 필드 목록을 해석한다. 비어 있으면 전체 필드를 조회한다.
+     *
+     * @throws IllegalArgumentException 알 수 없는 필드 이름
+     */
+    public static MemberTeamFields parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return ALL;
+        }
+        int mask = 0;
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            mask |= 1 << indexOf(name);
+        }
+        return mask == 0 ? ALL : of(mask);
+    }
+
+    private static MemberTeamFields of(int mask) {
+        MemberTeamFields fields = CACHE[mask];
+        if (fields == null) {
+            //경합 시 같은 값을 두 번 만들 수 있지만 불변 객체라 문제없다.
+            fields = new MemberTeamFields(mask);
+            CACHE[mask] = fields;
+        }
+        return fields;
+    }
+
+    private static int indexOf(String name) {
+        for (int i = 0; i < NAMES.length; i++) {
+            if (NAMES[i].equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown field: " + name + " (allowed: " + String.join(",", NAMES) + ")");
+    }
+
+    public Set<String> getNames() {
+        return names;
+    }
+
+    public QBean<MemberTeamDto> getProjection() {
+        return projection;
+    }
+
+    public boolean requiresTeamJoin() {
+        return (mask & TEAM_JOIN_MASK) != 0;
+    }
+
+    /**
+     * 전체 필드로 조회한 dto 에서 요청한 필드만 남긴 복사본
+     */
+    public MemberTeamDto select(MemberTeamDto dto) {
+        if (mask == ALL_MASK) {
+            return dto;
+        }
+        MemberTeamDto selected = new MemberTeamDto();
+        if (has(0)) {
+            selected.setMemberId(dto.getMemberId());
+        }
+        if (has(1)) {
+            selected.setUsername(dto.getUsername());
+        }
+        if (has(2)) {
+            selected.setAge(dto.getAge());
+        }
+        if (has(3)) {
+            selected.setTeamId(dto.getTeamId());
+        }
+        if (has(4)) {
+            selected.setTeamName(dto.getTeamName());
+        }
+        return selected;
+    }
+
+    //잘린 목록(TruncatedList)은 잘렸다는 표시를 유지한다.
+    public List<MemberTeamDto> select(List<MemberTeamDto> dtos) {
+        List<MemberTeamDto> selected = dtos.stream().map(this::select).collect(Collectors.toList());
+        return dtos instanceof TruncatedList
+                ? new TruncatedList<>(selected, ((TruncatedList<MemberTeamDto>) dtos).getLimit())
+                : selected;
+    }
+
+    public Page<MemberTeamDto> select(Page<MemberTeamDto> page) {
+        return page.map(this::select);
+    }
+
+    private boolean has(int index) {
+        return (mask & (1 << index)) != 0;
+    }
+}
@@ -0,0 +1,162 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.QueryModifiers;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.sql.SQLQuery;
+import com.querydsl.sql.StatementOptions;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * 현재 스레드에 적용 중인 QueryPolicy 로 쿼리를 실행한다.
+ * 정책이 없으면(QueryPolicy 가 없는 메서드에서 호출) 그대로 실행한다.
+ *
+ * 취소는 협력 방식이다. 쿼리를 시작하기 전에 시간 예산이 남았는지, 스레드가 인터럽트되지 않았는지 확인하고,
+ * 실행 중인 쿼리는 남은 시간으로 건 statement timeout 으로 DB 에서 취소된다.
+ * 서블릿(블로킹) 요청은 클라이언트 연결이 끊겨도 응답을 쓰기 전까지 알 수 없으므로 연결 종료로 취소되지 않는다.
+ * 이 경우에도 쿼리는 시간 예산 안에서 끝난다.
+ */
+public final class QueryPolicies {
+
+    //javax.persistence.query.timeout(ms) 는 Hibernate 가 초 단위로 내림하므로 1초 미만의 예산이 0(무제한)이 된다.
+    static final String TIMEOUT_HINT = QueryHints.TIMEOUT_HIBERNATE;
+
+    private static final ThreadLocal<Context> CURRENT = new ThreadLocal<>();
+
+    private QueryPolicies() {
+    }
+
+    /**
+     * 목록 쿼리 - timeout 과 maxRows 를 적용한다.
+     */
+    public static <T> List<T> fetch(JPAQuery<T> query) {
+        Context context = CURRENT.get();
+        if (context == null) {
+            return query.fetch();
+        }
+        query.setHint(TIMEOUT_HINT, context.remainingSeconds());
+        context.limit(query.getMetadata().getModifiers(), query::limit);
+        return context.enforce(query.fetch());
+    }
+
+    /**
+     * 단건 쿼리(count 등) - timeout 만 적용한다.
+     */
+    public static <T> T fetchOne(JPAQuery<T> query) {
+        Context context = CURRENT.get();
+        if (context != null) {
+            query.setHint(TIMEOUT_HINT, context.remainingSeconds());
+        }
+        return query.fetchOne();
+    }
+
+    /**
+     * DB 를 거치지 않고 만든 목록(메모리 검색 등) - maxRows 만 적용한다.
+     */
+    public static <T> List<T> enforce(List<T> result) {
+        Context context = CURRENT.get();
+        return context != null ? context.enforce(result) : result;
+    }
+
+    public static <T> List<T> fetch(SQLQuery<T> query) {
+        Context context = CURRENT.get();
+        if (context == null) {
+            return query.fetch();
+        }
+        query.setStatementOptions(context.statementOptions());
+        context.limit(query.getMetadata().getModifiers(), query::limit);
+        return context.enforce(query.fetch());
+    }
+
+    public static <T> T fetchOne(SQLQuery<T> query) {
+        Context context = CURRENT.get();
+        if (context != null) {
+            query.setStatementOptions(context.statementOptions());
+        }
+        return query.fetchOne();
+    }
+
+    static Context enter(String method, Policy policy) {
+        Context outer = CURRENT.get();
+        //바깥 메서드의 정책이 있으면 그대로 따른다.
+        if (outer == null) {
+            CURRENT.set(new Context(method, policy, System.nanoTime() + policy.timeoutNanos));
+        }
+        return outer;
+    }
+
+    static void exit(Context outer) {
+        if (outer == null) {
+            CURRENT.remove();
+        }
+    }
+
+    static final class Policy {
+        final long timeoutNanos;
+        final int maxRows;
+        final QueryPolicy.OnExceed onExceed;
+
+        Policy(long timeoutNanos, int maxRows, QueryPolicy.OnExceed onExceed) {
+            this.timeoutNanos = timeoutNanos;
+            this.maxRows = maxRows;
+            this.onExceed = onExceed;
+        }
+    }
+
+    static final class Context {
+        private final String method;
+        private final Policy policy;
+        private final long deadline;
+
+        Context(String method, Policy policy, long deadline) {
+            this.method = method;
+            this.policy = policy;
+            this.deadline = deadline;
+        }
+
+        int remainingMillis() {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new QueryTimeoutException(method + " was cancelled");
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new QueryTimeoutException(method + " exceeded its query time budget");
+            }
+            //1ms 미만으로 남으면 0(무제한)이 되지 않도록 올림한다.
+            return (int) Math.min(Integer.MAX_VALUE, (remaining + 999_999) / 1_000_000);
+        }
+
+        //JDBC timeout 은 초 단위다. 1초 미만으로 남아도 0(무제한)이 되지 않도록 올림한다.
+        int remainingSeconds() {
+            return (remainingMillis() + 999) / 1_000;
+        }
+
+        StatementOptions statementOptions() {
+            return StatementOptions.builder().setQueryTimeout(remainingSeconds()).build();
+        }
+
+        //limit 이 없거나 maxRows 보다 크면 maxRows + 1 건만 읽어서 초과 여부를 판단한다.
+        void limit(QueryModifiers modifiers, LongConsumer limit) {
+            if (policy.maxRows <= 0) {
+                return;
+            }
+            Long current = modifiers.getLimit();
+            if (current == null || current > policy.maxRows) {
+                limit.accept(policy.maxRows + 1L);
+            }
+        }
+
+        <T> List<T> enforce(List<T> result) {
+            if (policy.maxRows <= 0 || result.size() <= policy.maxRows) {
+                return result;
+            }
+            if (policy.onExceed == QueryPolicy.OnExceed.ERROR) {
+                throw new QueryResultLimitExceededException(method, policy.maxRows);
+            }
+            return new TruncatedList<>(result.subList(0, policy.maxRows), policy.maxRows);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package study.querydsl.repository.support;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 리포지토리 메서드의 쿼리 실행 정책
+ * 메서드 안에서 QueryPolicies.fetch()/fetchOne() 으로 실행한 쿼리에 적용된다.
+ * - timeout: 메서드 전체의 쿼리 시간 예산. 쿼리마다 남은 시간을 초 단위로 올림해 statement timeout 으로 건다.
+ * - maxRows: 목록 쿼리의 최대 행 수. 넘으면 onExceed 에 따라 잘라내거나(TruncatedList) 예외를 던진다.
+ * 값에는 프로퍼티 placeholder 를 사용할 수 있다. (예: "${member.query-policy.search.timeout:3s}")
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface QueryPolicy {
+
+    enum OnExceed {
+        //maxRows 건까지만 반환하고 TruncatedList 로 표시한다.
+        TRUNCATE,
+        //QueryResultLimitExceededException 을 던진다.
+        ERROR
+    }
+
+    String timeout() default "${member.query-policy.default-timeout:5s}";
+
+    String maxRows() default "${member.query-policy.default-max-rows:10000}";
+
+    OnExceed onExceed() default OnExceed.TRUNCATE;
+}
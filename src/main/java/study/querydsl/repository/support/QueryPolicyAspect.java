@@ -0,0 +1,53 @@
+package study.querydsl.repository.support;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.EmbeddedValueResolverAware;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringValueResolver;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * QueryPolicy 가 붙은 메서드를 실행하는 동안 정책을 현재 스레드에 설정한다.
+ * placeholder 는 메서드별로 한 번만 해석해서 캐시한다.
+ */
+@Aspect
+@Component
+@Order(1)
+public class QueryPolicyAspect implements EmbeddedValueResolverAware {
+
+    private final Map<Method, QueryPolicies.Policy> policies = new ConcurrentHashMap<>();
+    private StringValueResolver resolver;
+
+    @Override
+    public void setEmbeddedValueResolver(StringValueResolver resolver) {
+        this.resolver = resolver;
+    }
+
+    @Around("@annotation(queryPolicy)")
+    public Object apply(ProceedingJoinPoint joinPoint, QueryPolicy queryPolicy) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        QueryPolicies.Policy policy = policies.computeIfAbsent(method, key -> resolve(queryPolicy));
+        String name = joinPoint.getSignature().getDeclaringType().getSimpleName() + "." + method.getName();
+
+        QueryPolicies.Context outer = QueryPolicies.enter(name, policy);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            QueryPolicies.exit(outer);
+        }
+    }
+
+    private QueryPolicies.Policy resolve(QueryPolicy queryPolicy) {
+        long timeoutNanos = DurationStyle.detectAndParse(resolver.resolveStringValue(queryPolicy.timeout())).toNanos();
+        int maxRows = Integer.parseInt(resolver.resolveStringValue(queryPolicy.maxRows()).trim());
+        return new QueryPolicies.Policy(timeoutNanos, maxRows, queryPolicy.onExceed());
+    }
+}
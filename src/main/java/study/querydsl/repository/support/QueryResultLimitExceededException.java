@@ -0,0 +1,20 @@
+package study.querydsl.repository.support;
+
+import org.springframework.dao.DataRetrievalFailureException;
+
+/**
+ * QueryPolicy.maxRows 를 넘는 결과 (onExceed = ERROR)
+ */
+public class QueryResultLimitExceededException extends DataRetrievalFailureException {
+
+    private final int maxRows;
+
+    public QueryResultLimitExceededException(String method, int maxRows) {
+        super("Result of " + method + " exceeds " + maxRows + " rows; narrow the search condition or request a smaller page");
+        this.maxRows = maxRows;
+    }
+
+    public int getMaxRows() {
+        return maxRows;
+    }
+}
@@ -3,36 +3,56 @@ package study.querydsl.repository.support;
 import com.mysema.commons.lang.Assert;
 import com.querydsl.core.types.EntityPath;
 import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberPath;
 import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.jpa.HQLTemplates;
+import com.querydsl.jpa.hibernate.HibernateQuery;
+import com.querydsl.jpa.hibernate.StatelessSessionHolder;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.annotations.QueryHints;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.repository.support.JpaEntityInformation;
-import org.springframework.data.jpa.repository.support.JpaEntityInformationSupport;
 import org.springframework.data.jpa.repository.support.Querydsl;
 import org.springframework.data.querydsl.SimpleEntityPathResolver;
 import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
+import javax.persistence.PersistenceUnitUtil;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 /**
  * Querydsl 4.x 버전에 맞춘 Querydsl 지원 라이브러리
+ * Querydsl, JPAQueryFactory 는 처음 사용할 때 만든다(지연 초기화). 애플리케이션 시작 시점에는 EntityManager 만 주입받는다.
+ * 엔티티 경로(PathBuilder)는 도메인 클래스별로 한번만 만들어 모든 리포지토리가 공유한다.
  *
  * @author Younghan Kim
  * @see org.springframework.data.jpa.repository.support.QuerydslRepositorySupport
  */
 @Repository
 public abstract class Querydsl4RepositorySupport {
+    private static final int DEFAULT_FETCH_SIZE = 100;
+    private static final int MAX_FETCH_SIZE = 1000;
+    private static final Map<Class<?>, PathBuilder<?>> PATH_BUILDERS = new ConcurrentHashMap<>();
     private final Class domainClass;
-    private Querydsl querydsl;
+    //하위 클래스나 외부 코드가 this 로 동기화해도 지연 초기화와 엉키지 않도록 별도 lock 을 쓴다.
+    private final Object lock = new Object();
+    private volatile Querydsl querydsl;
     private EntityManager entityManager;
-    private JPAQueryFactory queryFactory;
+    private volatile JPAQueryFactory queryFactory;
     public Querydsl4RepositorySupport(Class<?> domainClass) {
         Assert.notNull(domainClass, "Domain class must not be null!");
         this.domainClass = domainClass;
@@ -40,26 +60,41 @@ public abstract class Querydsl4RepositorySupport {
     @Autowired
     public void setEntityManager(EntityManager entityManager) {
         Assert.notNull(entityManager, "EntityManager must not be null!");
-        JpaEntityInformation entityInformation =
-                JpaEntityInformationSupport.getEntityInformation(domainClass, entityManager);
-        SimpleEntityPathResolver resolver = SimpleEntityPathResolver.INSTANCE;
-        EntityPath path = resolver.createPath(entityInformation.getJavaType());
         this.entityManager = entityManager;
-        this.querydsl = new Querydsl(entityManager, new
-                PathBuilder<>(path.getType(), path.getMetadata()));
-        this.queryFactory = new JPAQueryFactory(entityManager);
     }
     @PostConstruct
     public void validate() {
         Assert.notNull(entityManager, "EntityManager must not be null!");
-        Assert.notNull(querydsl, "Querydsl must not be null!");
-        Assert.notNull(queryFactory, "QueryFactory must not be null!");
     }
     protected JPAQueryFactory getQueryFactory() {
-        return queryFactory;
+        JPAQueryFactory result = queryFactory;
+        if (result == null) {
+            synchronized (lock) {
+                result = queryFactory;
+                if (result == null) {
+                    queryFactory = result = new JPAQueryFactory(entityManager);
+                }
+            }
+        }
+        return result;
     }
     protected Querydsl getQuerydsl() {
-        return querydsl;
+        Querydsl result = querydsl;
+        if (result == null) {
+            synchronized (lock) {
+                result = querydsl;
+                if (result == null) {
+                    querydsl = result = new Querydsl(entityManager, pathBuilder(domainClass));
+                }
+            }
+        }
+        return result;
+    }
+    static PathBuilder<?> pathBuilder(Class<?> domainClass) {
+        return PATH_BUILDERS.computeIfAbsent(domainClass, type -> {
+            EntityPath<?> path = SimpleEntityPathResolver.INSTANCE.createPath(type);
+            return new PathBuilder<>(path.getType(), path.getMetadata());
+        });
     }
     protected EntityManager getEntityManager() {
         return entityManager;
@@ -70,6 +105,137 @@ public abstract class Querydsl4RepositorySupport {
     protected <T> JPAQuery<T> selectFrom(EntityPath<T> from) {
         return getQueryFactory().selectFrom(from);
     }
+
+    /**
+     * 조회 전용 쿼리
+     * readOnly - 조회한 엔티티의 스냅샷을 만들지 않아 dirty checking 비용이 없다.
+     * flushMode=COMMIT - 조회 전에 자동 flush 를 하지 않는다.
+     * fetchSize - fetchReadOnly() 에서 limit 에 맞춰 다시 조정된다.
+     */
+    protected <T> JPAQuery<T> selectReadOnly(Expression<T> expr) {
+        return readOnly(select(expr), DEFAULT_FETCH_SIZE);
+    }
+    protected <T> JPAQuery<T> selectFromReadOnly(EntityPath<T> from) {
+        return readOnly(selectFrom(from), DEFAULT_FETCH_SIZE);
+    }
+    protected <T> JPAQuery<T> readOnly(JPAQuery<T> query, long expectedRows) {
+        query.setHint(QueryHints.READ_ONLY, true);
+        query.setHint(QueryHints.FLUSH_MODE, "COMMIT");
+        query.setHint(QueryHints.FETCH_SIZE, fetchSize(expectedRows));
+        return query;
+    }
+    protected <T> List<T> fetchReadOnly(JPAQuery<T> query) {
+        Long limit = query.getMetadata().getModifiers().getLimit();
+        return readOnly(query, limit != null ? limit : DEFAULT_FETCH_SIZE).fetch();
+    }
+    /**
+     * 존재 여부 - query 는 from/join/where 만 만든다. (select 절은 1 로 바뀐다.)
+     * select 1 ... limit 1 이라 첫 행을 찾으면 멈춘다. fetchCount() 처럼 전체를 세지 않는다.
+     */
+    protected boolean exists(Function<JPAQueryFactory, JPAQuery<?>> query) {
+        JPAQuery<Integer> existsQuery = query.apply(getQueryFactory()).select(Expressions.ONE);
+        return readOnly(existsQuery, 1).fetchFirst() != null;
+    }
+    /**
+     * 중복을 제거한 expr 목록 - query 는 from/join/where 만 만든다.
+     * 엔티티 목록을 가져와서 모으는 대신 DB 에서 DISTINCT 로 projection 한다.
+     */
+    protected <T> List<T> fetchDistinct(Expression<T> expr, Function<JPAQueryFactory, JPAQuery<?>> query) {
+        return fetchReadOnly(query.apply(getQueryFactory()).select(expr).distinct());
+    }
+    /**
+     * 대량 처리 - query 결과를 id 순 keyset(id > 마지막 id) 으로 chunkSize 건씩 읽어 processor 에 넘긴다.
+     * query 는 selectFrom/join/where 만 만든다. (정렬과 limit 은 여기서 붙인다. 컬렉션 fetch join 은 사용하지 않는다.)
+     * offset 페이징과 달리 뒤쪽 청크도 인덱스로 바로 찾아가고, 처리 중 행이 추가/삭제돼도 건너뛰거나 중복되지 않는다.
+     *
+     * 청크마다 영속성 컨텍스트의 엔티티 수를 확인해서 maxManagedEntities 이상이면 flush/clear 한다.
+     * clear 이후에는 이전 청크의 엔티티가 준영속 상태가 되므로 processor 밖에서 들고 있지 않는다.
+     * (트랜잭션 밖에서는 쿼리마다 영속성 컨텍스트가 닫히므로 관리하지 않는다.)
+     */
+    protected <T> ChunkStats forEachChunk(NumberPath<Long> id, Function<JPAQueryFactory, JPAQuery<T>> query,
+                                          ChunkOptions options, Consumer<List<T>> processor) {
+        PersistenceUnitUtil unitUtil = entityManager.getEntityManagerFactory().getPersistenceUnitUtil();
+        if (options.isStateless()) {
+            return forEachChunkStateless(id, query, options, processor, unitUtil);
+        }
+
+        EntityManager current = EntityManagerFactoryUtils.getTransactionalEntityManager(entityManager.getEntityManagerFactory());
+        Session session = current != null ? current.unwrap(Session.class) : null;
+        int chunks = 0;
+        long rows = 0;
+        int clears = 0;
+        int peak = 0;
+        Long lastId = null;
+        while (true) {
+            JPAQuery<T> chunkQuery = keyset(query.apply(getQueryFactory()), id, lastId, options.getChunkSize());
+            chunkQuery.setHint(QueryHints.FETCH_SIZE, options.getChunkSize());
+            List<T> chunk = chunkQuery.fetch();
+            if (chunk.isEmpty()) {
+                break;
+            }
+            lastId = (Long) unitUtil.getIdentifier(chunk.get(chunk.size() - 1));
+            processor.accept(chunk);
+            chunks++;
+            rows += chunk.size();
+
+            if (session != null) {
+                int managed = session.getStatistics().getEntityCount();
+                peak = Math.max(peak, managed);
+                if (managed >= options.getMaxManagedEntities()) {
+                    //processor 의 변경을 먼저 반영한다. (읽기 전용 트랜잭션은 flush 할 것이 없다.)
+                    if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+                        session.flush();
+                    }
+                    session.clear();
+                    clears++;
+                }
+            }
+            if (chunk.size() < options.getChunkSize()) {
+                break;
+            }
+        }
+        return new ChunkStats(chunks, rows, clears, peak);
+    }
+    private <T> ChunkStats forEachChunkStateless(NumberPath<Long> id, Function<JPAQueryFactory, JPAQuery<T>> query,
+                                                 ChunkOptions options, Consumer<List<T>> processor,
+                                                 PersistenceUnitUtil unitUtil) {
+        SessionFactory sessionFactory = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class);
+        StatelessSession statelessSession = sessionFactory.openStatelessSession();
+        try {
+            StatelessSessionHolder holder = new StatelessSessionHolder(statelessSession);
+            int chunks = 0;
+            long rows = 0;
+            Long lastId = null;
+            while (true) {
+                JPAQuery<T> chunkQuery = keyset(query.apply(getQueryFactory()), id, lastId, options.getChunkSize());
+                List<T> chunk = new HibernateQuery<T>(holder, HQLTemplates.DEFAULT, chunkQuery.getMetadata())
+                        .setFetchSize(options.getChunkSize())
+                        .fetch();
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                lastId = (Long) unitUtil.getIdentifier(chunk.get(chunk.size() - 1));
+                processor.accept(chunk);
+                chunks++;
+                rows += chunk.size();
+                if (chunk.size() < options.getChunkSize()) {
+                    break;
+                }
+            }
+            return new ChunkStats(chunks, rows, 0, 0);
+        } finally {
+            statelessSession.close();
+        }
+    }
+    private static <T> JPAQuery<T> keyset(JPAQuery<T> query, NumberPath<Long> id, Long lastId, int chunkSize) {
+        if (lastId != null) {
+            query.where(id.gt(lastId));
+        }
+        return query.orderBy(id.asc()).limit(chunkSize);
+    }
+    private static int fetchSize(long expectedRows) {
+        return (int) Math.max(1, Math.min(expectedRows, MAX_FETCH_SIZE));
+    }
     protected <T> Page<T> applyPagination(Pageable pageable,
                                           Function<JPAQueryFactory, JPAQuery> contentQuery) {
         JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
@@ -88,4 +254,15 @@ public abstract class Querydsl4RepositorySupport {
         return PageableExecutionUtils.getPage(content, pageable,
                 countResult::fetchCount);
     }
+    protected <T> Page<T> applyReadOnlyPagination(Pageable pageable,
+                                                  Function<JPAQueryFactory, JPAQuery> contentQuery, Function<JPAQueryFactory,
+            JPAQuery> countQuery) {
+        JPAQuery jpaContentQuery = readOnly(contentQuery.apply(getQueryFactory()),
+                pageable.isPaged() ? pageable.getPageSize() : DEFAULT_FETCH_SIZE);
+        List<T> content = getQuerydsl().applyPagination(pageable,
+                jpaContentQuery).fetch();
+        JPAQuery countResult = readOnly(countQuery.apply(getQueryFactory()), 1);
+        return PageableExecutionUtils.getPage(content, pageable,
+                countResult::fetchOne);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,172 @@
+package study.querydsl.repository.support;
+
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 같은 키로 동시에 들어온 요청을 하나의 실행으로 합친다(single-flight).
+ * 먼저 들어온 요청(leader)이 loader 를 실행하고, 실행 중에 들어온 요청(follower)은 그 결과를 함께 받는다.
+ * follower 는 waitTimeout 까지만 기다리고, 시간이 지나면 직접 loader 를 실행한다.
+ * leader 의 실패 중 timeout 과 취소는 leader 의 시간 예산이나 스레드 때문일 수 있으므로 공유하지 않고
+ * follower 가 직접 loader 를 실행한다. 그 밖의 실패(잘못된 조건, 데이터 오류 등)만 follower 에게 그대로 전달한다.
+ * 실행이 끝나면 키를 지우므로 결과를 캐시하지는 않는다.
+ *
+ * 결과 객체는 여러 요청이 공유하므로 호출하는 쪽에서 수정하면 안된다.
+ */
+public class SingleFlight<K, V> {
+
+    private static final int MAX_TRACKED_KEYS = 1000;
+    private static final String OTHER_KEYS = "(other)";
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Map<Object, Stats> stats = new ConcurrentHashMap<>();
+    private final Duration waitTimeout;
+
+    public SingleFlight(Duration waitTimeout) {
+        this.waitTimeout = waitTimeout;
+    }
+
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, created);
+        if (existing == null) {
+            return lead(key, created, loader);
+        }
+        return follow(key, existing, loader);
+    }
+
+    private V lead(K key, CompletableFuture<V> future, Supplier<V> loader) {
+        statsOf(key).executions.increment();
+        try {
+            V value = loader.get();
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            statsOf(key).failures.increment();
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    private V follow(K key, CompletableFuture<V> future, Supplier<V> loader) {
+        try {
+            V value = future.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            statsOf(key).shared.increment();
+            return value;
+        } catch (TimeoutException e) {
+            statsOf(key).timeouts.increment();
+            statsOf(key).executions.increment();
+            return loader.get();
+        } catch (ExecutionException e) {
+            if (isLeaderOnly(e.getCause())) {
+                statsOf(key).retries.increment();
+                statsOf(key).executions.increment();
+                return loader.get();
+            }
+            statsOf(key).sharedFailures.increment();
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for in-flight execution of " + key, e);
+        }
+    }
+
+    //leader 의 시간 예산 초과, statement timeout, 인터럽트로 인한 취소
+    private static boolean isLeaderOnly(Throwable failure) {
+        for (Throwable e = failure; e != null; e = e.getCause()) {
+            if (e instanceof QueryTimeoutException
+                    || e instanceof javax.persistence.QueryTimeoutException
+                    || e instanceof CancellationException
+                    || e instanceof InterruptedException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //키가 무한히 늘어나지 않도록 MAX_TRACKED_KEYS 를 넘는 키는 하나로 모은다.
+    private Stats statsOf(K key) {
+        Stats keyStats = stats.get(key);
+        if (keyStats != null) {
+            return keyStats;
+        }
+        Object statsKey = stats.size() < MAX_TRACKED_KEYS ? key : OTHER_KEYS;
+        return stats.computeIfAbsent(statsKey, k -> new Stats());
+    }
+
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    public Map<Object, Stats> getStats() {
+        return stats;
+    }
+
+    public void resetStats() {
+        stats.clear();
+    }
+
+    public static class Stats {
+        private final LongAdder executions = new LongAdder();
+        private final LongAdder shared = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder retries = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder sharedFailures = new LongAdder();
+
+        //실제로 loader 를 실행한 횟수
+        public long getExecutions() {
+            return executions.sum();
+        }
+
+        //다른 요청의 실행 결과를 공유받은 횟수 (성공한 결과만)
+        public long getShared() {
+            return shared.sum();
+        }
+
+        //waitTimeout 이 지나 follower 가 직접 실행한 횟수
+        public long getTimeouts() {
+            return timeouts.sum();
+        }
+
+        //leader 가 timeout/취소로 실패해 follower 가 직접 실행한 횟수
+        public long getRetries() {
+            return retries.sum();
+        }
+
+        //leader 로 실행하다 실패한 횟수
+        public long getFailures() {
+            return failures.sum();
+        }
+
+        //leader 의 실패를 follower 가 그대로 전달받은 횟수
+        public long getSharedFailures() {
+            return sharedFailures.sum();
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{executions=" + getExecutions() + ", shared=" + getShared()
+                    + ", timeouts=" + getTimeouts() + ", retries=" + getRetries()
+                    + ", failures=" + getFailures() + ", sharedFailures=" + getSharedFailures() + "}";
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQuery;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeamClosure.teamClosure;
+
+/**
+ * MemberSearchCondition.teamSubtree 조건
+ * 하위 팀을 재귀로 찾지 않고 closure table 을 한 번 조인한다. (ancestor_id, descendant_id) PK 인덱스를 탄다.
+ * 조상-자손 쌍은 유일하므로 조인으로 회원 행이 늘어나지 않는다.
+ */
+public final class TeamSubtreeJoin {
+
+    private TeamSubtreeJoin() {
+    }
+
+    public static <T> JPAQuery<T> joinTeamSubtree(JPAQuery<T> query, Long rootTeamId) {
+        if (rootTeamId == null) {
+            return query;
+        }
+        return query
+                .join(teamClosure).on(
+                        teamClosure.id.ancestorId.eq(rootTeamId),
+                        teamClosure.id.descendantId.eq(member.team.id));
+    }
+}
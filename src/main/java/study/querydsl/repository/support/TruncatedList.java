@@ -0,0 +1,37 @@
+package study.querydsl.repository.support;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * QueryPolicy.maxRows 로 잘린 조회 결과 (읽기 전용)
+ * 응답에는 X-Result-Truncated 헤더로 표시된다.
+ * single-flight 로 여러 호출자가 같은 결과를 공유하므로 수정할 수 없게 한다.
+ */
+public class TruncatedList<E> extends AbstractList<E> implements RandomAccess {
+
+    private final List<E> content;
+    private final int limit;
+
+    public TruncatedList(Collection<? extends E> content, int limit) {
+        this.content = new ArrayList<>(content);
+        this.limit = limit;
+    }
+
+    @Override
+    public E get(int index) {
+        return content.get(index);
+    }
+
+    @Override
+    public int size() {
+        return content.size();
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+}
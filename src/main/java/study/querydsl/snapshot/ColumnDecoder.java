@@ -0,0 +1,117 @@
+package study.querydsl.snapshot;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * ColumnEncoder 로 인코딩한 블록 컬럼을 앞에서부터 한 행씩 읽는다.
+ */
+class ColumnDecoder {
+
+    private final ColumnType type;
+    private byte[] bytes = new byte[0];
+    private int position;
+    private long previous;
+
+    ColumnDecoder(ColumnType type) {
+        this.type = type;
+    }
+
+    /**
+     * 다음 블록의 원본 바이트를 담을 배열 (크기가 부족하면 새로 만든다.)
+     */
+    byte[] reset(int length) {
+        if (bytes.length < length) {
+            bytes = new byte[length];
+        }
+        position = 0;
+        previous = 0;
+        return bytes;
+    }
+
+    void bindNext(PreparedStatement ps, int parameterIndex) throws SQLException {
+        switch (type) {
+            case ID:
+                ps.setLong(parameterIndex, nextId());
+                break;
+            case NULLABLE_LONG:
+                Long value = nextNullableLong();
+                if (value == null) {
+                    ps.setNull(parameterIndex, Types.BIGINT);
+                } else {
+                    ps.setLong(parameterIndex, value);
+                }
+                break;
+            case INT:
+                ps.setInt(parameterIndex, nextInt());
+                break;
+            case STRING:
+                ps.setString(parameterIndex, nextString());
+                break;
+            case NULLABLE_DOUBLE:
+                Double d = nextNullableDouble();
+                if (d == null) {
+                    ps.setNull(parameterIndex, Types.DOUBLE);
+                } else {
+                    ps.setDouble(parameterIndex, d);
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unsupported column type: " + type);
+        }
+    }
+
+    long nextId() {
+        previous += unzigzag(readVarLong());
+        return previous;
+    }
+
+    Long nextNullableLong() {
+        long value = readVarLong();
+        return value == 0 ? null : value - 1;
+    }
+
+    int nextInt() {
+        return (int) unzigzag(readVarLong());
+    }
+
+    String nextString() {
+        long length = readVarLong();
+        if (length == 0) {
+            return null;
+        }
+        int byteLength = (int) (length - 1);
+        String value = new String(bytes, position, byteLength, StandardCharsets.UTF_8);
+        position += byteLength;
+        return value;
+    }
+
+    Double nextNullableDouble() {
+        if (readVarLong() == 0) {
+            return null;
+        }
+        long bits = 0;
+        for (int i = 0; i < 8; i++) {
+            bits |= (bytes[position++] & 0xFFL) << (8 * i);
+        }
+        return Double.longBitsToDouble(bits);
+    }
+
+    private long readVarLong() {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = bytes[position++];
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
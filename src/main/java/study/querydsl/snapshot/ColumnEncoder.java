@@ -0,0 +1,107 @@
+package study.querydsl.snapshot;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * 한 블록의 컬럼 값을 ColumnType 인코딩으로 모은다. 블록마다 reset() 해서 배열을 재사용한다.
+ */
+class ColumnEncoder {
+
+    private final ColumnType type;
+    private byte[] bytes = new byte[64 * 1024];
+    private int size;
+    private long previous;
+
+    ColumnEncoder(ColumnType type) {
+        this.type = type;
+    }
+
+    void append(ResultSet rs, int columnIndex) throws SQLException {
+        switch (type) {
+            case ID:
+                long id = rs.getLong(columnIndex);
+                writeVarLong(zigzag(id - previous));
+                previous = id;
+                break;
+            case NULLABLE_LONG:
+                long value = rs.getLong(columnIndex);
+                if (rs.wasNull()) {
+                    writeVarLong(0);
+                } else {
+                    if (value < 0) {
+                        throw new IllegalArgumentException("Negative value in nullable column: " + value);
+                    }
+                    writeVarLong(value + 1);
+                }
+                break;
+            case INT:
+                writeVarLong(zigzag(rs.getInt(columnIndex)));
+                break;
+            case STRING:
+                String string = rs.getString(columnIndex);
+                if (string == null) {
+                    writeVarLong(0);
+                } else {
+                    byte[] utf8 = string.getBytes(StandardCharsets.UTF_8);
+                    writeVarLong(utf8.length + 1L);
+                    ensureCapacity(utf8.length);
+                    System.arraycopy(utf8, 0, bytes, size, utf8.length);
+                    size += utf8.length;
+                }
+                break;
+            case NULLABLE_DOUBLE:
+                double d = rs.getDouble(columnIndex);
+                if (rs.wasNull()) {
+                    writeVarLong(0);
+                } else {
+                    writeVarLong(1);
+                    writeFixedLong(Double.doubleToLongBits(d));
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unsupported column type: " + type);
+        }
+    }
+
+    byte[] bytes() {
+        return bytes;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void reset() {
+        size = 0;
+        previous = 0;
+    }
+
+    private void writeVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[size++] = (byte) value;
+    }
+
+    private void writeFixedLong(long value) {
+        ensureCapacity(8);
+        for (int i = 0; i < 8; i++) {
+            bytes[size++] = (byte) (value >>> (8 * i));
+        }
+    }
+
+    private void ensureCapacity(int extra) {
+        if (size + extra > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+}
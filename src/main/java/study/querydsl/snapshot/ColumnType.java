@@ -0,0 +1,13 @@
+package study.querydsl.snapshot;
+
+/**
+ * 스냅샷 컬럼 인코딩 (NULLABLE_DOUBLE 외에는 가변 길이 정수 기반)
+ * ID            - not null long, 앞 행과의 차이를 zigzag varint 로
+ * NULLABLE_LONG - 값 + 1 을 varint 로, 0 은 null (값은 0 이상)
+ * INT           - not null int, zigzag varint
+ * STRING        - UTF-8 바이트 길이 + 1 을 varint 로(0 은 null), 이어서 바이트
+ * NULLABLE_DOUBLE - 0 은 null, 1 이면 이어서 IEEE 754 비트 8바이트 (little endian)
+ */
+public enum ColumnType {
+    ID, NULLABLE_LONG, INT, STRING, NULLABLE_DOUBLE
+}
@@ -0,0 +1,49 @@
+package study.querydsl.snapshot;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+
+/**
+ * 애플리케이션 시작 시 스냅샷을 내보내거나 적재한다.
+ * member.snapshot.mode=export|import, member.snapshot.path=파일 경로
+ * (import 모드에서는 InitMember 샘플 데이터를 만들지 않는다.)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "member.snapshot.mode")
+public class MemberSnapshotRunner implements ApplicationRunner {
+
+    private final MemberSnapshotService snapshotService;
+
+    @Value("${member.snapshot.mode}")
+    private String mode;
+
+    @Value("${member.snapshot.path:member.snapshot}")
+    private Path path;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        SnapshotReport report;
+        switch (mode) {
+            case "export":
+                report = snapshotService.export(path);
+                break;
+            case "import":
+                report = snapshotService.restore(path);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown member.snapshot.mode: " + mode);
+        }
+        log.info("Snapshot {} {}: {} rows, {} bytes, {} ms ({} rows/s, {} MB/s)",
+                mode, path, report.getTotalRows(), report.getBytes(), report.getElapsed().toMillis(),
+                Math.round(report.getRowsPerSecond()), String.format("%.1f", report.getMegabytesPerSecond()));
+    }
+}
@@ -0,0 +1,199 @@
+package study.querydsl.snapshot;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.analytics.MemberAgeAnalytics;
+import study.querydsl.repository.MemberUsernameFilter;
+import study.querydsl.repository.memory.MemberMemoryRepository;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+/**
+ * Member/Team 데이터셋을 컬럼 단위 압축 바이너리 파일로 내보내고 다시 적재한다. (테스트/스테이징 환경 구성용)
+ *
+ * export - 테이블마다 JDBC 커서(fetchSize)로 스트리밍하면서 blockRows 행씩 컬럼 블록으로 인코딩하고,
+ *          압축 결과는 메모리 매핑한 파일 영역에 바로 쓴다. (SnapshotWriter)
+ * restore - 한 트랜잭션에서 기존 데이터를 지우고 블록마다 JDBC batch insert 로 적재한다.
+ *          JPA 를 거치지 않으므로 영속성 컨텍스트/더티 체킹 비용이 없다.
+ *          - team.parent_id 는 자기 참조라서 null 로 넣은 뒤 한번에 갱신한다.
+ *          - 시퀀스는 적재한 최대 id 뒤로 옮긴다. (member_seq 는 pooled 라 allocationSize 만큼 여유를 둔다.)
+ *          - 커밋 후 2차 캐시, username Bloom 필터, 나이 집계를 다시 만든다.
+ *          이미 메모리에 받아 둔 member_seq 구간은 되돌릴 수 없으므로, 다른 DB 의 스냅샷은 쓰기 전에(애플리케이션 시작 시) 적재한다.
+ */
+@Slf4j
+@Component
+public class MemberSnapshotService {
+
+    //Member @SequenceGenerator allocationSize
+    private static final int MEMBER_SEQ_ALLOCATION = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final EntityManagerFactory emf;
+    private final MemberUsernameFilter usernameFilter;
+    private final MemberAgeAnalytics ageAnalytics;
+    private final ObjectProvider<MemberMemoryRepository> memoryRepository;
+    private final int blockRows;
+    private final int compressionLevel;
+
+    public MemberSnapshotService(DataSource dataSource,
+                                 PlatformTransactionManager transactionManager,
+                                 EntityManagerFactory emf,
+                                 MemberUsernameFilter usernameFilter,
+                                 MemberAgeAnalytics ageAnalytics,
+                                 ObjectProvider<MemberMemoryRepository> memoryRepository,
+                                 @Value("${member.snapshot.block-rows:65536}") int blockRows,
+                                 @Value("${member.snapshot.compression-level:" + Deflater.BEST_SPEED + "}") int compressionLevel) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(blockRows);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.emf = emf;
+        this.usernameFilter = usernameFilter;
+        this.ageAnalytics = ageAnalytics;
+        this.memoryRepository = memoryRepository;
+        this.blockRows = blockRows;
+        this.compressionLevel = compressionLevel;
+    }
+
+    public SnapshotReport export(Path path) {
+        long start = System.nanoTime();
+        SnapshotWriter writer = readOnlyTransactionTemplate.execute(status -> {
+            try (SnapshotWriter w = new SnapshotWriter(path, blockRows, compressionLevel)) {
+                for (SnapshotTable table : SnapshotTable.values()) {
+                    jdbcTemplate.query(table.selectSql(), rs -> {
+                        try {
+                            w.append(table, rs);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                }
+                return w;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        SnapshotReport report = new SnapshotReport(
+                writer.getRowCounts(), writer.getBytesWritten(), Duration.ofNanos(System.nanoTime() - start));
+        log.info("Member snapshot exported to {}: {}", path, report);
+        return report;
+    }
+
+    /**
+     * 현재 Member/Team 데이터를 모두 지우고 스냅샷으로 바꾼다.
+     */
+    public SnapshotReport restore(Path path) {
+        long start = System.nanoTime();
+        SnapshotReport report = transactionTemplate.execute(status -> {
+            try (SnapshotReader reader = new SnapshotReader(path)) {
+                clear();
+                Map<SnapshotTable, Long> rowCounts = new EnumMap<>(SnapshotTable.class);
+                List<long[]> teamParents = new ArrayList<>();
+                while (reader.nextBlock()) {
+                    insertBlock(reader, teamParents);
+                    rowCounts.merge(reader.table(), (long) reader.rows(), Long::sum);
+                }
+                updateTeamParents(teamParents);
+                restartSequences();
+                return new SnapshotReport(rowCounts, reader.getBytesRead(), Duration.ZERO);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        //JDBC 로 바꾼 데이터라 캐시와 메모리 인덱스는 모두 다시 만든다.
+        emf.getCache().evictAll();
+        usernameFilter.rebuild();
+        ageAnalytics.rebuild();
+        memoryRepository.ifAvailable(MemberMemoryRepository::rebuild);
+
+        report = new SnapshotReport(report.getRowCounts(), report.getBytes(), Duration.ofNanos(System.nanoTime() - start));
+        log.info("Member snapshot restored from {}: {}", path, report);
+        return report;
+    }
+
+    private void clear() {
+        jdbcTemplate.update("delete from member");
+        jdbcTemplate.update("update team set parent_id = null");
+        jdbcTemplate.update("delete from team_closure");
+        jdbcTemplate.update("delete from team");
+    }
+
+    private void insertBlock(SnapshotReader reader, List<long[]> teamParents) {
+        SnapshotTable table = reader.table();
+        jdbcTemplate.batchUpdate(table.insertSql(), new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                if (table != SnapshotTable.TEAM) {
+                    reader.bindNextRow(ps);
+                    return;
+                }
+                //상위 팀이 아직 없을 수 있으므로 parent_id 는 나중에 채운다.
+                long teamId = reader.column(0).nextId();
+                ps.setLong(1, teamId);
+                ps.setString(2, reader.column(1).nextString());
+                ps.setNull(3, Types.BIGINT);
+                Long parentId = reader.column(2).nextNullableLong();
+                if (parentId != null) {
+                    teamParents.add(new long[]{teamId, parentId});
+                }
+            }
+
+            @Override
+            public int getBatchSize() {
+                return reader.rows();
+            }
+        });
+    }
+
+    private void updateTeamParents(List<long[]> teamParents) {
+        if (teamParents.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("update team set parent_id = ? where team_id = ?", new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setLong(1, teamParents.get(i)[1]);
+                ps.setLong(2, teamParents.get(i)[0]);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return teamParents.size();
+            }
+        });
+    }
+
+    private void restartSequences() {
+        long maxMemberId = jdbcTemplate.queryForObject("select coalesce(max(member_id), 0) from member", Long.class);
+        long maxTeamId = jdbcTemplate.queryForObject("select coalesce(max(team_id), 0) from team", Long.class);
+        //pooled 옵티마이저는 nextval 값 기준으로 앞쪽 allocationSize 만큼을 쓰므로, 이미 할당받은 구간과도 겹치지 않게 옮긴다.
+        long memberNext = jdbcTemplate.queryForObject("select next value for member_seq", Long.class);
+        long teamNext = jdbcTemplate.queryForObject("select next value for hibernate_sequence", Long.class);
+        jdbcTemplate.execute("alter sequence member_seq restart with "
+                + Math.max(memberNext + MEMBER_SEQ_ALLOCATION, maxMemberId + MEMBER_SEQ_ALLOCATION));
+        jdbcTemplate.execute("alter sequence hibernate_sequence restart with " + Math.max(teamNext + 1, maxTeamId + 1));
+    }
+}
@@ -0,0 +1,141 @@
+package study.querydsl.snapshot;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import static java.nio.file.StandardOpenOption.READ;
+import static study.querydsl.snapshot.SnapshotWriter.COLUMN_HEADER_SIZE;
+import static study.querydsl.snapshot.SnapshotWriter.END_TAG;
+import static study.querydsl.snapshot.SnapshotWriter.FORMAT_VERSION;
+import static study.querydsl.snapshot.SnapshotWriter.HEADER_SIZE;
+import static study.querydsl.snapshot.SnapshotWriter.MAGIC;
+
+/**
+ * SnapshotWriter 로 쓴 파일을 블록 단위로 읽는다.
+ * 압축된 컬럼은 파일을 메모리 매핑한 영역에서 바로 푼다.
+ */
+class SnapshotReader implements Closeable {
+
+    private final FileChannel channel;
+    private final Inflater inflater = new Inflater();
+    private final Map<SnapshotTable, ColumnDecoder[]> decodersByTable = new EnumMap<>(SnapshotTable.class);
+
+    private long position;
+    private SnapshotTable table;
+    private ColumnDecoder[] decoders;
+    private int rows;
+
+    SnapshotReader(Path path) throws IOException {
+        this.channel = FileChannel.open(path, READ);
+        ByteBuffer header = read(HEADER_SIZE);
+        if (header.getInt() != MAGIC) {
+            close();
+            throw new IOException("Not a member snapshot: " + path);
+        }
+        short version = header.getShort();
+        if (version != FORMAT_VERSION) {
+            close();
+            throw new IOException("Unsupported snapshot format version " + version + ": " + path);
+        }
+    }
+
+    /**
+     * 다음 블록의 컬럼을 모두 풀어 둔다. 더 이상 블록이 없으면 false
+     */
+    boolean nextBlock() throws IOException {
+        int tag = read(1).get();
+        if (tag == END_TAG) {
+            return false;
+        }
+        table = SnapshotTable.ofTag(tag);
+        rows = read(4).getInt();
+        decoders = decodersByTable.computeIfAbsent(table, t -> t.getColumns().stream()
+                .map(column -> new ColumnDecoder(column.getType()))
+                .toArray(ColumnDecoder[]::new));
+        for (ColumnDecoder decoder : decoders) {
+            inflate(decoder);
+        }
+        return true;
+    }
+
+    SnapshotTable table() {
+        return table;
+    }
+
+    int rows() {
+        return rows;
+    }
+
+    ColumnDecoder column(int index) {
+        return decoders[index];
+    }
+
+    /**
+     * 현재 블록의 다음 행을 SnapshotTable 컬럼 순서대로 바인딩한다.
+     */
+    void bindNextRow(PreparedStatement ps) throws SQLException {
+        for (int i = 0; i < decoders.length; i++) {
+            decoders[i].bindNext(ps, i + 1);
+        }
+    }
+
+    long getBytesRead() {
+        return position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        inflater.end();
+        channel.close();
+    }
+
+    private void inflate(ColumnDecoder decoder) throws IOException {
+        ByteBuffer lengths = read(COLUMN_HEADER_SIZE);
+        int rawLength = lengths.getInt();
+        int compressedLength = lengths.getInt();
+        MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, compressedLength);
+        position += compressedLength;
+
+        byte[] target = decoder.reset(rawLength);
+        inflater.reset();
+        inflater.setInput(region);
+        int inflated = 0;
+        try {
+            while (inflated < rawLength) {
+                int n = inflater.inflate(target, inflated, rawLength - inflated);
+                if (n == 0 && (inflater.finished() || inflater.needsInput())) {
+                    break;
+                }
+                inflated += n;
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt snapshot column in " + table + " block", e);
+        }
+        if (inflated != rawLength) {
+            throw new IOException("Truncated snapshot column in " + table + " block");
+        }
+    }
+
+    private ByteBuffer read(int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position);
+            if (n < 0) {
+                throw new EOFException("Unexpected end of snapshot at " + position);
+            }
+            position += n;
+        }
+        return buffer.flip();
+    }
+}
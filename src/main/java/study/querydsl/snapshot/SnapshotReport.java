@@ -0,0 +1,41 @@
+package study.querydsl.snapshot;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * 스냅샷 export/restore 결과 (테이블별 행 수, 파일 크기, 처리량)
+ */
+@Getter
+@ToString
+public class SnapshotReport {
+
+    private final Map<SnapshotTable, Long> rowCounts;
+    private final long bytes;
+    private final Duration elapsed;
+
+    public SnapshotReport(Map<SnapshotTable, Long> rowCounts, long bytes, Duration elapsed) {
+        this.rowCounts = Map.copyOf(rowCounts);
+        this.bytes = bytes;
+        this.elapsed = elapsed;
+    }
+
+    public long getTotalRows() {
+        return rowCounts.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    public double getRowsPerSecond() {
+        return getTotalRows() / seconds();
+    }
+
+    public double getMegabytesPerSecond() {
+        return bytes / (1024.0 * 1024.0) / seconds();
+    }
+
+    private double seconds() {
+        return Math.max(elapsed.toNanos(), 1) / 1_000_000_000.0;
+    }
+}
@@ -0,0 +1,89 @@
+package study.querydsl.snapshot;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static study.querydsl.snapshot.ColumnType.ID;
+import static study.querydsl.snapshot.ColumnType.INT;
+import static study.querydsl.snapshot.ColumnType.NULLABLE_DOUBLE;
+import static study.querydsl.snapshot.ColumnType.NULLABLE_LONG;
+import static study.querydsl.snapshot.ColumnType.STRING;
+
+/**
+ * 스냅샷에 들어가는 테이블과 컬럼 (파일에 쓰는 순서 = 복원 순서)
+ * ID 컬럼은 정렬 순서대로 증가하므로 앞 행과의 차이만 저장한다.
+ */
+public enum SnapshotTable {
+
+    TEAM(1, "team", "team_id",
+            new Column("team_id", ID), new Column("name", STRING), new Column("parent_id", NULLABLE_LONG)),
+    TEAM_CLOSURE(2, "team_closure", "ancestor_id, descendant_id",
+            new Column("ancestor_id", ID), new Column("descendant_id", ID), new Column("depth", INT)),
+    MEMBER(3, "member", "member_id",
+            new Column("member_id", ID), new Column("username", STRING), new Column("age", INT),
+            new Column("team_id", NULLABLE_LONG), new Column("version", NULLABLE_LONG),
+            new Column("latitude", NULLABLE_DOUBLE), new Column("longitude", NULLABLE_DOUBLE), new Column("geohash", STRING));
+
+    private final int tag;
+    private final String tableName;
+    private final String orderBy;
+    private final List<Column> columns;
+
+    SnapshotTable(int tag, String tableName, String orderBy, Column... columns) {
+        this.tag = tag;
+        this.tableName = tableName;
+        this.orderBy = orderBy;
+        this.columns = List.of(columns);
+    }
+
+    public int getTag() {
+        return tag;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public List<Column> getColumns() {
+        return columns;
+    }
+
+    String selectSql() {
+        return "select " + columnNames() + " from " + tableName + " order by " + orderBy;
+    }
+
+    String insertSql() {
+        String markers = columns.stream().map(column -> "?").collect(Collectors.joining(", "));
+        return "insert into " + tableName + " (" + columnNames() + ") values (" + markers + ")";
+    }
+
+    private String columnNames() {
+        return columns.stream().map(Column::getName).collect(Collectors.joining(", "));
+    }
+
+    static SnapshotTable ofTag(int tag) {
+        return Arrays.stream(values())
+                .filter(table -> table.tag == tag)
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Unknown snapshot table tag: " + tag));
+    }
+
+    public static class Column {
+        private final String name;
+        private final ColumnType type;
+
+        Column(String name, ColumnType type) {
+            this.name = name;
+            this.type = type;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public ColumnType getType() {
+            return type;
+        }
+    }
+}
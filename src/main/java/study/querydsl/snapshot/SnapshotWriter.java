@@ -0,0 +1,137 @@
+package study.querydsl.snapshot;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * 컬럼 단위 압축 스냅샷 파일 쓰기
+ *
+ * 파일 = 헤더(magic, 버전) + 블록* + 종료 태그(0)
+ * 블록 = 테이블 태그(1) + 행 수(4) + 컬럼*
+ * 컬럼 = 원본 길이(4) + 압축 길이(4) + deflate 바이트
+ *
+ * 행은 blockRows 개씩 컬럼별로 인코딩해서 모은 뒤, 파일의 다음 영역을 메모리 매핑해 그 안으로 바로 압축한다.
+ * (압축 결과를 힙 버퍼에 만든 뒤 다시 복사하지 않는다.)
+ */
+class SnapshotWriter implements Closeable {
+
+    static final int MAGIC = 0x4D534E50; //MSNP
+    //2 - member 위치 컬럼(latitude, longitude, geohash) 추가
+    static final short FORMAT_VERSION = 2;
+    static final int END_TAG = 0;
+    static final int HEADER_SIZE = 6;
+    static final int COLUMN_HEADER_SIZE = 8;
+
+    private final FileChannel channel;
+    private final int blockRows;
+    private final Deflater deflater;
+    private final Map<SnapshotTable, Long> rowCounts = new EnumMap<>(SnapshotTable.class);
+
+    private long position;
+    private SnapshotTable table;
+    private ColumnEncoder[] encoders;
+    private int rows;
+
+    SnapshotWriter(Path path, int blockRows, int compressionLevel) throws IOException {
+        this.channel = FileChannel.open(path, CREATE, TRUNCATE_EXISTING, READ, WRITE);
+        this.blockRows = blockRows;
+        this.deflater = new Deflater(compressionLevel);
+        writeFully(ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putShort(FORMAT_VERSION).flip());
+    }
+
+    /**
+     * 현재 행을 추가한다. ResultSet 의 컬럼 순서는 SnapshotTable 컬럼 순서와 같아야 한다.
+     * 테이블이 바뀌면 이전 테이블의 블록을 먼저 쓴다.
+     */
+    void append(SnapshotTable table, ResultSet rs) throws SQLException, IOException {
+        if (this.table != table) {
+            flushBlock();
+            this.table = table;
+            this.encoders = table.getColumns().stream()
+                    .map(column -> new ColumnEncoder(column.getType()))
+                    .toArray(ColumnEncoder[]::new);
+        }
+        for (int i = 0; i < encoders.length; i++) {
+            encoders[i].append(rs, i + 1);
+        }
+        if (++rows == blockRows) {
+            flushBlock();
+        }
+    }
+
+    long getBytesWritten() {
+        return position;
+    }
+
+    Map<SnapshotTable, Long> getRowCounts() {
+        return rowCounts;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flushBlock();
+            writeFully(ByteBuffer.allocate(1).put((byte) END_TAG).flip());
+            //마지막 컬럼을 매핑하면서 늘어난 뒷부분을 잘라낸다.
+            channel.truncate(position);
+            channel.force(false);
+        } finally {
+            deflater.end();
+            channel.close();
+        }
+    }
+
+    private void flushBlock() throws IOException {
+        if (rows == 0) {
+            return;
+        }
+        writeFully(ByteBuffer.allocate(5).put((byte) table.getTag()).putInt(rows).flip());
+        for (ColumnEncoder encoder : encoders) {
+            writeColumn(encoder.bytes(), encoder.size());
+            encoder.reset();
+        }
+        rowCounts.merge(table, (long) rows, Long::sum);
+        rows = 0;
+    }
+
+    private void writeColumn(byte[] raw, int length) throws IOException {
+        //zlib compressBound
+        long bound = length + (length >> 12) + (length >> 14) + (length >> 25) + 13 + 64;
+        MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_WRITE, position, COLUMN_HEADER_SIZE + bound);
+        region.putInt(length);
+        region.position(COLUMN_HEADER_SIZE);
+
+        deflater.reset();
+        deflater.setInput(raw, 0, length);
+        deflater.finish();
+        while (!deflater.finished()) {
+            if (!region.hasRemaining()) {
+                throw new IllegalStateException("Compressed column exceeds its bound: " + length + " bytes");
+            }
+            deflater.deflate(region);
+        }
+        int compressed = region.position() - COLUMN_HEADER_SIZE;
+        region.putInt(4, compressed);
+        position += COLUMN_HEADER_SIZE + compressed;
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+}
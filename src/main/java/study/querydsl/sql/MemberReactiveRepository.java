@@ -0,0 +1,150 @@
+package study.querydsl.sql;
+
+import com.querydsl.sql.Configuration;
+import com.querydsl.sql.SQLBindings;
+import com.querydsl.sql.SQLQuery;
+import io.r2dbc.spi.Row;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.time.Duration;
+import java.util.List;
+
+import static study.querydsl.sql.SMember.member;
+import static study.querydsl.sql.STeam.team;
+
+/**
+ * R2DBC 기반 회원 검색 (non-blocking)
+ * SQL 은 querydsl-sql 로 만들고(MemberSqlPredicates, MemberSqlRepository 와 같은 조건), 실행은 DatabaseClient 가 한다.
+ * - Flux 는 구독자의 request(n) 만큼만 Row 를 가져오므로 느린 소비자가 결과 전체를 메모리에 쌓지 않는다.
+ * - JPA 트랜잭션과 무관하게 R2DBC 커넥션 풀(spring.r2dbc)을 사용한다.
+ * - search 는 블로킹 검색과 같은 member.query-policy.search 설정을 따른다.
+ *   QueryPolicyAspect 의 스레드 로컬 정책은 쓸 수 없으므로 maxRows 는 SQL limit 으로, timeout 은 스트림 전체에 건다.
+ *   스트리밍 중에는 헤더를 바꿀 수 없어 잘렸다는 표시(X-Result-Truncated)는 하지 않는다.
+ */
+@Repository
+public class MemberReactiveRepository {
+
+    private final DatabaseClient databaseClient;
+    private final Configuration configuration;
+    private final Duration searchTimeout;
+    private final int searchMaxRows;
+
+    public MemberReactiveRepository(DatabaseClient databaseClient, Configuration querydslSqlConfiguration,
+                                    @Value("${member.query-policy.search.timeout:3s}") Duration searchTimeout,
+                                    @Value("${member.query-policy.search.max-rows:1000}") int searchMaxRows) {
+        this.databaseClient = databaseClient;
+        this.configuration = querydslSqlConfiguration;
+        this.searchTimeout = searchTimeout;
+        this.searchMaxRows = searchMaxRows;
+    }
+
+    public Flux<MemberTeamDto> search(MemberSearchCondition condition) {
+        SQLQuery<?> query = contentQuery(condition);
+        if (searchMaxRows > 0) {
+            query.limit(searchMaxRows);
+        }
+        //시간 예산을 넘기면 구독을 취소(R2DBC 가 실행 중인 쿼리를 취소)하고 블로킹 검색과 같은 예외로 끝낸다.
+        return execute(query)
+                .map((row, metadata) -> toDto(row))
+                .all()
+                .takeUntilOther(Mono.delay(searchTimeout)
+                        .then(Mono.error(() -> new QueryTimeoutException("search exceeded its query time budget"))));
+    }
+
+    public Mono<Page<MemberTeamDto>> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        SQLQuery<?> contentQuery = contentQuery(condition)
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize());
+
+        Mono<List<MemberTeamDto>> content = execute(contentQuery)
+                .map((row, metadata) -> toDto(row))
+                .all()
+                .collectList();
+
+        //PageableExecutionUtils.getPage 와 같이 마지막 페이지가 확실하면 count 쿼리를 생략한다.
+        return content.flatMap(list -> {
+            if (canSkipCount(list.size(), pageable)) {
+                return Mono.just(new PageImpl<>(list, pageable, pageable.getOffset() + list.size()));
+            }
+            return count(condition).map(total -> new PageImpl<>(list, pageable, total));
+        });
+    }
+
+    public Mono<Long> count(MemberSearchCondition condition) {
+        SQLQuery<Long> countQuery = new SQLQuery<Void>(configuration)
+                .select(member.memberId.count())
+                .from(member)
+                .leftJoin(team).on(member.teamId.eq(team.teamId))
+                .where(MemberSqlPredicates.of(condition));
+
+        return execute(countQuery)
+                .map((row, metadata) -> row.get(0, Long.class))
+                .one();
+    }
+
+    private SQLQuery<?> contentQuery(MemberSearchCondition condition) {
+        return new SQLQuery<Void>(configuration)
+                .select(member.memberId, member.username, member.age, team.teamId, team.name)
+                .from(member)
+                .leftJoin(team).on(member.teamId.eq(team.teamId))
+                .where(MemberSqlPredicates.of(condition));
+    }
+
+    private DatabaseClient.GenericExecuteSpec execute(SQLQuery<?> query) {
+        SQLBindings sqlBindings = query.getSQL();
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(toIndexedMarkers(sqlBindings.getSQL()));
+        List<Object> bindings = sqlBindings.getNullFriendlyBindings();
+        for (int i = 0; i < bindings.size(); i++) {
+            spec = spec.bind(i, bindings.get(i));
+        }
+        return spec;
+    }
+
+    private static boolean canSkipCount(int contentSize, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return true;
+        }
+        if (pageable.getOffset() == 0) {
+            return contentSize < pageable.getPageSize();
+        }
+        return contentSize != 0 && contentSize < pageable.getPageSize();
+    }
+
+    /**
+     * JDBC 바인드 마커(?)를 H2 R2DBC 드라이버의 인덱스 마커($1, $2 ...)로 바꾼다.
+     * querydsl-sql 은 상수를 모두 바인딩하므로 문자열 리터럴 안의 ? 는 고려하지 않는다.
+     */
+    static String toIndexedMarkers(String sql) {
+        StringBuilder builder = new StringBuilder(sql.length() + 8);
+        int index = 1;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '?') {
+                builder.append('$').append(index++);
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    private static MemberTeamDto toDto(Row row) {
+        Integer age = row.get(2, Integer.class);
+        return new MemberTeamDto(
+                row.get(0, Long.class),
+                row.get(1, String.class),
+                age != null ? age : 0,
+                row.get(3, Long.class),
+                row.get(4, String.class));
+    }
+}
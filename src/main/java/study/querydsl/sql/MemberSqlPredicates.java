@@ -0,0 +1,86 @@
+package study.querydsl.sql;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.sql.SQLExpressions;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.geo.GeoFilter;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.sql.SMember.member;
+import static study.querydsl.sql.STeam.team;
+import static study.querydsl.sql.STeamClosure.teamClosure;
+
+/**
+ * SMember/STeam 기준 MemberSearchCondition 조건
+ * MemberSqlRepository(JDBC)와 MemberReactiveRepository(R2DBC)가 같은 조건을 사용한다.
+ */
+final class MemberSqlPredicates {
+
+    private MemberSqlPredicates() {
+    }
+
+    static Predicate[] of(MemberSearchCondition condition) {
+        return new Predicate[]{
+                usernameEq(condition.getUsername()),
+                teamNameEq(condition.getTeamName()),
+                teamIdEq(condition.getTeamId()),
+                teamSubtreeIn(condition.getTeamSubtree()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe()),
+                geo(GeoFilter.of(condition))
+        };
+    }
+
+    static BooleanExpression usernameEq(String username) {
+        return hasText(username) ? member.username.eq(username) : null;
+    }
+
+    static BooleanExpression teamNameEq(String teamName) {
+        return hasText(teamName) ? team.name.eq(teamName) : null;
+    }
+
+    static BooleanExpression teamIdEq(Long teamId) {
+        return teamId != null ? member.teamId.eq(teamId) : null;
+    }
+
+    //JPA 쪽(TeamSubtreeJoin)과 같은 closure table 조회. 조건 배열로 넘기기 위해 조인 대신 IN 서브쿼리로 쓴다.
+    static BooleanExpression teamSubtreeIn(Long rootTeamId) {
+        return rootTeamId != null
+                ? member.teamId.in(SQLExpressions.select(teamClosure.descendantId)
+                        .from(teamClosure)
+                        .where(teamClosure.ancestorId.eq(rootTeamId)))
+                : null;
+    }
+
+    static BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    }
+
+    static BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+
+    //JPA 쪽(MemberPredicates)과 같은 geohash 셀 범위 + 위도/경도 범위 + 반경 조건
+    static BooleanExpression geo(GeoFilter geo) {
+        if (geo == null) {
+            return null;
+        }
+        BooleanExpression cells = null;
+        for (String[] range : geo.getCellRanges()) {
+            BooleanExpression cell = member.geohash.goe(range[0]).and(member.geohash.lt(range[1]));
+            cells = cells == null ? cell : cells.or(cell);
+        }
+        BooleanExpression result = cells
+                .and(member.latitude.between(geo.getBox().getMinLatitude(), geo.getBox().getMaxLatitude()))
+                .and(member.longitude.between(geo.getBox().getMinLongitude(), geo.getBox().getMaxLongitude()));
+        if (!geo.hasRadius()) {
+            return result;
+        }
+        return result.and(Expressions.booleanTemplate(GeoFilter.WITHIN_RADIUS_TEMPLATE,
+                member.latitude, member.longitude,
+                Expressions.constant(geo.getCenterLatitudeRadians()), Expressions.constant(geo.getCenterLongitudeRadians()),
+                Expressions.constant(geo.getCosCenterLatitude()), Expressions.constant(geo.getMaxHaversine())));
+    }
+}
@@ -0,0 +1,114 @@
+package study.querydsl.sql;
+
+import com.querydsl.core.types.Projections;
+import com.querydsl.sql.SQLQuery;
+import com.querydsl.sql.SQLQueryFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberRepositoryCustom;
+import study.querydsl.repository.support.QueryPolicies;
+import study.querydsl.repository.support.QueryPolicy;
+
+import java.util.List;
+
+import static study.querydsl.sql.SMember.member;
+import static study.querydsl.sql.STeam.team;
+
+/**
+ * querydsl-sql(네이티브 SQL) 기반 회원 검색
+ * JPQL -> Hibernate -> SQL 변환과 엔티티 관리 없이 ResultSet 에서 바로 MemberTeamDto 를 만든다.
+ * MemberRepositoryImpl 과 같은 MemberSearchCondition 의미를 가진다.
+ */
+@Repository
+@Transactional(readOnly = true)
+public class MemberSqlRepository implements MemberRepositoryCustom {
+
+    private final SQLQueryFactory queryFactory;
+
+    public MemberSqlRepository(SQLQueryFactory queryFactory) {
+        this.queryFactory = queryFactory;
+    }
+
+    @Override
+    @QueryPolicy(timeout = "${member.query-policy.search.timeout:3s}",
+            maxRows = "${member.query-policy.search.max-rows:1000}")
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        return QueryPolicies.fetch(contentQuery(condition));
+    }
+
+    @Override
+    @QueryPolicy(timeout = "${member.query-policy.page.timeout:3s}",
+            maxRows = "${member.query-policy.page.max-rows:1000}",
+            onExceed = QueryPolicy.OnExceed.ERROR)
+    public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+        List<MemberTeamDto> content = QueryPolicies.fetch(contentQuery(condition)
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize()));
+
+        int total = content.size();
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    @Override
+    @QueryPolicy(timeout = "${member.query-policy.page.timeout:3s}",
+            maxRows = "${member.query-policy.page.max-rows:1000}",
+            onExceed = QueryPolicy.OnExceed.ERROR)
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        List<MemberTeamDto> content = QueryPolicies.fetch(contentQuery(condition)
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize()));
+
+        SQLQuery<Long> countQuery = queryFactory
+                .select(member.memberId.count())
+                .from(member)
+                .leftJoin(team).on(member.teamId.eq(team.teamId))
+                .where(MemberSqlPredicates.of(condition));
+
+        return PageableExecutionUtils.getPage(content, pageable, () -> QueryPolicies.fetchOne(countQuery));
+    }
+
+    @Override
+    @QueryPolicy(timeout = "${member.query-policy.search.timeout:3s}")
+    public boolean exists(MemberSearchCondition condition) {
+        SQLQuery<Integer> query = queryFactory
+                .selectOne()
+                .from(member)
+                .leftJoin(team).on(member.teamId.eq(team.teamId))
+                .where(MemberSqlPredicates.of(condition))
+                .limit(1);
+        return QueryPolicies.fetchOne(query) != null;
+    }
+
+    @Override
+    @QueryPolicy(timeout = "${member.query-policy.search.timeout:3s}",
+            maxRows = "${member.query-policy.search.max-rows:1000}")
+    public List<Long> distinctTeams(MemberSearchCondition condition) {
+        return QueryPolicies.fetch(queryFactory
+                .select(team.teamId)
+                .distinct()
+                .from(member)
+                .join(team).on(member.teamId.eq(team.teamId))
+                .where(MemberSqlPredicates.of(condition))
+                .orderBy(team.teamId.asc()));
+    }
+
+    private SQLQuery<MemberTeamDto> contentQuery(MemberSearchCondition condition) {
+        return queryFactory
+                .select(Projections.constructor(MemberTeamDto.class,
+                        member.memberId,
+                        member.username,
+                        member.age,
+                        team.teamId,
+                        team.name
+                ))
+                .from(member)
+                .leftJoin(team).on(member.teamId.eq(team.teamId))
+                .where(MemberSqlPredicates.of(condition));
+    }
+}
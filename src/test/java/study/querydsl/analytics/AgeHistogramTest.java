@@ -0,0 +1,48 @@
+package study.querydsl.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AgeHistogramTest {
+
+    @Test
+    void percentile() {
+        AgeHistogram histogram = new AgeHistogram();
+        for (int age = 1; age <= 100; age++) {
+            histogram.add(age);
+        }
+
+        assertThat(histogram.count()).isEqualTo(100);
+        assertThat(histogram.percentile(50)).isEqualTo(50);
+        assertThat(histogram.percentile(99)).isEqualTo(99);
+        assertThat(histogram.percentile(100)).isEqualTo(100);
+        assertThat(histogram.mean()).isEqualTo(50.5);
+    }
+
+    @Test
+    void removeAndMerge() {
+        AgeHistogram teamA = new AgeHistogram();
+        teamA.add(10);
+        teamA.add(20);
+        AgeHistogram teamB = new AgeHistogram();
+        teamB.add(30);
+        teamB.add(40);
+        teamB.remove(40);
+
+        teamA.merge(teamB);
+
+        assertThat(teamA.count()).isEqualTo(3);
+        assertThat(teamA.percentile(100)).isEqualTo(30);
+        assertThat(new AgeHistogram().percentile(50)).isNull();
+    }
+
+    @Test
+    void rejectsPercentileOutOfRange() {
+        AgeHistogram histogram = new AgeHistogram();
+
+        assertThatThrownBy(() -> histogram.percentile(101)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> histogram.percentile(Double.NaN)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,45 @@
+package study.querydsl.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class BloomFilterTest {
+
+    @Test
+    void noFalseNegatives() {
+        BloomFilter filter = new BloomFilter(100_000, 0.01);
+        for (int i = 0; i < 100_000; i++) {
+            filter.put("member" + i);
+        }
+
+        for (int i = 0; i < 100_000; i++) {
+            assertThat(filter.mightContain("member" + i)).isTrue();
+        }
+        assertThat(filter.getInsertions()).isEqualTo(100_000);
+    }
+
+    @Test
+    void falsePositiveRateCloseToConfigured() {
+        BloomFilter filter = new BloomFilter(100_000, 0.01);
+        for (int i = 0; i < 100_000; i++) {
+            filter.put("member" + i);
+        }
+
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain("absent" + i)) {
+                falsePositives++;
+            }
+        }
+
+        double measured = (double) falsePositives / probes;
+        System.out.printf("bits=%d, hashes=%d, memory=%dKB, expectedFpp=%.5f, measuredFpp=%.5f%n",
+                filter.getBitSize(), filter.getHashCount(), filter.getMemoryBytes() / 1024,
+                filter.expectedFpp(), measured);
+        assertThat(measured).isCloseTo(0.01, within(0.005));
+        assertThat(filter.expectedFpp()).isCloseTo(0.01, within(0.005));
+    }
+}
@@ -0,0 +1,34 @@
+package study.querydsl.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class HyperLogLogTest {
+
+    @Test
+    void estimate() {
+        HyperLogLog hll = new HyperLogLog();
+        for (int i = 0; i < 100_000; i++) {
+            hll.add("member" + i);
+            hll.add("member" + i);
+        }
+
+        assertThat((double) hll.estimate()).isCloseTo(100_000, within(100_000 * 0.05));
+    }
+
+    @Test
+    void smallCardinalityAndMerge() {
+        HyperLogLog teamA = new HyperLogLog();
+        HyperLogLog teamB = new HyperLogLog();
+        for (int i = 0; i < 50; i++) {
+            teamA.add("member" + i);
+            teamB.add("member" + (i + 25));
+        }
+
+        teamA.merge(teamB);
+
+        assertThat(teamA.estimate()).isBetween(72L, 78L);
+    }
+}
@@ -0,0 +1,119 @@
+package study.querydsl.analytics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.ActivityRollupDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.MemberActivity;
+import study.querydsl.entity.MemberActivityType;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberActivityRepository;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * 활동은 커밋 이후에 저장되므로 테스트 데이터를 커밋하고 끝나면 지운다.
+ */
+@SpringBootTest
+class MemberActivityRecorderTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberActivityRecorder recorder;
+
+    @Autowired
+    MemberActivityRepository memberActivityRepository;
+
+    TransactionTemplate transactionTemplate;
+    Long memberId;
+    Long teamAId;
+    Long teamBId;
+
+    @BeforeEach
+    void before() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            Member member = new Member("member1", 10, teamA);
+            em.persist(member);
+            em.flush();
+            memberId = member.getId();
+            teamAId = teamA.getId();
+            teamBId = teamB.getId();
+        });
+    }
+
+    @AfterEach
+    void after() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from MemberActivity a where a.memberId = :memberId")
+                    .setParameter("memberId", memberId)
+                    .executeUpdate();
+            em.createQuery("delete from MemberActivityDailyRollup r where r.teamId in :teamIds")
+                    .setParameter("teamIds", List.of(teamAId, teamBId))
+                    .executeUpdate();
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from TeamClosure").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    void recordsAgeAndTeamChanges() {
+        LocalDateTime from = LocalDateTime.now().minusMinutes(1);
+        transactionTemplate.executeWithoutResult(status -> {
+            Member member = em.find(Member.class, memberId);
+            member.setAge(11);
+        });
+        transactionTemplate.executeWithoutResult(status -> {
+            Member member = em.find(Member.class, memberId);
+            member.changeTeam(em.find(Team.class, teamBId));
+        });
+        recorder.flush();
+        LocalDateTime to = LocalDateTime.now().plusMinutes(1);
+
+        List<MemberActivity> activities = memberActivityRepository.findActivities(null, from, to).stream()
+                .filter(activity -> activity.getMemberId().equals(memberId))
+                .collect(Collectors.toList());
+        assertThat(activities).extracting("type", "teamId").containsExactly(
+                tuple(MemberActivityType.AGE_CHANGE, teamAId),
+                tuple(MemberActivityType.TEAM_CHANGE, teamBId));
+
+        LocalDate day = activities.get(0).getOccurredAt().toLocalDate();
+        memberActivityRepository.rollupDay(day);
+        List<ActivityRollupDto> rollups = memberActivityRepository.findDailyRollups(teamAId, day, day);
+        assertThat(rollups).extracting("type", "eventCount", "memberCount")
+                .containsExactly(tuple(MemberActivityType.AGE_CHANGE, 1L, 1L));
+    }
+
+    @Test
+    void rolledBackChangeIsNotRecorded() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.find(Member.class, memberId).setAge(99);
+            em.flush();
+            status.setRollbackOnly();
+        });
+
+        assertThat(recorder.flush()).isZero();
+    }
+}
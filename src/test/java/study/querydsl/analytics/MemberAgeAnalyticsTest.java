@@ -0,0 +1,111 @@
+package study.querydsl.analytics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.AgeDistributionDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 커밋 이후 이벤트를 확인해야 하므로 @Transactional 롤백 대신 직접 지운다.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class MemberAgeAnalyticsTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberAgeAnalytics memberAgeAnalytics;
+
+    @AfterEach
+    void cleanUp() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from TeamClosure").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+        memberAgeAnalytics.rebuild();
+    }
+
+    @Test
+    void rebuildAndIncrementalUpdate() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        Team teamA = transactionTemplate.execute(status -> {
+            Team team = new Team("teamA");
+            em.persist(team);
+            em.persist(new Member("member1", 10, team));
+            em.persist(new Member("member2", 20, team));
+            return team;
+        });
+
+        memberAgeAnalytics.rebuild();
+        AgeDistributionDto distribution = memberAgeAnalytics.distribution(teamA.getId(), 50, 100);
+        assertThat(distribution.getCount()).isEqualTo(2);
+        assertThat(distribution.getPercentiles()).containsEntry(100.0, 20);
+        assertThat(distribution.getDistinctUsernames()).isEqualTo(2);
+
+        //커밋된 변경은 DB 를 다시 읽지 않고 반영된다.
+        transactionTemplate.executeWithoutResult(status -> {
+            Team team = em.find(Team.class, teamA.getId());
+            em.persist(new Member("member3", 30, team));
+            Member member1 = em.createQuery("select m from Member m where m.username = 'member1'", Member.class)
+                    .getSingleResult();
+            member1.setAge(15);
+        });
+
+        distribution = memberAgeAnalytics.distribution(teamA.getId(), 0, 50, 100);
+        assertThat(distribution.getCount()).isEqualTo(3);
+        assertThat(distribution.getPercentiles())
+                .containsEntry(0.0, 15)
+                .containsEntry(50.0, 20)
+                .containsEntry(100.0, 30);
+        //teamId 가 null 이면 모든 팀을 합친다.
+        assertThat(memberAgeAnalytics.percentile(null, 100)).isEqualTo(30);
+        assertThat(memberAgeAnalytics.percentile(teamA.getId() + 1000, 100)).isNull();
+    }
+
+    @Test
+    void outOfRangePercentileIsBadRequest() throws Exception {
+        mockMvc.perform(get("/analytics/ages").param("percentiles", "50,101"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/analytics/ages").param("percentiles", "-1"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/analytics/ages").param("percentiles", "NaN"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/analytics/ages").param("percentiles", "0,100"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void rolledBackChangesAreIgnored() {
+        memberAgeAnalytics.rebuild();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(new Member("member1", 10));
+            em.flush();
+            status.setRollbackOnly();
+        });
+
+        assertThat(memberAgeAnalytics.distribution(null, 50).getCount()).isZero();
+    }
+}
@@ -0,0 +1,116 @@
+package study.querydsl.config;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.jpa.repository.support.JpaEntityInformation;
+import org.springframework.data.jpa.repository.support.JpaEntityInformationSupport;
+import org.springframework.data.jpa.repository.support.Querydsl;
+import org.springframework.data.querydsl.SimpleEntityPathResolver;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.support.Querydsl4RepositorySupport;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 같은 컨텍스트에 지연 초기화 리포지토리와 기존(baseline) 방식으로 즉시 초기화하는 리포지토리를 같은 수만큼 올리고
+ * 빈 생성 시간(self time)의 합을 비교한다.
+ */
+@SpringBootTest
+class StartupTimingBeanPostProcessorTest {
+
+    static final int REPOSITORIES = 20;
+
+    @Autowired
+    StartupTimingBeanPostProcessor startupTiming;
+
+    @Test
+    void lazyRepositoriesStartFasterThanEagerBaseline() {
+        Duration lazy = totalOf("lazyRepository");
+        Duration eager = totalOf("eagerRepository");
+
+        assertThat(lazy).isLessThan(eager);
+    }
+
+    @Test
+    void timesOtherBeanPostProcessors() {
+        assertThat(startupTiming.getTimings())
+                .containsKeys("hikariMetricsConfigurer", "transactionTimingConfigurer", "memberTestRepository");
+        assertThat(startupTiming.getUntimedBeans())
+                .doesNotContain("hikariMetricsConfigurer", "transactionTimingConfigurer", "memberTestRepository");
+    }
+
+    private Duration totalOf(String prefix) {
+        Map<String, Duration> timings = startupTiming.getTimings();
+        Duration total = Duration.ZERO;
+        for (int i = 0; i < REPOSITORIES; i++) {
+            assertThat(timings).containsKey(prefix + i);
+            total = total.plus(timings.get(prefix + i));
+        }
+        return total;
+    }
+
+    @TestConfiguration
+    static class RepositoryRegistration {
+
+        @Bean
+        static BeanDefinitionRegistryPostProcessor startupTimingRepositories() {
+            return new BeanDefinitionRegistryPostProcessor() {
+                @Override
+                public void postProcessBeanDefinitionRegistry(BeanDefinitionRegistry registry) {
+                    for (int i = 0; i < REPOSITORIES; i++) {
+                        registry.registerBeanDefinition("lazyRepository" + i, new RootBeanDefinition(LazyMemberSupport.class));
+                        registry.registerBeanDefinition("eagerRepository" + i, new RootBeanDefinition(EagerMemberSupport.class));
+                    }
+                }
+
+                @Override
+                public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+                }
+            };
+        }
+    }
+
+    static class LazyMemberSupport extends Querydsl4RepositorySupport {
+        LazyMemberSupport() {
+            super(Member.class);
+        }
+    }
+
+    /**
+     * 지연 초기화 이전의 setEntityManager 와 같이 주입 시점에 엔티티 정보, Querydsl, JPAQueryFactory 를 만든다.
+     */
+    static class EagerMemberSupport extends Querydsl4RepositorySupport {
+
+        Querydsl querydsl;
+        JPAQueryFactory queryFactory;
+
+        EagerMemberSupport() {
+            super(Member.class);
+        }
+
+        @Override
+        @Autowired
+        public void setEntityManager(EntityManager entityManager) {
+            super.setEntityManager(entityManager);
+            JpaEntityInformation<?, ?> entityInformation =
+                    JpaEntityInformationSupport.getEntityInformation(Member.class, entityManager);
+            EntityPath<?> path = SimpleEntityPathResolver.INSTANCE.createPath(entityInformation.getJavaType());
+            this.querydsl = new Querydsl(entityManager, new PathBuilder<>(path.getType(), path.getMetadata()));
+            this.queryFactory = new JPAQueryFactory(entityManager);
+        }
+    }
+}
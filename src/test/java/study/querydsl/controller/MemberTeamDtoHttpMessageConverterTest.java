@@ -0,0 +1,164 @@
+package study.querydsl.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class MemberTeamDtoHttpMessageConverterTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    MemberTeamDtoHttpMessageConverter converter = new MemberTeamDtoHttpMessageConverter();
+
+    @BeforeEach
+    void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+    }
+
+    @Test
+    void compactPageEnvelope() throws Exception {
+        mockMvc.perform(get("/v3/members").param("size", "3"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.content.length()").value(3))
+                .andExpect(jsonPath("$.content[0].username").value("member1"))
+                .andExpect(jsonPath("$.content[0].teamName").value("teamA"))
+                .andExpect(jsonPath("$.size").value(3))
+                .andExpect(jsonPath("$.totalElements").value(4))
+                .andExpect(jsonPath("$.totalPages").value(2))
+                .andExpect(jsonPath("$.pageable").doesNotExist())
+                .andExpect(jsonPath("$.sort").doesNotExist());
+    }
+
+    @Test
+    void listKeepsJacksonShape() throws Exception {
+        MvcResult result = mockMvc.perform(get("/v1/members").param("teamName", "teamB"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        JsonNode body = objectMapper.readTree(result.getResponse().getContentAsByteArray());
+        assertThat(body).isEqualTo(objectMapper.valueToTree(memberRepository.search(condition)));
+        assertThat(body.size()).isEqualTo(2);
+    }
+
+    @Test
+    void smileAndCborByAccept() throws Exception {
+        byte[] smile = mockMvc.perform(get("/v3/members").accept(MemberTeamDtoHttpMessageConverter.APPLICATION_SMILE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MemberTeamDtoHttpMessageConverter.APPLICATION_SMILE))
+                .andReturn().getResponse().getContentAsByteArray();
+        byte[] cbor = mockMvc.perform(get("/v3/members").accept(MemberTeamDtoHttpMessageConverter.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MemberTeamDtoHttpMessageConverter.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode smileBody = new ObjectMapper(new SmileFactory()).readTree(smile);
+        JsonNode cborBody = new ObjectMapper(new CBORFactory()).readTree(cbor);
+        assertThat(smileBody.get("totalElements").asLong()).isEqualTo(4);
+        assertThat(smileBody).isEqualTo(cborBody);
+    }
+
+    /**
+     * 응답 1건당 바이트 수와 CPU 시간 비교 (PageImpl + ObjectMapper vs 전용 컨버터)
+     */
+    @Test
+    void bytesAndCpuPerResponse() throws Exception {
+        List<MemberTeamDto> content = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            content.add(new MemberTeamDto((long) i, "member" + i, i % 100, (long) (i % 10), "team" + (i % 10)));
+        }
+        Page<MemberTeamDto> page = new PageImpl<>(content, PageRequest.of(0, 100), 10_000);
+
+        report("jackson(PageImpl)", () -> objectMapper.writeValueAsBytes(page));
+        report("compact json", () -> write(page, MediaType.APPLICATION_JSON));
+        report("compact smile", () -> write(page, MemberTeamDtoHttpMessageConverter.APPLICATION_SMILE));
+        report("compact cbor", () -> write(page, MemberTeamDtoHttpMessageConverter.APPLICATION_CBOR));
+
+        assertThat(write(page, MediaType.APPLICATION_JSON).length)
+                .isLessThan(objectMapper.writeValueAsBytes(page).length);
+    }
+
+    private byte[] write(Page<MemberTeamDto> page, MediaType mediaType) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+        converter.write(page, mediaType, out);
+        return out.toByteArray();
+    }
+
+    private void report(String name, Encoder encoder) throws Exception {
+        int iterations = 5_000;
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+        //warm up
+        for (int i = 0; i < 1_000; i++) {
+            encoder.encode();
+        }
+
+        int bytes = 0;
+        long cpuStart = threadMXBean.getCurrentThreadCpuTime();
+        for (int i = 0; i < iterations; i++) {
+            bytes = encoder.encode().length;
+        }
+        long cpuNanos = threadMXBean.getCurrentThreadCpuTime() - cpuStart;
+
+        System.out.println(name + " = " + bytes + " bytes, " + cpuNanos / iterations / 1_000 + "us cpu/op");
+    }
+
+    @FunctionalInterface
+    private interface Encoder {
+        byte[] encode() throws Exception;
+    }
+}
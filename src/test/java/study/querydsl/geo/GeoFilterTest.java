@@ -0,0 +1,85 @@
+package study.querydsl.geo;
+
+import org.junit.jupiter.api.Test;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class GeoFilterTest {
+
+    @Test
+    void noLocationCondition() {
+        assertThat(GeoFilter.of(new MemberSearchCondition())).isNull();
+    }
+
+    @Test
+    void radiusMatchesDistance() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setLatitude(37.5663);
+        condition.setLongitude(126.9779);
+        condition.setRadiusMeters(5_000.0);
+        GeoFilter filter = GeoFilter.of(condition);
+
+        Random random = new Random(7);
+        for (int i = 0; i < 10_000; i++) {
+            double lat = 37.5663 + (random.nextDouble() - 0.5) * 0.2;
+            double lon = 126.9779 + (random.nextDouble() - 0.5) * 0.2;
+            double distance = GeoFilter.distanceMeters(37.5663, 126.9779, lat, lon);
+            if (Math.abs(distance - 5_000) > 0.01) {
+                assertThat(filter.matches(lat, lon)).as("%s, %s (%sm)", lat, lon, distance).isEqualTo(distance <= 5_000);
+            }
+        }
+        assertThat(filter.matches(null, null)).isFalse();
+    }
+
+    @Test
+    void distance() {
+        //서울시청 - 부산역
+        assertThat(GeoFilter.distanceMeters(37.5663, 126.9779, 35.1151, 129.0415)).isCloseTo(329_000, within(5_000.0));
+        assertThat(GeoFilter.distanceMeters(10, 20, 10, 20)).isZero();
+    }
+
+    @Test
+    void radiusAndBoxIntersect() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setLatitude(0.0);
+        condition.setLongitude(0.0);
+        condition.setRadiusMeters(100_000.0);
+        condition.setMinLatitude(0.0);
+        condition.setMaxLatitude(10.0);
+        condition.setMinLongitude(0.0);
+        condition.setMaxLongitude(10.0);
+        GeoFilter filter = GeoFilter.of(condition);
+
+        assertThat(filter.getBox().getMinLatitude()).isZero();
+        assertThat(filter.getBox().getMaxLatitude()).isLessThan(1);
+        assertThat(filter.matches(0.5, 0.5)).isTrue();
+        assertThat(filter.matches(-0.1, 0.5)).isFalse();
+        assertThat(filter.matches(5, 5)).isFalse();
+    }
+
+    @Test
+    void boxNearAntimeridianCoversAllLongitudes() {
+        GeoBox box = GeoBox.around(0, 179.99, 10_000);
+
+        assertThat(box.getMinLongitude()).isEqualTo(-180);
+        assertThat(box.getMaxLongitude()).isEqualTo(180);
+    }
+
+    @Test
+    void incompleteCondition() {
+        MemberSearchCondition radius = new MemberSearchCondition();
+        radius.setLatitude(37.0);
+        radius.setRadiusMeters(10.0);
+        assertThatThrownBy(() -> GeoFilter.of(radius)).isInstanceOf(IllegalArgumentException.class);
+
+        MemberSearchCondition box = new MemberSearchCondition();
+        box.setMinLatitude(37.0);
+        box.setMaxLatitude(38.0);
+        assertThatThrownBy(() -> GeoFilter.of(box)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,62 @@
+package study.querydsl.geo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GeoHashTest {
+
+    @Test
+    void encode() {
+        assertThat(GeoHash.encode(57.64911, 10.40744, 11)).isEqualTo("u4pruydqqvj");
+        assertThat(GeoHash.encode(37.5663, 126.9779, 12)).startsWith("wydm9");
+        assertThat(GeoHash.encode(-90, -180, 3)).isEqualTo("000");
+        assertThat(GeoHash.encode(90, 180, 3)).isEqualTo("zzz");
+    }
+
+    @Test
+    void next() {
+        assertThat(GeoHash.next("wydm")).isEqualTo("wydn");
+        assertThat(GeoHash.next("0z")).isEqualTo("10");
+        assertThat(GeoHash.next("zz")).isNull();
+    }
+
+    @Test
+    void coverRangesContainEveryPointInBox() {
+        Random random = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            double lat = random.nextDouble() * 170 - 85;
+            double lon = random.nextDouble() * 350 - 175;
+            GeoBox box = GeoBox.around(lat, lon, random.nextDouble() * 50_000);
+            List<String[]> ranges = GeoHash.coverRanges(box);
+            assertThat(ranges).hasSizeBetween(1, 4);
+
+            for (int j = 0; j < 20; j++) {
+                double pointLat = box.getMinLatitude() + random.nextDouble() * box.getHeight();
+                double pointLon = box.getMinLongitude() + random.nextDouble() * box.getWidth();
+                String hash = GeoHash.encode(pointLat, pointLon, GeoHash.MAX_PRECISION);
+                assertThat(ranges).anyMatch(range -> hash.compareTo(range[0]) >= 0 && hash.compareTo(range[1]) < 0);
+            }
+        }
+    }
+
+    @Test
+    void coverRangesMergeAdjacentCells() {
+        //셀 "0"(경도 -180 ~ -135)과 "1"(경도 -135 ~ -90)에 걸친 영역 - geohash 순서로도 이어지므로 범위 하나
+        List<String[]> ranges = GeoHash.coverRanges(new GeoBox(-80, -50, -150, -120));
+
+        assertThat(ranges).hasSize(1);
+        assertThat(ranges.get(0)).containsExactly("0", "1{");
+    }
+
+    @Test
+    void hugeBoxCoversEverything() {
+        List<String[]> ranges = GeoHash.coverRanges(new GeoBox(-60, 60, -100, 100));
+
+        assertThat(ranges).hasSize(1);
+        assertThat(ranges.get(0)).containsExactly("", "{");
+    }
+}
@@ -0,0 +1,87 @@
+package study.querydsl.monitoring;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.MemberJpaRepository;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 커넥션 2개짜리 풀에 커넥션을 오래 잡는 요청을 몰아서 대기 시간을 만든 뒤,
+ * 낮은 우선순위 검색은 바로 거절되고 (신뢰하는 주소에서 온) 높은 우선순위 검색은 통과하는지 확인한다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.hikari.maximum-pool-size=2",
+        "member.pool-guard.wait-threshold=50ms"
+})
+@AutoConfigureMockMvc
+class PoolSaturationGuardTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ConnectionPoolMetrics metrics;
+
+    @Autowired
+    PoolSaturationGuard guard;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    void shedsLowPriorityRequestsWhenPoolIsSaturated() throws Exception {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 8; i++) {
+            executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                memberJpaRepository.search(new MemberSearchCondition());
+                sleep(200);
+            }));
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(guard.isSaturated()).isTrue();
+        mockMvc.perform(get("/v3/members"))
+                .andExpect(status().isServiceUnavailable());
+        //신뢰하지 않는 주소에서 온 우선순위 헤더는 무시한다.
+        mockMvc.perform(get("/v3/members").header(PoolSaturationGuard.PRIORITY_HEADER, "high")
+                        .with(request -> {
+                            request.setRemoteAddr("10.0.0.1");
+                            return request;
+                        }))
+                .andExpect(status().isServiceUnavailable());
+        mockMvc.perform(get("/v3/members").header(PoolSaturationGuard.PRIORITY_HEADER, "high"))
+                .andExpect(status().isOk());
+        assertThat(guard.getShedCount()).isGreaterThanOrEqualTo(1);
+
+        ConnectionPoolMetrics.MethodStats search = metrics.getMethods().get("MemberJpaRepository.search");
+        assertThat(search.getCalls().getCount()).isGreaterThanOrEqualTo(8);
+        assertThat(metrics.getAcquire().getMaxMillis()).isGreaterThan(50);
+        assertThat(metrics.getTransactions().getCount()).isGreaterThanOrEqualTo(8);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package study.querydsl.monitoring;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.repository.MemberRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 바깥 트랜잭션 없이 호출한 Spring Data 리포지토리(SimpleJpaRepository 의 @Transactional)도 트랜잭션 시간에 기록되는지 확인한다.
+ */
+@SpringBootTest
+class TransactionTimingConfigurerTest {
+
+    @Autowired
+    ConnectionPoolMetrics metrics;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    void recordsTransactionOpenedByRepository() {
+        long before = metrics.getTransactions().getCount();
+
+        memberRepository.findAll();
+
+        assertThat(metrics.getTransactions().getCount()).isEqualTo(before + 1);
+    }
+
+    @Test
+    void participatingRepositoryCallIsNotCountedTwice() {
+        long before = metrics.getTransactions().getCount();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            memberRepository.findAll();
+            memberRepository.count();
+        });
+
+        assertThat(metrics.getTransactions().getCount()).isEqualTo(before + 1);
+    }
+}
@@ -0,0 +1,87 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.ActivityRollupDto;
+import study.querydsl.entity.MemberActivity;
+import study.querydsl.entity.MemberActivityType;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+@Transactional
+class MemberActivityRepositoryTest {
+
+    static final LocalDate DAY1 = LocalDate.of(2024, 3, 1);
+    static final LocalDate DAY2 = LocalDate.of(2024, 3, 2);
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberActivityRepository memberActivityRepository;
+
+    @BeforeEach
+    void before() {
+        //teamA(1) - member1, member2 / teamB(2) - member3
+        memberActivityRepository.save(new MemberActivity(1L, 1L, MemberActivityType.LOGIN, DAY1.atTime(9, 0)));
+        memberActivityRepository.save(new MemberActivity(1L, 1L, MemberActivityType.LOGIN, DAY1.atTime(18, 0)));
+        memberActivityRepository.save(new MemberActivity(2L, 1L, MemberActivityType.LOGIN, DAY1.atTime(10, 0)));
+        memberActivityRepository.save(new MemberActivity(2L, 1L, MemberActivityType.AGE_CHANGE, DAY1.atTime(11, 0)));
+        memberActivityRepository.save(new MemberActivity(3L, 2L, MemberActivityType.LOGIN, DAY1.atTime(23, 59)));
+        memberActivityRepository.save(new MemberActivity(3L, 2L, MemberActivityType.LOGIN, DAY2.atTime(0, 1)));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void bucketIsDay() {
+        assertThat(MemberActivity.bucketOf(DAY1)).isEqualTo(20240301);
+    }
+
+    @Test
+    void findActivitiesInPeriod() {
+        List<MemberActivity> result = memberActivityRepository.findActivities(2L,
+                DAY1.atTime(12, 0), DAY2.atTime(12, 0));
+
+        assertThat(result).extracting("occurredAt")
+                .containsExactly(DAY1.atTime(23, 59), DAY2.atTime(0, 1));
+    }
+
+    @Test
+    void countByType() {
+        Map<MemberActivityType, Long> counts = memberActivityRepository.countByType(DAY1.atStartOfDay(), DAY2.atStartOfDay());
+
+        assertThat(counts).containsEntry(MemberActivityType.LOGIN, 4L)
+                .containsEntry(MemberActivityType.AGE_CHANGE, 1L)
+                .hasSize(2);
+    }
+
+    @Test
+    void rollupDay() {
+        assertThat(memberActivityRepository.rollupDay(DAY1)).isEqualTo(3);
+        //다시 집계해도 중복되지 않는다.
+        assertThat(memberActivityRepository.rollupDay(DAY1)).isEqualTo(3);
+        memberActivityRepository.rollupDay(DAY2);
+
+        List<ActivityRollupDto> result = memberActivityRepository.findDailyRollups(null, DAY1, DAY2);
+
+        assertThat(result).extracting("day", "teamId", "type", "eventCount", "memberCount")
+                .containsExactly(
+                        tuple(DAY1, 1L, MemberActivityType.AGE_CHANGE, 1L, 1L),
+                        tuple(DAY1, 1L, MemberActivityType.LOGIN, 3L, 2L),
+                        tuple(DAY1, 2L, MemberActivityType.LOGIN, 1L, 1L),
+                        tuple(DAY2, 2L, MemberActivityType.LOGIN, 1L, 1L));
+        assertThat(memberActivityRepository.findDailyRollups(1L, DAY2, DAY2)).isEmpty();
+    }
+}
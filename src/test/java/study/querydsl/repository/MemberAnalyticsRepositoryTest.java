@@ -0,0 +1,99 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberAgeStatDto;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+@Transactional
+class MemberAnalyticsRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberAnalyticsRepository memberAnalyticsRepository;
+
+    @Test
+    void analyticQueries() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.flush();
+        em.clear();
+
+        assertThat(memberAnalyticsRepository.findTopMembersPerTeam())
+                .extracting("username").containsExactly("member2", "member4");
+        assertThat(memberAnalyticsRepository.findMembersAboveTeamAverage())
+                .extracting("username").containsExactly("member2", "member4");
+        assertThat(memberAnalyticsRepository.findOldestMembers())
+                .extracting("age").containsExactly(40);
+        assertThat(memberAnalyticsRepository.findMembersAtOrAboveAverage())
+                .extracting("age").containsExactly(30, 40);
+
+        List<MemberAgeStatDto> ages = memberAnalyticsRepository.findMemberAgesWithAverage();
+        assertThat(ages).hasSize(4);
+        assertThat(ages).extracting("averageAge").containsOnly(25.0);
+    }
+
+    /**
+     * 상관 서브쿼리와 윈도우 함수 비교
+     */
+    @Test
+    void aboveTeamAverageComparedWithCorrelatedSubquery() {
+        for (int t = 0; t < 20; t++) {
+            Team team = new Team("team" + t);
+            em.persist(team);
+            for (int i = 0; i < 250; i++) {
+                em.persist(new Member("member" + t + "_" + i, (i * 7 + t) % 80, team));
+            }
+            em.flush();
+            em.clear();
+        }
+
+        QMember memberSub = new QMember("memberSub");
+        JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+
+        long start = System.nanoTime();
+        List<Long> correlated = queryFactory
+                .select(member.id)
+                .from(member)
+                .where(member.age.gt(
+                        JPAExpressions.select(memberSub.age.castToNum(Double.class).avg())
+                                .from(memberSub)
+                                .where(memberSub.team.eq(member.team))
+                ))
+                .orderBy(member.team.id.asc(), member.id.asc())
+                .fetch();
+        long correlatedNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        List<MemberTeamDto> window = memberAnalyticsRepository.findMembersAboveTeamAverage();
+        long windowNanos = System.nanoTime() - start;
+
+        System.out.println("correlated subquery = " + correlatedNanos / 1_000_000 + "ms");
+        System.out.println("window function     = " + windowNanos / 1_000_000 + "ms");
+
+        assertThat(window).extracting("memberId").containsExactlyElementsOf(correlated);
+    }
+}
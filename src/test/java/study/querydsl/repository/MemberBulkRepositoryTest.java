@@ -0,0 +1,94 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.OptimisticLockException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+@Transactional
+class MemberBulkRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberBulkRepository memberBulkRepository;
+
+    Member member1;
+    Member member2;
+    Member member3;
+
+    @BeforeEach
+    void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        member1 = new Member("member1", 10, teamA);
+        member2 = new Member("member2", 20, teamA);
+        member3 = new Member("member3", 30, teamB);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(new Member("member4", 40, teamB));
+        em.flush();
+    }
+
+    @Test
+    void incrementAgeRefreshesManagedEntities() {
+        List<Long> ids = memberBulkRepository.incrementAge(member.age.lt(28), 1);
+
+        assertThat(ids).containsExactly(member1.getId(), member2.getId());
+        //em.clear() 없이도 영속성 컨텍스트의 엔티티가 DB 와 같다.
+        assertThat(member1.getAge()).isEqualTo(11);
+        assertThat(member1.getVersion()).isEqualTo(1L);
+        assertThat(member3.getAge()).isEqualTo(30);
+        assertThat(member3.getVersion()).isEqualTo(0L);
+    }
+
+    @Test
+    void repeatedIncrementsWithoutClear() {
+        for (int i = 0; i < 5; i++) {
+            memberBulkRepository.incrementAge(member.id.eq(member1.getId()), 2);
+        }
+
+        //refresh 된 엔티티는 최신 버전이므로 이어서 수정해도 충돌하지 않는다.
+        member1.setUsername("renamed");
+        em.flush();
+        em.clear();
+
+        Member found = em.find(Member.class, member1.getId());
+        assertThat(found.getAge()).isEqualTo(20);
+        assertThat(found.getUsername()).isEqualTo("renamed");
+        assertThat(found.getVersion()).isEqualTo(6L);
+    }
+
+    @Test
+    void staleDetachedCopyIsRejected() {
+        em.detach(member2);
+
+        memberBulkRepository.incrementAge(member.id.eq(member2.getId()), 1);
+
+        member2.setAge(99);
+        assertThatThrownBy(() -> em.merge(member2))
+                .isInstanceOf(OptimisticLockException.class);
+    }
+
+    @Test
+    void noMatch() {
+        assertThat(memberBulkRepository.incrementAge(member.age.gt(100), 1)).isEmpty();
+    }
+}
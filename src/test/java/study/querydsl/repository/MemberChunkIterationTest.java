@@ -0,0 +1,121 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.ChunkOptions;
+import study.querydsl.repository.support.ChunkStats;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * stateless 모드는 다른 커넥션에서 읽으므로 테스트 데이터를 커밋하고 끝나면 지운다.
+ * teamA - 짝수 번호 회원, teamB - 홀수 번호 회원 (나이 = 번호)
+ */
+@SpringBootTest
+class MemberChunkIterationTest {
+
+    static final int MEMBER_COUNT = 100;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberTestRepository memberTestRepository;
+
+    TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void before() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            for (int i = 0; i < MEMBER_COUNT; i++) {
+                em.persist(new Member("member" + i, i, i % 2 == 0 ? teamA : teamB));
+            }
+        });
+    }
+
+    @AfterEach
+    void after() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from TeamClosure").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    void clearsBetweenChunksAndFlushesChanges() {
+        List<Long> ids = new ArrayList<>();
+
+        ChunkStats stats = transactionTemplate.execute(status ->
+                memberTestRepository.forEachChunk(new MemberSearchCondition(), ChunkOptions.of(10), chunk ->
+                        chunk.forEach(member -> {
+                            ids.add(member.getId());
+                            member.setAge(member.getAge() + 1);
+                        })));
+
+        assertThat(stats.getRows()).isEqualTo(MEMBER_COUNT);
+        assertThat(stats.getChunks()).isEqualTo(10);
+        assertThat(stats.getClears()).isEqualTo(10);
+        assertThat(stats.getPeakManagedEntities()).isLessThanOrEqualTo(10);
+        assertThat(ids).isSorted().doesNotHaveDuplicates().hasSize(MEMBER_COUNT);
+
+        //0 ~ 99 의 합 + 1 씩 증가
+        Long ageSum = transactionTemplate.execute(status -> em.createQuery(
+                "select sum(m.age) from Member m", Long.class).getSingleResult());
+        assertThat(ageSum).isEqualTo(4950L + MEMBER_COUNT);
+    }
+
+    @Test
+    void budgetSpansSeveralChunks() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        ChunkStats stats = transactionTemplate.execute(status ->
+                memberTestRepository.forEachChunk(condition, ChunkOptions.of(10).maxManagedEntities(30), chunk -> {
+                }));
+
+        assertThat(stats.getRows()).isEqualTo(MEMBER_COUNT / 2);
+        assertThat(stats.getChunks()).isEqualTo(5);
+        assertThat(stats.getClears()).isEqualTo(1);
+        assertThat(stats.getPeakManagedEntities()).isEqualTo(30);
+    }
+
+    @Test
+    void stateless() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(90);
+        List<String> usernames = new ArrayList<>();
+
+        ChunkStats stats = transactionTemplate.execute(status ->
+                memberTestRepository.forEachChunk(condition, ChunkOptions.of(3).stateless(), chunk -> {
+                    assertThat(chunk).allMatch(member -> !em.contains(member));
+                    chunk.forEach(member -> usernames.add(member.getUsername()));
+                }));
+
+        assertThat(stats.getRows()).isEqualTo(10);
+        assertThat(stats.getChunks()).isEqualTo(4);
+        assertThat(stats.getPeakManagedEntities()).isZero();
+        assertThat(usernames).containsExactly("member90", "member91", "member92", "member93", "member94",
+                "member95", "member96", "member97", "member98", "member99");
+    }
+}
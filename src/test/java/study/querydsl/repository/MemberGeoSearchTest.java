@@ -0,0 +1,122 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.sql.MemberSqlRepository;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * member1 서울시청, member2 광화문(약 1km), member3 강남역(약 9km), member4 부산(약 330km), member5 위치 없음
+ */
+@SpringBootTest
+@Transactional
+class MemberGeoSearchTest {
+
+    static final double CITY_HALL_LAT = 37.5663;
+    static final double CITY_HALL_LON = 126.9779;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberSqlRepository memberSqlRepository;
+
+    @BeforeEach
+    void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        persist(new Member("member1", 10, teamA), CITY_HALL_LAT, CITY_HALL_LON);
+        persist(new Member("member2", 20, teamA), 37.5759, 126.9769);
+        persist(new Member("member3", 30, teamB), 37.4979, 127.0276);
+        persist(new Member("member4", 40, teamB), 35.1796, 129.0756);
+        em.persist(new Member("member5", 50, teamB));
+
+        //querydsl-sql 은 영속성 컨텍스트를 거치지 않으므로 먼저 flush 한다.
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void geohashIsStored() {
+        Member member = memberJpaRepository.findByUsername("member1").get(0);
+
+        assertThat(member.getGeohash()).hasSize(12).startsWith("wydm9");
+    }
+
+    @Test
+    void radius() {
+        MemberSearchCondition condition = near(2_000);
+
+        assertThat(memberRepository.search(condition)).extracting("username")
+                .containsExactlyInAnyOrder("member1", "member2");
+    }
+
+    @Test
+    void radiusWithOtherConditions() {
+        MemberSearchCondition condition = near(10_000);
+        condition.setAgeGoe(15);
+        assertThat(memberRepository.search(condition)).extracting("username")
+                .containsExactlyInAnyOrder("member2", "member3");
+
+        condition.setTeamName("teamB");
+        assertThat(memberRepository.search(condition)).extracting("username").containsExactly("member3");
+        assertThat(memberRepository.searchPageComplex(condition, PageRequest.of(0, 10)).getTotalElements()).isEqualTo(1);
+    }
+
+    @Test
+    void boundingBox() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setMinLatitude(37.4);
+        condition.setMaxLatitude(37.7);
+        condition.setMinLongitude(126.8);
+        condition.setMaxLongitude(127.2);
+
+        assertThat(memberRepository.search(condition)).extracting("username")
+                .containsExactlyInAnyOrder("member1", "member2", "member3");
+    }
+
+    @Test
+    void sameResultOnEveryBackend() {
+        MemberSearchCondition condition = near(500_000);
+        condition.setAgeLoe(40);
+
+        assertThat(memberRepository.search(condition)).extracting("username")
+                .containsExactlyInAnyOrder("member1", "member2", "member3", "member4");
+        assertThat(memberSqlRepository.search(condition))
+                .containsExactlyInAnyOrderElementsOf(memberRepository.search(condition));
+        assertThat(memberJpaRepository.searchByBuilder(condition))
+                .containsExactlyInAnyOrderElementsOf(memberRepository.search(condition));
+    }
+
+    private void persist(Member member, double latitude, double longitude) {
+        member.changeLocation(latitude, longitude);
+        em.persist(member);
+    }
+
+    private MemberSearchCondition near(double radiusMeters) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setLatitude(CITY_HALL_LAT);
+        condition.setLongitude(CITY_HALL_LON);
+        condition.setRadiusMeters(radiusMeters);
+        return condition;
+    }
+}
@@ -0,0 +1,137 @@
+package study.querydsl.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.MemberTeamFields;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Transactional
+class MemberProjectionRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberProjectionRepository memberProjectionRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberSearchSingleFlight memberSearchSingleFlight;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @BeforeEach
+    void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+    }
+
+    @Test
+    void searchSelectedFields() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+
+        List<MemberTeamDto> result = memberProjectionRepository.search(condition, MemberTeamFields.parse("memberId,username"));
+
+        assertThat(result).extracting("username").containsExactly("member3", "member4");
+        assertThat(result).allSatisfy(dto -> {
+            assertThat(dto.getMemberId()).isNotNull();
+            assertThat(dto.getAge()).isNull();
+            assertThat(dto.getTeamId()).isNull();
+            assertThat(dto.getTeamName()).isNull();
+        });
+        assertThat(objectMapper.writeValueAsString(result.get(0)))
+                .isEqualTo("{\"memberId\":" + result.get(0).getMemberId() + ",\"username\":\"member3\"}");
+    }
+
+    @Test
+    void teamIdWithoutTeamJoin() {
+        List<MemberTeamDto> result = memberProjectionRepository.search(new MemberSearchCondition(), MemberTeamFields.parse("username,teamId"));
+        List<MemberTeamDto> full = memberRepository.search(new MemberSearchCondition());
+
+        assertThat(MemberTeamFields.parse("username,teamId").requiresTeamJoin()).isFalse();
+        assertThat(result).extracting("teamId").containsExactlyElementsOf(
+                full.stream().map(MemberTeamDto::getTeamId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void allFieldsMatchesFullSearch() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+
+        assertThat(memberProjectionRepository.search(condition, MemberTeamFields.parse(null)))
+                .isEqualTo(memberRepository.search(condition));
+    }
+
+    @Test
+    void searchPageComplex() {
+        Page<MemberTeamDto> result = memberProjectionRepository.searchPageComplex(
+                new MemberSearchCondition(), MemberTeamFields.parse("username"), PageRequest.of(0, 3));
+
+        assertThat(result.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
+        assertThat(result.getTotalElements()).isEqualTo(4);
+    }
+
+    @Test
+    void singleFlightSelectsFields() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        MemberTeamFields fields = MemberTeamFields.parse("username");
+
+        List<MemberTeamDto> result = memberSearchSingleFlight.search(condition, fields);
+
+        assertThat(result).isEqualTo(memberProjectionRepository.search(condition, fields));
+        assertThat(result).extracting("username").containsExactly("member1", "member2");
+        assertThatThrownBy(() -> result.add(new MemberTeamDto()))
+                .isInstanceOf(UnsupportedOperationException.class);
+        assertThat(memberSearchSingleFlight.searchPageComplex(condition, fields, PageRequest.of(0, 1)).getTotalElements())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void selectKeepsRequestedFieldsOnly() {
+        MemberTeamDto full = new MemberTeamDto(1L, "member1", 10, 2L, "teamA");
+
+        MemberTeamDto selected = MemberTeamFields.parse("username,teamName").select(full);
+
+        assertThat(selected.getUsername()).isEqualTo("member1");
+        assertThat(selected.getTeamName()).isEqualTo("teamA");
+        assertThat(selected.getMemberId()).isNull();
+        assertThat(selected.getAge()).isNull();
+        assertThat(selected.getTeamId()).isNull();
+        assertThat(MemberTeamFields.ALL.select(full)).isSameAs(full);
+    }
+
+    @Test
+    void unknownField() {
+        assertThatThrownBy(() -> MemberTeamFields.parse("memberId,password"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -121,4 +121,31 @@ class MemberRepositoryTest {
             System.out.println("findMember = " + findMember);
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void existsAndDistinctTeams() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.persist(new Member("member5", 50));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(15);
+        assertThat(memberRepository.exists(condition)).isTrue();
+        assertThat(memberRepository.distinctTeams(condition)).containsExactly(teamA.getId(), teamB.getId());
+
+        condition.setAgeGoe(35);
+        condition.setAgeLoe(40);
+        assertThat(memberRepository.distinctTeams(condition)).containsExactly(teamB.getId());
+
+        condition.setTeamName("teamA");
+        assertThat(memberRepository.exists(condition)).isFalse();
+        assertThat(memberRepository.distinctTeams(condition)).isEmpty();
+    }
+}
@@ -0,0 +1,103 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.config.StartupTimingBeanPostProcessor;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberTestRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberTestRepository memberTestRepository;
+
+    @Autowired
+    StartupTimingBeanPostProcessor startupTiming;
+
+    @BeforeEach
+    void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+
+        //readOnly 조회는 flushMode=COMMIT 이라 자동 flush 를 하지 않는다.
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void basicSelect() {
+        List<Member> result = memberTestRepository.basicSelectFrom();
+
+        assertThat(result).extracting("username")
+                .containsExactlyInAnyOrder("member1", "member2", "member3", "member4");
+    }
+
+    @Test
+    void searchPageByApplyPage() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+
+        Page<Member> result = memberTestRepository.searchPageByApplyPage(condition, PageRequest.of(0, 1));
+
+        assertThat(result.getContent()).hasSize(1);
+        assertThat(result.getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    void applyPaginationReadOnly() {
+        Page<Member> result = memberTestRepository.applyPaginationReadOnly(new MemberSearchCondition(), PageRequest.of(0, 3));
+
+        assertThat(result.getContent()).hasSize(3);
+        assertThat(result.getTotalElements()).isEqualTo(4);
+
+        //readOnly 힌트로 조회한 엔티티는 변경해도 update 되지 않는다.
+        Member member = result.getContent().get(0);
+        member.setAge(99);
+        em.flush();
+        em.clear();
+        assertThat(em.find(Member.class, member.getId()).getAge()).isNotEqualTo(99);
+    }
+
+    @Test
+    void startupTimingReport() {
+        assertThat(startupTiming.getTimings()).containsKey("memberTestRepository");
+        assertThat(startupTiming.getSlowestBeans(5)).hasSizeLessThanOrEqualTo(5);
+    }
+
+    @Test
+    void existsAndDistinctTeams() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        assertThat(memberTestRepository.exists(condition)).isTrue();
+        assertThat(memberTestRepository.distinctTeams(condition)).hasSize(2);
+
+        condition.setTeamName("teamB");
+        assertThat(memberTestRepository.distinctTeams(condition)).hasSize(1);
+
+        condition.setUsername("member1");
+        assertThat(memberTestRepository.exists(condition)).isFalse();
+        assertThat(memberTestRepository.distinctTeams(condition)).isEmpty();
+    }
+}
@@ -0,0 +1,141 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.event.MemberBulkWriteInspector.isBulkUsernameWrite;
+
+/**
+ * 필터는 커밋된 회원으로 만들어지므로 테스트 데이터를 커밋하고 끝나면 지운다.
+ */
+@SpringBootTest
+class MemberUsernameFilterTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberUsernameFilter memberUsernameFilter;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void before() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+            em.persist(new Member("member3", 30, teamB));
+            em.persist(new Member("member4", 40, teamB));
+        });
+        memberUsernameFilter.rebuild();
+    }
+
+    @AfterEach
+    void after() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from TeamClosure").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    void missSkipsQuery() {
+        long negatives = memberUsernameFilter.stats().getNegatives();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            assertThat(memberRepository.findByUsername("nobody")).isEmpty();
+            assertThat(memberJpaRepository.findByUsername_Querydsl("nobody")).isEmpty();
+            assertThat(memberRepository.findByUsername("member1")).extracting("username").containsExactly("member1");
+        });
+
+        assertThat(memberUsernameFilter.stats().getNegatives()).isEqualTo(negatives + 2);
+    }
+
+    @Test
+    void memberWrittenInSameTransactionIsFound() {
+        long bypassed = memberUsernameFilter.stats().getBypassed();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            em.persist(new Member("member5", 50, teamA));
+
+            //flush 전 - 세션이 dirty 하므로 필터를 건너뛴다.
+            assertThat(memberJpaRepository.findByUsername("member5")).extracting("username").containsExactly("member5");
+            //flush 이후 - 이 트랜잭션이 회원을 썼으므로 커밋될 때까지 필터를 건너뛴다.
+            assertThat(memberRepository.findByUsername("member5")).hasSize(1);
+            status.setRollbackOnly();
+        });
+
+        assertThat(memberUsernameFilter.stats().getBypassed()).isEqualTo(bypassed + 2);
+    }
+
+    @Test
+    void committedMemberIsFound() {
+        transactionTemplate.executeWithoutResult(status ->
+                em.persist(new Member("member5", 50)));
+
+        transactionTemplate.executeWithoutResult(status ->
+                assertThat(memberRepository.findByUsername("member5")).hasSize(1));
+        assertThat(memberUsernameFilter.stats().isActive()).isTrue();
+    }
+
+    @Test
+    void bulkUsernameUpdateBypassesFilter() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("update Member m set m.username = concat(m.username, '-renamed')").executeUpdate();
+
+            assertThat(memberUsernameFilter.stats().isActive()).isFalse();
+            assertThat(memberRepository.findByUsername("member1-renamed")).hasSize(1);
+        });
+
+        //커밋 이후 재빌드 전까지는 필터를 건너뛰고, 재빌드 후에는 바뀐 username 이 필터에 있다.
+        assertThat(memberRepository.findByUsername("member2-renamed")).hasSize(1);
+        memberUsernameFilter.rebuild();
+        assertThat(memberUsernameFilter.stats().isActive()).isTrue();
+        assertThat(memberRepository.findByUsername("member3-renamed")).hasSize(1);
+    }
+
+    @Test
+    void detectsBulkWrites() {
+        //엔티티 flush
+        assertThat(isBulkUsernameWrite(
+                "insert into member (age, team_id, username, version, member_id) values (?, ?, ?, ?, ?)")).isFalse();
+        assertThat(isBulkUsernameWrite(
+                "/* update study.querydsl.entity.Member */ update member set age=?, team_id=?, username=?, version=? where member_id=? and version=?")).isFalse();
+        //username 을 바꾸지 않는 벌크 update
+        assertThat(isBulkUsernameWrite("update member set age=age+1, version=version+1 where member_id in (? , ?)")).isFalse();
+        assertThat(isBulkUsernameWrite("select member0_.username from member member0_")).isFalse();
+
+        assertThat(isBulkUsernameWrite("update member set username=concat(username, ?)")).isTrue();
+        assertThat(isBulkUsernameWrite("update member set username=? where member_id=?")).isTrue();
+        assertThat(isBulkUsernameWrite(
+                "insert into member (member_id, username, age, team_id, version) select x, 'member' || x, 10, null, 0 from system_range(1, 10)")).isTrue();
+    }
+}
@@ -0,0 +1,129 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * write-behind 는 별도 트랜잭션으로 커밋하므로 @Transactional 롤백을 쓰지 않고 테스트가 끝나면 직접 지운다.
+ */
+@SpringBootTest(properties = "member.write-behind.enabled=true")
+class MemberWriteBehindWriterTest {
+
+    static final int COUNT = 2_000;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberWriteBehindWriter writer;
+
+    @AfterEach
+    void cleanUp() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                em.createQuery("delete from Member").executeUpdate());
+    }
+
+    @Test
+    void submitCompletesWithCommittedId() throws Exception {
+        Long id = writer.submit(new Member("member1", 10)).get(5, TimeUnit.SECONDS);
+
+        Member findMember = memberJpaRepository.findById(id).get();
+        assertThat(findMember.getUsername()).isEqualTo("member1");
+    }
+
+    @Test
+    void submitRacingStopAlwaysCompletes() throws Exception {
+        MemberWriteBehindWriter racing = new MemberWriteBehindWriter(em, transactionManager, 10_000, 100,
+                Duration.ofMillis(50), MemberWriteBehindWriter.Backpressure.REJECT, Duration.ofSeconds(1));
+        racing.start();
+
+        List<CompletableFuture<Long>> acks = new CopyOnWriteArrayList<>();
+        ExecutorService submitters = Executors.newFixedThreadPool(4);
+        CountDownLatch started = new CountDownLatch(4);
+        for (int t = 0; t < 4; t++) {
+            int thread = t;
+            submitters.execute(() -> {
+                started.countDown();
+                for (int i = 0; i < 500; i++) {
+                    acks.add(racing.submit(new Member("race" + thread + "-" + i, i % 100)));
+                }
+            });
+        }
+        started.await();
+        racing.stop();
+        submitters.shutdown();
+        assertThat(submitters.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        //마지막 flush 이후에 들어온 회원도 저장되거나 거절되어야 한다. (완료되지 않는 future 가 없다.)
+        long saved = 0;
+        for (CompletableFuture<Long> ack : acks) {
+            try {
+                ack.get(5, TimeUnit.SECONDS);
+                saved++;
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).isInstanceOf(RejectedExecutionException.class);
+            }
+        }
+        Long rows = new TransactionTemplate(transactionManager).execute(status -> em.createQuery(
+                "select count(m) from Member m where m.username like 'race%'", Long.class).getSingleResult());
+        assertThat(rows).isEqualTo(saved);
+        assertThat(racing.getQueueSize()).isZero();
+    }
+
+    @Test
+    void throughputAgainstSave() throws Exception {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < COUNT; i++) {
+            Member member = new Member("save" + i, i % 100);
+            transactionTemplate.executeWithoutResult(status -> memberJpaRepository.save(member));
+        }
+        long saveNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        List<CompletableFuture<Long>> acks = new ArrayList<>(COUNT);
+        for (int i = 0; i < COUNT; i++) {
+            acks.add(writer.submit(new Member("writeBehind" + i, i % 100)));
+        }
+        CompletableFuture.allOf(acks.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+        long writeBehindNanos = System.nanoTime() - start;
+
+        System.out.println("save()       = " + throughput(saveNanos) + " members/s");
+        System.out.println("write-behind = " + throughput(writeBehindNanos) + " members/s");
+
+        Long count = transactionTemplate.execute(status ->
+                em.createQuery("select count(m) from Member m", Long.class).getSingleResult());
+        assertThat(count).isEqualTo(COUNT * 2L);
+    }
+
+    private static long throughput(long nanos) {
+        return COUNT * TimeUnit.SECONDS.toNanos(1) / Math.max(1, nanos);
+    }
+}
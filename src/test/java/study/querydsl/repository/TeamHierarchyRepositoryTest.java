@@ -0,0 +1,211 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.TeamSubtreeCountDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static study.querydsl.entity.QTeamClosure.teamClosure;
+
+/**
+ * teamA
+ * ├── teamA1 (member3)
+ * │   └── teamA11 (member4)
+ * └── teamA2
+ * teamB (member2)
+ * member1 은 teamA
+ */
+@SpringBootTest
+@Transactional
+class TeamHierarchyRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TeamHierarchyRepository teamHierarchyRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    JPAQueryFactory queryFactory;
+
+    Team teamA;
+    Team teamA1;
+    Team teamA11;
+    Team teamA2;
+    Team teamB;
+
+    @BeforeEach
+    void before() {
+        queryFactory = new JPAQueryFactory(em);
+        teamA = new Team("teamA");
+        teamA1 = new Team("teamA1", teamA);
+        teamA11 = new Team("teamA11", teamA1);
+        teamA2 = new Team("teamA2", teamA);
+        teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamA1);
+        em.persist(teamA11);
+        em.persist(teamA2);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamB));
+        em.persist(new Member("member3", 30, teamA1));
+        em.persist(new Member("member4", 40, teamA11));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void closureRowsCreatedWithTeam() {
+        List<Integer> depths = queryFactory
+                .select(teamClosure.depth)
+                .from(teamClosure)
+                .where(teamClosure.id.descendantId.eq(teamA11.getId()))
+                .orderBy(teamClosure.depth.asc())
+                .fetch();
+
+        assertThat(depths).containsExactly(0, 1, 2);
+    }
+
+    @Test
+    void searchTeamSubtree() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamSubtree(teamA.getId());
+
+        List<MemberTeamDto> result = memberRepository.search(condition);
+
+        assertThat(result).extracting("username").containsExactlyInAnyOrder("member1", "member3", "member4");
+
+        condition.setTeamSubtree(teamA1.getId());
+        assertThat(memberRepository.search(condition)).extracting("username")
+                .containsExactlyInAnyOrder("member3", "member4");
+    }
+
+    @Test
+    void countSubtreeMembers() {
+        List<TeamSubtreeCountDto> result = teamHierarchyRepository.countSubtreeMembers(teamA.getId());
+
+        assertThat(result).extracting("teamName", "depth", "memberCount").containsExactly(
+                tuple("teamA", 0, 3L),
+                tuple("teamA1", 1, 2L),
+                tuple("teamA2", 1, 0L),
+                tuple("teamA11", 2, 1L));
+    }
+
+    @Test
+    void moveSubtree() {
+        teamHierarchyRepository.move(teamA1.getId(), teamB.getId());
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamSubtree(teamB.getId());
+        assertThat(memberRepository.search(condition)).extracting("username")
+                .containsExactlyInAnyOrder("member2", "member3", "member4");
+        condition.setTeamSubtree(teamA.getId());
+        assertThat(memberRepository.search(condition)).extracting("username").containsExactly("member1");
+
+        assertThat(teamHierarchyRepository.countSubtreeMembers(teamB.getId()))
+                .extracting("teamName", "depth", "memberCount").containsExactly(
+                        tuple("teamB", 0, 3L),
+                        tuple("teamA1", 1, 2L),
+                        tuple("teamA11", 2, 1L));
+        assertThat(em.find(Team.class, teamA1.getId()).getParent().getId()).isEqualTo(teamB.getId());
+
+        //옮긴 뒤 만든 하위 팀도 새 경로를 가진다.
+        Team teamA111 = new Team("teamA111", em.find(Team.class, teamA11.getId()));
+        em.persist(teamA111);
+        em.persist(new Member("member5", 50, teamA111));
+        em.flush();
+        condition.setTeamSubtree(teamB.getId());
+        assertThat(memberRepository.search(condition)).hasSize(4);
+    }
+
+    @Test
+    void moveToRoot() {
+        teamHierarchyRepository.move(teamA1.getId(), null);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamSubtree(teamA.getId());
+        assertThat(memberRepository.search(condition)).extracting("username").containsExactly("member1");
+        assertThat(em.find(Team.class, teamA1.getId()).getParent()).isNull();
+    }
+
+    @Test
+    void moveIntoOwnSubtreeIsRejected() {
+        assertThatThrownBy(() -> teamHierarchyRepository.move(teamA.getId(), teamA11.getId()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void subtreeCountBenchmark() {
+        //깊은 트리 - 200 단계 체인, 팀마다 회원 2명
+        Team deepRoot = new Team("deep0");
+        em.persist(deepRoot);
+        List<Team> deepTeams = new ArrayList<>();
+        deepTeams.add(deepRoot);
+        for (int depth = 1; depth < 200; depth++) {
+            Team child = new Team("deep" + depth, deepTeams.get(depth - 1));
+            em.persist(child);
+            deepTeams.add(child);
+        }
+        //넓은 트리 - 최상위 팀 아래 2000 개 팀, 팀마다 회원 2명
+        Team wideRoot = new Team("wide");
+        em.persist(wideRoot);
+        List<Team> wideTeams = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            Team child = new Team("wide" + i, wideRoot);
+            em.persist(child);
+            wideTeams.add(child);
+        }
+        em.flush();
+
+        for (Team team : deepTeams) {
+            em.persist(new Member("deep-member", 10, team));
+            em.persist(new Member("deep-member", 20, team));
+        }
+        for (Team team : wideTeams) {
+            em.persist(new Member("wide-member", 10, team));
+            em.persist(new Member("wide-member", 20, team));
+        }
+        em.flush();
+        em.clear();
+
+        long deepNanos = timeCount(deepRoot.getId(), 200, 400);
+        long wideNanos = timeCount(wideRoot.getId(), 2001, 4000);
+        System.out.printf("subtree counts in one query - deep(200 levels): %.2fms, wide(2000 children): %.2fms%n",
+                deepNanos / 1e6, wideNanos / 1e6);
+    }
+
+    private long timeCount(Long rootTeamId, int expectedTeams, long expectedMembers) {
+        //워밍업
+        teamHierarchyRepository.countSubtreeMembers(rootTeamId);
+
+        int runs = 10;
+        long start = System.nanoTime();
+        List<TeamSubtreeCountDto> result = null;
+        for (int i = 0; i < runs; i++) {
+            result = teamHierarchyRepository.countSubtreeMembers(rootTeamId);
+        }
+        long elapsed = (System.nanoTime() - start) / runs;
+
+        assertThat(result).hasSize(expectedTeams);
+        assertThat(result.get(0).getMemberCount()).isEqualTo(expectedMembers);
+        return elapsed;
+    }
+}
@@ -0,0 +1,66 @@
+package study.querydsl.repository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.TeamMembersDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+class TeamQueryRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TeamQueryRepository teamQueryRepository;
+
+    @Test
+    void findTeamsWithMembers() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        Team teamC = new Team("teamC");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(teamC);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamA));
+        em.persist(new Member("member4", 40, teamB));
+
+        em.flush();
+        em.clear();
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Page<TeamMembersDto> result = teamQueryRepository.findTeamsWithMembers(PageRequest.of(0, 10), 2);
+
+        assertThat(result.getTotalElements()).isEqualTo(3);
+        assertThat(result.getContent()).extracting("teamName").containsExactly("teamA", "teamB", "teamC");
+        assertThat(result.getContent()).extracting("memberCount").containsExactly(3L, 1L, 0L);
+
+        TeamMembersDto teamADto = result.getContent().get(0);
+        assertThat(teamADto.getMembers()).extracting("username").containsExactly("member1", "member2");
+        assertThat(result.getContent().get(2).getMembers()).isEmpty();
+
+        //teamA 의 세번째 회원은 DB 에서 걸러져 읽지 않는다. (teamA 2건 + teamB 1건)
+        long memberRows = Arrays.stream(statistics.getQueries())
+                .filter(sql -> sql.contains("row_number()"))
+                .mapToLong(sql -> statistics.getQueryStatistics(sql).getExecutionRowCount())
+                .sum();
+        assertThat(memberRows).isEqualTo(3);
+    }
+}
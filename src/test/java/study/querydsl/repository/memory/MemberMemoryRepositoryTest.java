@@ -0,0 +1,184 @@
+package study.querydsl.repository.memory;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.MemberRepositoryCustom;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 메모리 인덱스는 커밋된 변경만 반영하므로 테스트 데이터를 커밋하고 끝나면 지운다.
+ * teamA(member1, member2), teamB(member3, member4), 나이 10 ~ 40
+ */
+@SpringBootTest(properties = "member.search.backend=memory")
+class MemberMemoryRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberMemoryRepository memoryRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    @Qualifier("memberSearchRepository")
+    MemberRepositoryCustom memberSearchRepository;
+
+    TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void before() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+            em.persist(new Member("member3", 30, teamB));
+            em.persist(new Member("member4", 40, teamB));
+        });
+        memoryRepository.rebuild();
+    }
+
+    @AfterEach
+    void after() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from TeamClosure").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    void selectedAsSearchBackend() {
+        assertThat(memberSearchRepository).isSameAs(memoryRepository);
+        assertThat(memoryRepository.isActive()).isTrue();
+    }
+
+    @Test
+    void searchMatchesJpa() {
+        MemberSearchCondition all = new MemberSearchCondition();
+        MemberSearchCondition teamB = new MemberSearchCondition();
+        teamB.setTeamName("teamB");
+        MemberSearchCondition ageRange = new MemberSearchCondition();
+        ageRange.setAgeGoe(15);
+        ageRange.setAgeLoe(35);
+        MemberSearchCondition combined = new MemberSearchCondition();
+        combined.setTeamName("teamA");
+        combined.setAgeGoe(15);
+        MemberSearchCondition username = new MemberSearchCondition();
+        username.setUsername("member3");
+        MemberSearchCondition none = new MemberSearchCondition();
+        none.setTeamName("teamB");
+        none.setAgeLoe(20);
+
+        for (MemberSearchCondition condition : List.of(all, teamB, ageRange, combined, username, none)) {
+            assertThat(memoryRepository.search(condition))
+                    .containsExactlyInAnyOrderElementsOf(memberRepository.search(condition));
+        }
+        assertThat(memoryRepository.search(combined)).extracting("username").containsExactly("member2");
+    }
+
+    @Test
+    void appliesCommittedChanges() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamC = new Team("teamC");
+            em.persist(teamC);
+            em.persist(new Member("member5", 50, teamC));
+            Member member1 = em.createQuery("select m from Member m where m.username = 'member1'", Member.class)
+                    .getSingleResult();
+            member1.setAge(60);
+            em.remove(em.createQuery("select m from Member m where m.username = 'member2'", Member.class)
+                    .getSingleResult());
+        });
+
+        MemberSearchCondition teamC = new MemberSearchCondition();
+        teamC.setTeamName("teamC");
+        assertThat(memoryRepository.search(teamC)).extracting("username").containsExactly("member5");
+
+        MemberSearchCondition old = new MemberSearchCondition();
+        old.setAgeGoe(45);
+        assertThat(memoryRepository.search(old)).extracting("username").containsExactly("member1", "member5");
+
+        MemberSearchCondition teamA = new MemberSearchCondition();
+        teamA.setTeamName("teamA");
+        assertThat(memoryRepository.search(teamA)).extracting("username").containsExactly("member1");
+
+        MemberSearchCondition all = new MemberSearchCondition();
+        assertThat(memoryRepository.search(all)).containsExactlyInAnyOrderElementsOf(memberRepository.search(all));
+    }
+
+    @Test
+    void pageSortsAndCounts() {
+        Page<MemberTeamDto> byAgeDesc = memoryRepository.searchPageComplex(
+                new MemberSearchCondition(), PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "age")));
+
+        assertThat(byAgeDesc.getContent()).extracting("username").containsExactly("member4", "member3", "member2");
+        assertThat(byAgeDesc.getTotalElements()).isEqualTo(4);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+        Page<MemberTeamDto> secondPage = memoryRepository.searchPageComplex(condition, PageRequest.of(1, 2, Sort.by("age")));
+
+        assertThat(secondPage.getContent()).extracting("username").containsExactly("member4");
+        assertThat(secondPage.getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    void existsAndDistinctTeams() {
+        MemberSearchCondition young = new MemberSearchCondition();
+        young.setAgeLoe(25);
+        MemberSearchCondition nobody = new MemberSearchCondition();
+        nobody.setAgeGoe(100);
+
+        assertThat(memoryRepository.exists(young)).isTrue();
+        assertThat(memoryRepository.exists(nobody)).isFalse();
+        assertThat(memoryRepository.distinctTeams(young)).isEqualTo(memberRepository.distinctTeams(young)).hasSize(1);
+        assertThat(memoryRepository.distinctTeams(new MemberSearchCondition())).hasSize(2);
+    }
+
+    @Test
+    void compactsLargeDelta() {
+        int inserted = 1100;
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = em.createQuery("select t from Team t where t.name = 'teamA'", Team.class).getSingleResult();
+            for (int i = 0; i < inserted; i++) {
+                em.persist(new Member("bulk" + i, 100 + i % 10, teamA));
+            }
+        });
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(105);
+        Page<MemberTeamDto> page = memoryRepository.searchPageComplex(condition, PageRequest.of(0, 5, Sort.by("memberId")));
+
+        assertThat(page.getTotalElements()).isEqualTo(inserted / 2);
+        assertThat(page.getContent()).extracting("memberId").isSorted();
+        assertThat(memoryRepository.searchPageComplex(new MemberSearchCondition(), PageRequest.of(0, 1))
+                .getTotalElements()).isEqualTo(4 + inserted);
+    }
+}
@@ -0,0 +1,110 @@
+package study.querydsl.repository.memory;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.controller.QueryPolicyAdvice;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * member.search.backend=memory 일 때 /v1/members 가 메모리 인덱스로 응답하는지 확인한다.
+ * 이벤트 없이 SQL 로 넣은 회원은 메모리 인덱스에만 보이지 않으므로 어느 구현체가 응답했는지 구분할 수 있다.
+ */
+@SpringBootTest(properties = {
+        "member.search.backend=memory",
+        "member.query-policy.search.max-rows=2"
+})
+@AutoConfigureMockMvc
+class MemberMemorySearchHttpTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    MemberMemoryRepository memoryRepository;
+
+    TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void before() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+            em.persist(new Member("member3", 30, teamA));
+        });
+        memoryRepository.rebuild();
+    }
+
+    @AfterEach
+    void after() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from TeamClosure").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    void v1MembersUsesMemoryBackend() throws Exception {
+        transactionTemplate.executeWithoutResult(status -> em.createNativeQuery(
+                "insert into member (member_id, username, age) values (1000000, 'hidden', 99)").executeUpdate());
+
+        mockMvc.perform(get("/v1/members").param("username", "hidden"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+        mockMvc.perform(get("/v1/members").param("username", "member2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].age").value(20));
+    }
+
+    @Test
+    void v1MembersKeepsTruncatedHeader() throws Exception {
+        mockMvc.perform(get("/v1/members"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(QueryPolicyAdvice.TRUNCATED_HEADER, "2"))
+                .andExpect(jsonPath("$.length()").value(2));
+    }
+
+    @Test
+    void fieldsRequestsUseMemoryBackend() throws Exception {
+        transactionTemplate.executeWithoutResult(status -> em.createNativeQuery(
+                "insert into member (member_id, username, age) values (1000000, 'hidden', 99)").executeUpdate());
+
+        mockMvc.perform(get("/v1/members").param("username", "hidden").param("fields", "username"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+        mockMvc.perform(get("/v3/members").param("username", "hidden").param("fields", "username"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(0));
+        mockMvc.perform(get("/v1/members").param("fields", "username,age"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(QueryPolicyAdvice.TRUNCATED_HEADER, "2"))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].username").exists())
+                .andExpect(jsonPath("$[0].memberId").doesNotExist())
+                .andExpect(jsonPath("$[0].teamName").doesNotExist());
+    }
+}
@@ -0,0 +1,231 @@
+package study.querydsl.repository.shard;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 로컬 H2 메모리 DB 2개를 샤드로 사용한다.
+ * shard0 - teamA(member1, member2), shard1 - teamB(member3, member4)
+ * id 가 샤드 간에 겹치지 않도록 i 번 샤드의 시퀀스는 샤드 수 + i 부터 샤드 수만큼 증가한다. (TeamIdShardRouter 와 같은 배치)
+ */
+class ShardedMemberQueryExecutorTest {
+
+    List<EntityManagerFactory> shards = new ArrayList<>();
+    ExecutorService executor;
+    ShardedMemberQueryExecutor shardedExecutor;
+
+    @BeforeEach
+    void before() {
+        shards.add(createShard("shard0"));
+        shards.add(createShard("shard1"));
+        for (int i = 0; i < shards.size(); i++) {
+            interleaveIds(shards.get(i), i);
+        }
+        executor = Executors.newFixedThreadPool(shards.size());
+
+        Map<String, Integer> teamShards = Map.of("teamA", 0, "teamB", 1);
+        MemberShardRouter router = condition -> condition.getTeamName() != null
+                ? OptionalInt.of(teamShards.get(condition.getTeamName()))
+                : OptionalInt.empty();
+        shardedExecutor = new ShardedMemberQueryExecutor(shards, router, executor);
+
+        insert(shards.get(0), "teamA", new Object[][]{{"member1", 10}, {"member2", 20}});
+        insert(shards.get(1), "teamB", new Object[][]{{"member3", 30}, {"member4", 40}});
+    }
+
+    @AfterEach
+    void after() {
+        executor.shutdown();
+        shards.forEach(EntityManagerFactory::close);
+    }
+
+    @Test
+    void scatterSearch() {
+        List<MemberTeamDto> result = shardedExecutor.search(new MemberSearchCondition());
+
+        assertThat(result).extracting("username")
+                .containsExactlyInAnyOrder("member1", "member2", "member3", "member4");
+    }
+
+    @Test
+    void routedSearch() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+
+        List<MemberTeamDto> result = shardedExecutor.search(condition);
+
+        assertThat(result).extracting("username").containsExactlyInAnyOrder("member3", "member4");
+    }
+
+    @Test
+    void scatterPageMergesBySort() {
+        PageRequest pageRequest = PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "age"));
+
+        Page<MemberTeamDto> result = shardedExecutor.searchPageComplex(new MemberSearchCondition(), pageRequest);
+
+        assertThat(result.getContent()).extracting("username")
+                .containsExactly("member4", "member3", "member2");
+        assertThat(result.getTotalElements()).isEqualTo(4);
+    }
+
+    @Test
+    void scatterPageAppliesGlobalOffset() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+        PageRequest pageRequest = PageRequest.of(1, 2, Sort.by("age"));
+
+        Page<MemberTeamDto> result = shardedExecutor.searchPageComplex(condition, pageRequest);
+
+        assertThat(result.getContent()).extracting("username").containsExactly("member4");
+        assertThat(result.getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    void scatterPageBreaksTiesByMemberId() {
+        insert(shards.get(0), "teamC", new Object[][]{{"member5", 20}});
+        insert(shards.get(1), "teamD", new Object[][]{{"member6", 20}});
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+        condition.setAgeLoe(20);
+
+        List<String> usernames = new ArrayList<>();
+        for (int page = 0; page < 3; page++) {
+            Page<MemberTeamDto> result = shardedExecutor.searchPageComplex(condition, PageRequest.of(page, 1, Sort.by("age")));
+            assertThat(result.getTotalElements()).isEqualTo(3);
+            result.getContent().forEach(dto -> usernames.add(dto.getUsername()));
+        }
+
+        assertThat(usernames).containsExactlyInAnyOrder("member2", "member5", "member6");
+        assertThat(ShardedMemberQueryExecutor.withTieBreaker(Sort.by("age")))
+                .isEqualTo(Sort.by("age", "memberId"));
+    }
+
+    @Test
+    void routesByTeamIdWithTeamIdShardRouter() {
+        ShardedMemberQueryExecutor teamIdExecutor =
+                new ShardedMemberQueryExecutor(shards, new TeamIdShardRouter(shards.size()), executor);
+        teamIdExecutor.validateTeamPlacement();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamId(teamId(shards.get(1), "teamB"));
+
+        assertThat(teamIdExecutor.search(condition)).extracting("username")
+                .containsExactlyInAnyOrder("member3", "member4");
+        assertThat(teamIdExecutor.searchPageComplex(condition, PageRequest.of(0, 10)).getTotalElements())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void validationRejectsTeamIdCollisions() {
+        //shard1 의 teamB 와 같은 id 를 가진 팀이 shard0 에도 있다.
+        Long teamBId = teamId(shards.get(1), "teamB");
+        EntityManager em = shards.get(0).createEntityManager();
+        em.getTransaction().begin();
+        em.createNativeQuery("insert into team (team_id, name) values (" + teamBId + ", 'teamX')").executeUpdate();
+        em.getTransaction().commit();
+        em.close();
+
+        ShardedMemberQueryExecutor teamIdExecutor =
+                new ShardedMemberQueryExecutor(shards, new TeamIdShardRouter(shards.size()), executor);
+
+        assertThatThrownBy(teamIdExecutor::validateTeamPlacement)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Team " + teamBId + " is stored in shard 0");
+    }
+
+    @Test
+    void failingShardCancelsPendingShards() {
+        EntityManagerFactory broken = createShard("broken");
+        broken.close();
+        //첫 작업(broken 샤드)만 바로 실행하고 나머지는 실행하지 않고 쌓아 둔다.
+        AtomicBoolean first = new AtomicBoolean(true);
+        List<Runnable> pending = new ArrayList<>();
+        Executor firstOnly = task -> {
+            if (first.getAndSet(false)) {
+                task.run();
+            } else {
+                pending.add(task);
+            }
+        };
+        ShardedMemberQueryExecutor failing = new ShardedMemberQueryExecutor(
+                List.of(broken, shards.get(1)), condition -> OptionalInt.empty(), firstOnly);
+
+        assertThatThrownBy(() -> failing.search(new MemberSearchCondition()))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(pending).hasSize(1);
+        assertThat((Future<?>) pending.get(0)).isCancelled();
+    }
+
+    private EntityManagerFactory createShard(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+
+        LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setPersistenceUnitName(name);
+        factoryBean.setPackagesToScan("study.querydsl.entity");
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setJpaPropertyMap(Map.of("hibernate.hbm2ddl.auto", "create-drop"));
+        factoryBean.afterPropertiesSet();
+        return factoryBean.getObject();
+    }
+
+    private void interleaveIds(EntityManagerFactory shard, int index) {
+        EntityManager em = shard.createEntityManager();
+        em.getTransaction().begin();
+        em.createNativeQuery("alter sequence hibernate_sequence restart with " + (shards.size() + index)
+                + " increment by " + shards.size()).executeUpdate();
+        em.getTransaction().commit();
+        em.close();
+    }
+
+    private Long teamId(EntityManagerFactory shard, String teamName) {
+        EntityManager em = shard.createEntityManager();
+        try {
+            return em.createQuery("select t.id from Team t where t.name = :name", Long.class)
+                    .setParameter("name", teamName)
+                    .getSingleResult();
+        } finally {
+            em.close();
+        }
+    }
+
+    private void insert(EntityManagerFactory shard, String teamName, Object[][] members) {
+        EntityManager em = shard.createEntityManager();
+        em.getTransaction().begin();
+        Team team = new Team(teamName);
+        em.persist(team);
+        for (Object[] member : members) {
+            em.persist(new Member((String) member[0], (Integer) member[1], team));
+        }
+        em.getTransaction().commit();
+        em.close();
+    }
+}
@@ -0,0 +1,191 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@SpringBootTest
+@Transactional
+class MemberPredicatesTest {
+
+    private static final QMemberTeamDto MEMBER_TEAM_DTO = new QMemberTeamDto(
+            member.id.as("memberId"),
+            member.username,
+            member.age,
+            team.id.as("teamId"),
+            team.name.as("teamName")
+    );
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberPredicates memberPredicates;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @BeforeEach
+    void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void ageRange() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(15);
+        condition.setAgeLoe(30);
+
+        assertThat(memberRepository.search(condition)).extracting("username")
+                .containsExactlyInAnyOrder("member2", "member3");
+        assertThat(memberJpaRepository.search(condition)).extracting("username")
+                .containsExactlyInAnyOrder("member2", "member3");
+        assertThat(memberJpaRepository.searchByBuilder(condition)).extracting("username")
+                .containsExactlyInAnyOrder("member2", "member3");
+    }
+
+    @Test
+    void literalWhereMatchesBoundWhere() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        condition.setAgeLoe(35);
+
+        JPAQuery<MemberTeamDto> literal = new JPAQueryFactory(em)
+                .select(MEMBER_TEAM_DTO)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(MemberPredicates.whereOf(condition));
+
+        assertThat(literal.fetch()).containsExactlyInAnyOrderElementsOf(memberRepository.search(condition));
+        assertThat(MemberPredicates.whereOf(new MemberSearchCondition())).isNull();
+    }
+
+    @Test
+    void sameShapeReusesJpql() {
+        JpqlCache cache = memberPredicates.getJpqlCache();
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(15);
+        memberRepository.search(condition);
+        long misses = cache.getMisses();
+        long hits = cache.getHits();
+
+        //값만 다르고 모양이 같은 조건
+        condition.setTeamName("teamB");
+        condition.setAgeGoe(35);
+
+        assertThat(memberRepository.search(condition)).extracting("username").containsExactly("member4");
+        assertThat(cache.getMisses()).isEqualTo(misses);
+        assertThat(cache.getHits()).isEqualTo(hits + 1);
+    }
+
+    @Test
+    void literalQueriesAreNotCached() {
+        JpqlCache cache = memberPredicates.getJpqlCache();
+        int size = cache.size();
+
+        JPAQueryFactory queryFactory = memberPredicates.queryFactory(em);
+        queryFactory.selectFrom(member).where(member.username.eq("member1")).fetch();
+        queryFactory.selectFrom(member).where(member.username.eq("member2")).fetch();
+
+        assertThat(cache.size()).isEqualTo(size);
+    }
+
+    /**
+     * 쿼리를 만들고 JPQL 로 직렬화하는 데 할당하는 바이트 (DB 실행 제외)
+     * 이전 방식 - 호출마다 조건 식, 프로젝션을 새로 만들고 JPQL 을 직렬화한다.
+     * MemberPredicates - 모양별로 만들어 둔 식에 Param 만 바인딩하고, 직렬화한 JPQL 을 재사용한다.
+     */
+    @Test
+    void allocationPerSearch() {
+        java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocation = (com.sun.management.ThreadMXBean) threadMXBean;
+        assumeTrue(allocation.isThreadAllocatedMemorySupported());
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member1");
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(5);
+        condition.setAgeLoe(30);
+
+        JPAQueryFactory plainFactory = new JPAQueryFactory(em);
+        JPAQueryFactory interningFactory = memberPredicates.queryFactory(em);
+
+        Supplier<JPAQuery<MemberTeamDto>> legacy = () -> plainFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")
+                ))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(
+                        member.username.eq(condition.getUsername()),
+                        team.name.eq(condition.getTeamName()),
+                        member.age.goe(condition.getAgeGoe()),
+                        member.age.loe(condition.getAgeLoe())
+                );
+        Supplier<JPAQuery<MemberTeamDto>> shared = () -> memberPredicates.apply(interningFactory
+                .select(MEMBER_TEAM_DTO)
+                .from(member)
+                .leftJoin(member.team, team), condition);
+
+        long legacyBytes = bytesPerCall(allocation, legacy);
+        long sharedBytes = bytesPerCall(allocation, shared);
+        System.out.printf("allocated bytes per search query build + serialize: legacy=%d, MemberPredicates=%d (%.0f%%)%n",
+                legacyBytes, sharedBytes, 100.0 * sharedBytes / legacyBytes);
+
+        assertThat(shared.get().fetch()).isEqualTo(legacy.get().fetch());
+        assertThat(sharedBytes).isLessThan(legacyBytes / 2);
+    }
+
+    //toString() 은 fetch() 와 같은 경로로 JPQL 을 직렬화한다.
+    private long bytesPerCall(com.sun.management.ThreadMXBean allocation, Supplier<JPAQuery<MemberTeamDto>> query) {
+        long threadId = Thread.currentThread().getId();
+        int iterations = 20_000;
+        for (int i = 0; i < iterations; i++) {
+            query.get().toString();
+        }
+        long before = allocation.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < iterations; i++) {
+            query.get().toString();
+        }
+        return (allocation.getThreadAllocatedBytes(threadId) - before) / iterations;
+    }
+}
@@ -0,0 +1,146 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.controller.QueryPolicyAdvice;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.MemberSearchSingleFlight;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest(properties = {
+        "member.query-policy.search.max-rows=2",
+        "member.query-policy.page.max-rows=2"
+})
+@AutoConfigureMockMvc
+@Transactional
+class QueryPolicyTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberSearchSingleFlight memberSearchSingleFlight;
+
+    @BeforeEach
+    void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+    }
+
+    @Test
+    void truncatesList() {
+        List<MemberTeamDto> result = memberJpaRepository.search(new MemberSearchCondition());
+
+        assertThat(result).isInstanceOf(TruncatedList.class).hasSize(2);
+        assertThat(((TruncatedList<MemberTeamDto>) result).getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    void singleFlightKeepsTruncatedList() {
+        List<MemberTeamDto> result = memberSearchSingleFlight.search(new MemberSearchCondition());
+
+        assertThat(result).isInstanceOf(TruncatedList.class).hasSize(2);
+        assertThat(((TruncatedList<MemberTeamDto>) result).getLimit()).isEqualTo(2);
+        assertThatThrownBy(() -> result.add(new MemberTeamDto()))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void withinLimitIsNotTruncated() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        assertThat(memberRepository.search(condition)).isNotInstanceOf(TruncatedList.class).hasSize(2);
+    }
+
+    @Test
+    void pageOverLimitIsRejected() {
+        assertThat(memberRepository.searchPageComplex(new MemberSearchCondition(), PageRequest.of(0, 2)).getContent())
+                .hasSize(2);
+        assertThatThrownBy(() -> memberRepository.searchPageComplex(new MemberSearchCondition(), PageRequest.of(0, 3)))
+                .isInstanceOf(QueryResultLimitExceededException.class);
+    }
+
+    @Test
+    void noPolicyOutsideAnnotatedMethods() {
+        assertThat(memberJpaRepository.findAll_Querydsl()).hasSize(4);
+    }
+
+    @Test
+    void exhaustedBudgetFailsBeforeQuery() {
+        QueryPolicies.Context outer = QueryPolicies.enter("test",
+                new QueryPolicies.Policy(0, 0, QueryPolicy.OnExceed.TRUNCATE));
+        try {
+            assertThatThrownBy(() -> QueryPolicies.fetch(new JPAQuery<>(em).select(member).from(member)))
+                    .isInstanceOf(QueryTimeoutException.class);
+        } finally {
+            QueryPolicies.exit(outer);
+        }
+    }
+
+    @Test
+    void subSecondBudgetRoundsUpToStatementTimeout() {
+        QueryPolicies.Context outer = QueryPolicies.enter("test",
+                new QueryPolicies.Policy(TimeUnit.MILLISECONDS.toNanos(300), 0, QueryPolicy.OnExceed.TRUNCATE));
+        JPAQuery<Member> query = new JPAQuery<>(em).select(member).from(member);
+        try {
+            QueryPolicies.fetch(query);
+        } finally {
+            QueryPolicies.exit(outer);
+        }
+
+        //300ms 가 0초(무제한)로 내림되지 않고 1초로 걸려야 한다.
+        assertThat(query.createQuery().unwrap(org.hibernate.query.Query.class).getTimeout()).isEqualTo(1);
+    }
+
+    @Test
+    void httpResponses() throws Exception {
+        mockMvc.perform(get("/v1/members"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(QueryPolicyAdvice.TRUNCATED_HEADER, "2"))
+                .andExpect(jsonPath("$.length()").value(2));
+        mockMvc.perform(get("/v3/members").param("size", "3"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").exists());
+    }
+}
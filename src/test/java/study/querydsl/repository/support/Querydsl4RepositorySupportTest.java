@@ -0,0 +1,116 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+@Transactional
+class Querydsl4RepositorySupportTest {
+
+    @Autowired
+    EntityManager em;
+
+    MemberSupport support;
+
+    @BeforeEach
+    void before() {
+        support = new MemberSupport();
+        support.setEntityManager(em);
+
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamA));
+        em.persist(new Member("member4", 40, teamA));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void readOnlyEntitiesAreNotDirtyChecked() {
+        List<Member> members = support.fetchReadOnly(support.selectFromReadOnly(member).orderBy(member.id.asc()));
+        Session session = em.unwrap(Session.class);
+
+        assertThat(members).hasSize(4).allMatch(session::isReadOnly);
+
+        members.get(0).setAge(99);
+        em.flush();
+        em.clear();
+        assertThat(em.find(Member.class, members.get(0).getId()).getAge()).isEqualTo(10);
+    }
+
+    @Test
+    void fetchSizeFollowsExpectedRowsWithinCap() {
+        assertThat(fetchSize(support.readOnly(support.selectFrom(member), 7))).isEqualTo(7);
+        assertThat(fetchSize(support.readOnly(support.selectFrom(member), 1_000_000))).isEqualTo(1000);
+        assertThat(fetchSize(support.readOnly(support.selectFrom(member), 0))).isEqualTo(1);
+        assertThat(fetchSize(support.selectFromReadOnly(member))).isEqualTo(100);
+    }
+
+    @Test
+    void readOnlyPaginationCounts() {
+        Page<Member> first = support.page(PageRequest.of(0, 3));
+        Page<Member> last = support.page(PageRequest.of(1, 3));
+
+        assertThat(first.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
+        assertThat(first.getTotalElements()).isEqualTo(4);
+        assertThat(last.getContent()).extracting("username").containsExactly("member4");
+        assertThat(last.getTotalElements()).isEqualTo(4);
+    }
+
+    @Test
+    void createsQuerydslObjectsOnFirstUse() {
+        MemberSupport fresh = new MemberSupport();
+        fresh.setEntityManager(em);
+        fresh.validate();
+
+        //시작 시점(생성, 주입, 검증)에는 만들지 않는다.
+        assertThat(ReflectionTestUtils.getField(fresh, "queryFactory")).isNull();
+        assertThat(ReflectionTestUtils.getField(fresh, "querydsl")).isNull();
+
+        JPAQueryFactory queryFactory = fresh.getQueryFactory();
+        assertThat(fresh.getQueryFactory()).isSameAs(queryFactory);
+        assertThat(ReflectionTestUtils.getField(fresh, "querydsl")).isNull();
+
+        fresh.page(PageRequest.of(0, 1));
+        assertThat(ReflectionTestUtils.getField(fresh, "querydsl")).isNotNull();
+        //엔티티 경로는 도메인 클래스별로 공유한다.
+        assertThat(Querydsl4RepositorySupport.pathBuilder(Member.class))
+                .isSameAs(Querydsl4RepositorySupport.pathBuilder(Member.class));
+    }
+
+    private static Integer fetchSize(JPAQuery<?> query) {
+        return query.createQuery().unwrap(org.hibernate.query.Query.class).getFetchSize();
+    }
+
+    static class MemberSupport extends Querydsl4RepositorySupport {
+
+        MemberSupport() {
+            super(Member.class);
+        }
+
+        Page<Member> page(PageRequest pageable) {
+            return applyReadOnlyPagination(pageable,
+                    queryFactory -> queryFactory.selectFrom(member).orderBy(member.id.asc()),
+                    queryFactory -> queryFactory.select(member.count()).from(member));
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package study.querydsl.repository.support;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    @Test
+    void concurrentCallsShareOneExecution() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(Duration.ofSeconds(5));
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch arrived = new CountDownLatch(10);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            results.add(executor.submit(() -> {
+                arrived.countDown();
+                return singleFlight.execute("key", () -> {
+                    executions.incrementAndGet();
+                    await(release);
+                    return "result";
+                });
+            }));
+        }
+        arrived.await();
+        Thread.sleep(100);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+        }
+        executor.shutdown();
+
+        assertThat(executions.get()).isEqualTo(1);
+        assertThat(singleFlight.getStats().get("key").getShared()).isEqualTo(9);
+        assertThat(singleFlight.getInFlightCount()).isZero();
+    }
+
+    @Test
+    void followerFallsBackAfterWaitTimeout() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(Duration.ofMillis(50));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<String> leader = executor.submit(() -> singleFlight.execute("key", () -> {
+            started.countDown();
+            await(release);
+            return "leader";
+        }));
+        started.await();
+
+        String follower = singleFlight.execute("key", () -> "follower");
+        release.countDown();
+
+        assertThat(follower).isEqualTo("follower");
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("leader");
+        assertThat(singleFlight.getStats().get("key").getTimeouts()).isEqualTo(1);
+        executor.shutdown();
+    }
+
+    @Test
+    void failureIsNotCached() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(Duration.ofSeconds(1));
+
+        assertThatThrownBy(() -> singleFlight.execute("key", () -> {
+            throw new IllegalStateException("db down");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(singleFlight.execute("key", () -> "ok")).isEqualTo("ok");
+        assertThat(singleFlight.getStats().get("key").getFailures()).isEqualTo(1);
+    }
+
+    @Test
+    void followerRetriesWhenLeaderTimesOut() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(Duration.ofSeconds(5));
+
+        String follower = followLeaderFailure(singleFlight, new QueryTimeoutException("leader budget exhausted"));
+
+        assertThat(follower).isEqualTo("follower");
+        SingleFlight.Stats stats = singleFlight.getStats().get("key");
+        assertThat(stats.getRetries()).isEqualTo(1);
+        assertThat(stats.getShared()).isZero();
+        assertThat(stats.getSharedFailures()).isZero();
+    }
+
+    @Test
+    void dataErrorIsSharedWithFollower() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(Duration.ofSeconds(5));
+
+        assertThatThrownBy(() -> followLeaderFailure(singleFlight, new IllegalArgumentException("bad condition")))
+                .hasRootCauseInstanceOf(IllegalArgumentException.class);
+
+        SingleFlight.Stats stats = singleFlight.getStats().get("key");
+        assertThat(stats.getSharedFailures()).isEqualTo(1);
+        assertThat(stats.getShared()).isZero();
+        assertThat(stats.getRetries()).isZero();
+    }
+
+    //leader 가 실행 중일 때 follower 가 합류하고, 그 뒤에 leader 가 failure 로 실패한다.
+    private static String followLeaderFailure(SingleFlight<String, String> singleFlight,
+                                              RuntimeException failure) throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> leader = executor.submit(() -> singleFlight.execute("key", () -> {
+                started.countDown();
+                await(release);
+                throw failure;
+            }));
+            started.await();
+            Future<String> follower = executor.submit(() -> singleFlight.execute("key", () -> "follower"));
+            Thread.sleep(100);
+            release.countDown();
+
+            assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCause(failure);
+            return follower.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package study.querydsl.snapshot;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * 스냅샷은 커밋된 데이터를 JDBC 로 읽고 쓰므로 테스트 데이터를 커밋하고 끝나면 지운다.
+ */
+@SpringBootTest
+class MemberSnapshotServiceTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberSnapshotService snapshotService;
+
+    @TempDir
+    Path dir;
+
+    TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void before() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB", teamA);
+            em.persist(teamA);
+            em.persist(teamB);
+
+            Member member1 = new Member("member1", 10, teamA);
+            member1.changeLocation(37.5663, 126.9779);
+            em.persist(member1);
+            em.persist(new Member("member2", 20, teamA));
+            em.persist(new Member("member3", 30, teamB));
+            em.persist(new Member("member4", 40, teamB));
+            em.persist(new Member(null, 0));
+        });
+    }
+
+    @AfterEach
+    void after() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("update Team t set t.parent = null").executeUpdate();
+            em.createQuery("delete from TeamClosure").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    void exportAndRestore() {
+        List<Object[]> members = members();
+        List<Object[]> teams = teams();
+        List<Object[]> closures = closures();
+
+        Path file = dir.resolve("member.snapshot");
+        SnapshotReport exported = snapshotService.export(file);
+        assertThat(exported.getRowCounts())
+                .containsEntry(SnapshotTable.TEAM, 2L)
+                .containsEntry(SnapshotTable.TEAM_CLOSURE, 3L)
+                .containsEntry(SnapshotTable.MEMBER, 5L);
+
+        after();
+        assertThat(members()).isEmpty();
+
+        SnapshotReport restored = snapshotService.restore(file);
+
+        assertThat(restored.getRowCounts()).isEqualTo(exported.getRowCounts());
+        assertThat(restored.getBytes()).isEqualTo(exported.getBytes());
+        assertThat(members()).containsExactlyElementsOf(members);
+        assertThat(teams()).containsExactlyElementsOf(teams);
+        assertThat(closures()).containsExactlyElementsOf(closures);
+    }
+
+    @Test
+    void restoredMembersKeepWorkingWithJpa() {
+        Path file = dir.resolve("member.snapshot");
+        snapshotService.export(file);
+        after();
+        snapshotService.restore(file);
+
+        Long newId = transactionTemplate.execute(status -> {
+            Team teamB = em.createQuery("select t from Team t where t.name = 'teamB'", Team.class).getSingleResult();
+            Member member = new Member("member5", 50, teamB);
+            em.persist(member);
+            return member.getId();
+        });
+
+        Long maxRestoredId = transactionTemplate.execute(status -> em.createQuery(
+                "select max(m.id) from Member m where m.username <> 'member5'", Long.class).getSingleResult());
+        assertThat(newId).isGreaterThan(maxRestoredId);
+
+        List<Object[]> subtree = transactionTemplate.execute(status -> em.createQuery(
+                "select m.username, c.depth from Member m join m.team t join TeamClosure c on c.descendant = t" +
+                        " where c.ancestor.name = 'teamA' order by m.username", Object[].class).getResultList());
+        assertThat(subtree).extracting(row -> row[0], row -> row[1]).containsExactly(
+                tuple("member1", 0), tuple("member2", 0), tuple("member3", 1), tuple("member4", 1), tuple("member5", 1));
+    }
+
+    @Test
+    void throughput() {
+        int count = 200_000;
+        transactionTemplate.executeWithoutResult(status -> em.createNativeQuery(
+                "insert into member (member_id, username, age, team_id, version)" +
+                        " select 1000000 + x, concat('bulk', x), mod(x, 100), (select min(team_id) from team), 0" +
+                        " from system_range(1, " + count + ")").executeUpdate());
+
+        Path file = dir.resolve("member.snapshot");
+        SnapshotReport exported = snapshotService.export(file);
+        after();
+        SnapshotReport restored = snapshotService.restore(file);
+
+        assertThat(restored.getRowCounts().get(SnapshotTable.MEMBER)).isEqualTo(count + 5L);
+        System.out.printf("export  %,d rows, %,d bytes, %d ms (%,.0f rows/s, %.1f MB/s)%n",
+                exported.getTotalRows(), exported.getBytes(), exported.getElapsed().toMillis(),
+                exported.getRowsPerSecond(), exported.getMegabytesPerSecond());
+        System.out.printf("restore %,d rows, %,d bytes, %d ms (%,.0f rows/s, %.1f MB/s)%n",
+                restored.getTotalRows(), restored.getBytes(), restored.getElapsed().toMillis(),
+                restored.getRowsPerSecond(), restored.getMegabytesPerSecond());
+    }
+
+    private List<Object[]> members() {
+        return transactionTemplate.execute(status -> em.createQuery(
+                "select m.id, m.username, m.age, m.team.id, m.version, m.latitude, m.longitude, m.geohash" +
+                        " from Member m order by m.id", Object[].class)
+                .getResultList());
+    }
+
+    private List<Object[]> teams() {
+        return transactionTemplate.execute(status -> em.createQuery(
+                "select t.id, t.name, p.id from Team t left join t.parent p order by t.id", Object[].class)
+                .getResultList());
+    }
+
+    private List<Object[]> closures() {
+        return transactionTemplate.execute(status -> em.createQuery(
+                "select c.ancestor.id, c.descendant.id, c.depth from TeamClosure c order by c.ancestor.id, c.descendant.id", Object[].class)
+                .getResultList());
+    }
+}
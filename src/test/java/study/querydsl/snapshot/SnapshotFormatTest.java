@@ -0,0 +1,105 @@
+package study.querydsl.snapshot;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 로컬 H2 메모리 DB 의 ResultSet 으로 파일을 쓰고 다시 읽는다.
+ */
+class SnapshotFormatTest {
+
+    @TempDir
+    Path dir;
+
+    Connection connection;
+
+    @BeforeEach
+    void before() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:snapshot_format", "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table member (member_id bigint, username varchar(255), age int, team_id bigint, version bigint,"
+                    + " latitude double, longitude double, geohash varchar(12))");
+            statement.execute("insert into member values "
+                    + "(1, 'member1', 10, 7, 0, 37.5665, 126.978, 'wydm9qyc6m1h'), "
+                    + "(2, null, -3, null, null, null, null, null), "
+                    + "(1000000000000, '회원 ✓', 2147483647, 9223372036854775806, 5, -90, -180, '000000000000'), "
+                    + "(1000000000001, '', -2147483648, 0, 1, 0.1, 180, '')");
+        }
+    }
+
+    @AfterEach
+    void after() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void roundTrip() throws Exception {
+        Path file = dir.resolve("member.snapshot");
+        write(file, 2);
+
+        List<Object[]> rows = new ArrayList<>();
+        int blocks = 0;
+        try (SnapshotReader reader = new SnapshotReader(file)) {
+            while (reader.nextBlock()) {
+                blocks++;
+                assertThat(reader.table()).isEqualTo(SnapshotTable.MEMBER);
+                for (int i = 0; i < reader.rows(); i++) {
+                    rows.add(new Object[]{
+                            reader.column(0).nextId(),
+                            reader.column(1).nextString(),
+                            reader.column(2).nextInt(),
+                            reader.column(3).nextNullableLong(),
+                            reader.column(4).nextNullableLong(),
+                            reader.column(5).nextNullableDouble(),
+                            reader.column(6).nextNullableDouble(),
+                            reader.column(7).nextString()
+                    });
+                }
+            }
+            assertThat(reader.getBytesRead()).isEqualTo(Files.size(file));
+        }
+
+        assertThat(blocks).isEqualTo(2);
+        assertThat(rows).containsExactly(
+                new Object[]{1L, "member1", 10, 7L, 0L, 37.5665, 126.978, "wydm9qyc6m1h"},
+                new Object[]{2L, null, -3, null, null, null, null, null},
+                new Object[]{1000000000000L, "회원 ✓", Integer.MAX_VALUE, 9223372036854775806L, 5L, -90.0, -180.0, "000000000000"},
+                new Object[]{1000000000001L, "", Integer.MIN_VALUE, 0L, 1L, 0.1, 180.0, ""});
+    }
+
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        Path file = dir.resolve("other.bin");
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6});
+
+        assertThatThrownBy(() -> new SnapshotReader(file))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Not a member snapshot");
+    }
+
+    private void write(Path file, int blockRows) throws Exception {
+        try (SnapshotWriter writer = new SnapshotWriter(file, blockRows, 1);
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(SnapshotTable.MEMBER.selectSql())) {
+            while (rs.next()) {
+                writer.append(SnapshotTable.MEMBER, rs);
+            }
+        }
+    }
+}
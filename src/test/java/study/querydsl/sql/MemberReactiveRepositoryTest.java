@@ -0,0 +1,148 @@
+package study.querydsl.sql;
+
+import com.querydsl.sql.Configuration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.test.StepVerifier;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * R2DBC 는 별도 커넥션을 사용하므로 테스트 데이터를 커밋하고 끝나면 지운다.
+ */
+@SpringBootTest
+class MemberReactiveRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberReactiveRepository memberReactiveRepository;
+
+    @Autowired
+    DatabaseClient databaseClient;
+
+    @Autowired
+    Configuration querydslSqlConfiguration;
+
+    TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void before() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+            em.persist(new Member("member3", 30, teamB));
+            em.persist(new Member("member4", 40, teamB));
+        });
+    }
+
+    @AfterEach
+    void after() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from TeamClosure").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    void search() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(35);
+        condition.setTeamName("teamB");
+
+        StepVerifier.create(memberReactiveRepository.search(condition))
+                .assertNext(dto -> {
+                    assertThat(dto.getUsername()).isEqualTo("member4");
+                    assertThat(dto.getAge()).isEqualTo(40);
+                    assertThat(dto.getTeamName()).isEqualTo("teamB");
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void searchWithBackpressure() {
+        StepVerifier.create(memberReactiveRepository.search(new MemberSearchCondition()), 1)
+                .expectNextCount(1)
+                .thenRequest(2)
+                .expectNextCount(2)
+                .thenRequest(1)
+                .expectNextCount(1)
+                .verifyComplete();
+    }
+
+    @Test
+    void searchIsCappedAtMaxRows() {
+        MemberReactiveRepository capped = new MemberReactiveRepository(
+                databaseClient, querydslSqlConfiguration, Duration.ofSeconds(3), 2);
+
+        StepVerifier.create(capped.search(new MemberSearchCondition()))
+                .expectNextCount(2)
+                .verifyComplete();
+    }
+
+    @Test
+    void searchFailsWhenBudgetIsExhausted() {
+        MemberReactiveRepository exhausted = new MemberReactiveRepository(
+                databaseClient, querydslSqlConfiguration, Duration.ZERO, 0);
+
+        StepVerifier.create(exhausted.search(new MemberSearchCondition()))
+                .verifyError(QueryTimeoutException.class);
+    }
+
+    @Test
+    void searchPageComplex() {
+        StepVerifier.create(memberReactiveRepository.searchPageComplex(new MemberSearchCondition(), PageRequest.of(0, 3)))
+                .assertNext(page -> {
+                    assertThat(page.getContent()).extracting("username")
+                            .containsExactly("member1", "member2", "member3");
+                    assertThat(page.getTotalElements()).isEqualTo(4);
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void searchPageComplexSkipsCountOnLastPage() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        StepVerifier.create(memberReactiveRepository.searchPageComplex(condition, PageRequest.of(0, 10)))
+                .assertNext(page -> {
+                    assertThat(page.getContent()).extracting(MemberTeamDto::getUsername)
+                            .containsExactly("member1", "member2");
+                    assertThat(page.getTotalElements()).isEqualTo(2);
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void toIndexedMarkers() {
+        assertThat(MemberReactiveRepository.toIndexedMarkers("select * from member where age >= ? and username = ?"))
+                .isEqualTo("select * from member where age >= $1 and username = $2");
+    }
+}
@@ -0,0 +1,117 @@
+package study.querydsl.sql;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberSqlRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberSqlRepository memberSqlRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @BeforeEach
+    void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+
+        //querydsl-sql 은 영속성 컨텍스트를 거치지 않으므로 먼저 flush 한다.
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void search() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeLoe(40);
+        condition.setAgeGoe(35);
+        condition.setTeamName("teamB");
+
+        List<MemberTeamDto> result = memberSqlRepository.search(condition);
+
+        assertThat(result).extracting("username").containsExactly("member4");
+        assertThat(result).isEqualTo(memberRepository.search(condition));
+    }
+
+    @Test
+    void searchPageComplex() {
+        Page<MemberTeamDto> result = memberSqlRepository.searchPageComplex(new MemberSearchCondition(), PageRequest.of(0, 3));
+
+        assertThat(result.getContent()).extracting("username")
+                .containsExactly("member1", "member2", "member3");
+        assertThat(result.getTotalElements()).isEqualTo(4);
+    }
+
+    /**
+     * JPA 경로와 querydsl-sql 경로 비교
+     */
+    @Test
+    void compareWithJpa() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        int iterations = 1_000;
+
+        //warm up
+        for (int i = 0; i < 100; i++) {
+            memberRepository.search(condition);
+            memberSqlRepository.search(condition);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            memberRepository.search(condition);
+        }
+        long jpaNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            memberSqlRepository.search(condition);
+        }
+        long sqlNanos = System.nanoTime() - start;
+
+        System.out.println("jpa = " + jpaNanos / iterations / 1_000 + "us/op");
+        System.out.println("sql = " + sqlNanos / iterations / 1_000 + "us/op");
+    }
+
+    @Test
+    void existsAndDistinctTeams() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(25);
+
+        assertThat(memberSqlRepository.exists(condition)).isTrue();
+        assertThat(memberSqlRepository.distinctTeams(condition)).hasSize(1)
+                .isEqualTo(memberRepository.distinctTeams(condition));
+
+        condition.setUsername("member1");
+        assertThat(memberSqlRepository.exists(condition)).isFalse();
+        assertThat(memberSqlRepository.distinctTeams(condition)).isEmpty();
+    }
+}